@@ -2,33 +2,42 @@ package com.schooltracker;
 
 import com.schooltracker.model.User;
 import com.schooltracker.repository.UserRepository;
+import com.schooltracker.service.PasswordHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableCaching
+@EnableScheduling
 public class SchoolTrackerApplication {
 
+	private static final Logger log = LoggerFactory.getLogger(SchoolTrackerApplication.class);
+
 	public static void main(String[] args) {
 		SpringApplication.run(SchoolTrackerApplication.class, args);
 	}
 
 	@Bean
-	public CommandLineRunner initData(UserRepository userRepository) {
+	public CommandLineRunner initData(UserRepository userRepository, PasswordHasher passwordHasher) {
 		return args -> {
 			if (userRepository.findByUsername("admin").isEmpty()) {
 				User admin = new User();
 				admin.setName("System Admin");
 				admin.setUsername("admin");
-				admin.setPassword("admin123");
+				admin.setPassword(passwordHasher.hash("admin123"));
 				admin.setRole("Admin");
 				admin.setDepartment("-");
 				admin.setEmail("admin@school.com");
 				userRepository.save(admin);
-				System.out.println("Default admin user created: admin / admin123");
+				log.info("Default admin user created: admin");
 			} else {
-				System.out.println("Admin user already exists.");
+				log.debug("Admin user already exists.");
 			}
 		};
 	}
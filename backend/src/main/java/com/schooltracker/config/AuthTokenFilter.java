@@ -0,0 +1,61 @@
+package com.schooltracker.config;
+
+import com.schooltracker.service.AuthTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Verifies "Authorization: Bearer" tokens (signature and expiry only, no
+ * database access) and exposes their claims as the
+ * AuthTokenService.CLAIMS_ATTRIBUTE request attribute. An invalid token is
+ * rejected with 401. Requests without a token pass unless
+ * tracker.auth.required is set, in which case every /api request except the
+ * login itself needs one.
+ */
+@Component
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    @Autowired
+    private AuthTokenService authTokenService;
+
+    @Value("${tracker.auth.required:false}")
+    private boolean required;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            Optional<AuthTokenService.Claims> claims = authTokenService.verify(header.substring(BEARER.length()));
+            if (claims.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+                return;
+            }
+            request.setAttribute(AuthTokenService.CLAIMS_ATTRIBUTE, claims.get());
+        } else if (required && needsToken(request)) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Login required");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static boolean needsToken(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // CORS preflights carry no credentials
+        return path.startsWith("/api/") && !path.equals("/api/auth/login")
+                && !HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+}
@@ -0,0 +1,73 @@
+package com.schooltracker.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many threads may talk to each external gateway (SMTP, Twilio)
+ * at once, with fair semaphores: in virtual mode nothing else bounds the
+ * number of senders. Waiting threads park (a virtual thread unmounts), and
+ * give up after tracker.limits.acquire-timeout-ms so a stalled gateway
+ * fails the send, to be retried, instead of piling up waiters.
+ *
+ * Requests, and with them JDBC, are bounded by RequestConcurrencyFilter.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    public static final String SMTP = "smtp";
+    public static final String SMS = "sms";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tracker.limits.smtp:4}")
+    private int smtpPermits;
+
+    @Value("${tracker.limits.sms:4}")
+    private int smsPermits;
+
+    @Value("${tracker.limits.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private Map<String, Semaphore> limits;
+
+    @PostConstruct
+    public void init() {
+        limits = Map.of(SMTP, new Semaphore(smtpPermits, true), SMS, new Semaphore(smsPermits, true));
+        limits.forEach((name, semaphore) -> Gauge.builder("tracker.limits.waiting", semaphore,
+                Semaphore::getQueueLength)
+                .description("Threads waiting for a gateway permit")
+                .tag("gateway", name)
+                .register(meterRegistry));
+    }
+
+    /** Runs the call holding one permit of the gateway. */
+    public void run(String gateway, Runnable call) {
+        Semaphore semaphore = limits.get(gateway);
+        acquire(gateway, semaphore);
+        try {
+            call.run();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private void acquire(String gateway, Semaphore semaphore) {
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS))
+                throw new IllegalStateException("Timed out waiting for a " + gateway + " permit");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a " + gateway + " permit", e);
+        }
+    }
+}
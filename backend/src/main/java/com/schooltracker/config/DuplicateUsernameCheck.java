@@ -0,0 +1,71 @@
+package com.schooltracker.config;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flyway callback run before V2, which adds the unique index on
+ * users.username. Databases adopted from ddl-auto=update could hold the same
+ * username twice; instead of letting the index creation fail with a bare
+ * duplicate-key error, the migration stops with the offending usernames so
+ * they can be fixed by hand (which account to keep is not ours to guess).
+ *
+ * V2 itself stays untouched: editing it would change its checksum on every
+ * installation that already applied it.
+ */
+@Component
+public class DuplicateUsernameCheck implements Callback {
+
+    private static final MigrationVersion UNIQUE_USERNAMES = MigrationVersion.fromVersion("2");
+    private static final int MAX_LISTED = 20;
+
+    private static final String DUPLICATES_SQL = "SELECT username, COUNT(*) FROM users WHERE username IS NOT NULL "
+            + "GROUP BY username HAVING COUNT(*) > 1 ORDER BY username";
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_EACH_MIGRATE && context.getMigrationInfo() != null
+                && UNIQUE_USERNAMES.equals(context.getMigrationInfo().getVersion());
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        List<String> duplicates = new ArrayList<>();
+        int count = 0;
+        try (PreparedStatement ps = context.getConnection().prepareStatement(DUPLICATES_SQL);
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                if (count++ < MAX_LISTED)
+                    duplicates.add("'" + rs.getString(1) + "' (" + rs.getLong(2) + " users)");
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Could not check users.username for duplicates before V2", e);
+        }
+        if (count > 0) {
+            throw new FlywayException("V2 adds a unique index on users.username, but " + count
+                    + " username(s) are used by more than one user: " + String.join(", ", duplicates)
+                    + (count > MAX_LISTED ? ", ..." : "")
+                    + ". Rename or delete the duplicate accounts, then restart to continue the migration.");
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "DuplicateUsernameCheck";
+    }
+}
@@ -0,0 +1,74 @@
+package com.schooltracker.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform or virtual threads, following spring.threads.virtual.enabled
+ * (which also moves Tomcat's request threads and the @Scheduled scheduler
+ * onto virtual threads). Virtual threads need a Java 21 runtime; on older
+ * ones the setting is ignored with a warning.
+ *
+ * The application's own executors are created here. In virtual mode,
+ * pools run one virtual thread per task, and ConcurrencyLimiter bounds what
+ * those tasks may hit at once instead of the pool size. CPU-bound pools
+ * (password hashing, report rendering) stay on platform threads.
+ */
+@Component
+public class ExecutionMode {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionMode.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualRequested;
+
+    private boolean virtual;
+
+    @PostConstruct
+    public void init() {
+        boolean supported = Runtime.version().feature() >= 21;
+        if (virtualRequested && !supported)
+            log.warn("Virtual threads need Java 21 (running {}); using platform threads", Runtime.version());
+        virtual = virtualRequested && supported;
+        log.info("Execution mode: {} threads", virtual ? "virtual" : "platform");
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /** Runs tasks one at a time, in submission order. */
+    public ExecutorService newSingleThreadExecutor(String name) {
+        return Executors.newSingleThreadExecutor(threadFactory(name));
+    }
+
+    /**
+     * A fixed pool of {@code platformThreads} in platform mode; one virtual
+     * thread per task in virtual mode.
+     */
+    public ExecutorService newPool(String name, int platformThreads) {
+        if (!virtual)
+            return Executors.newFixedThreadPool(platformThreads, threadFactory(name));
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory(name));
+    }
+
+    public ThreadFactory threadFactory(String name) {
+        if (virtual)
+            return new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory();
+        AtomicInteger counter = new AtomicInteger();
+        return task -> new Thread(task, name + "-" + counter.incrementAndGet());
+    }
+}
@@ -0,0 +1,88 @@
+package com.schooltracker.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In virtual mode, caps the requests in progress at tracker.limits.requests
+ * (0 = no cap). Tomcat's thread count no longer bounds them, so a burst
+ * would otherwise pile every request onto Hikari's connection timeout and
+ * pin a carrier per blocked MySQL call. The permit is taken before the
+ * request touches the pool and held until its handler returns (an async
+ * request releases it once started), so connections are bounded by the pool
+ * alone and a request that holds one connection while taking another waits
+ * only on the pool, as in platform mode.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestConcurrencyFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tracker.limits.requests:200}")
+    private int maxRequests;
+
+    @Value("${tracker.limits.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        if (!executionMode.isVirtual() || maxRequests <= 0)
+            return;
+        permits = new Semaphore(maxRequests, true);
+        Gauge.builder("tracker.limits.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a gateway permit")
+                .tag("gateway", "requests")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return permits == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many requests in progress");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
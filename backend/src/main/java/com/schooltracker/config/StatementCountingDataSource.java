@@ -0,0 +1,65 @@
+package com.schooltracker.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Counts the statements prepared on the current thread while a count is
+ * open (see RequestMetricsFilter). JPA, JdbcTemplate and Flyway all go
+ * through it; a JDBC batch counts once. Unwraps to the pool, so the Hikari
+ * metrics still bind.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall",
+            "createStatement");
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    public static void begin() {
+        COUNT.set(new int[1]);
+    }
+
+    /** Closes the count opened by {@link #begin()} and returns it. */
+    public static int end() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        int[] count = COUNT.get();
+                        if (count != null)
+                            count[0]++;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
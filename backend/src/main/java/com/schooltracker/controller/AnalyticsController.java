@@ -0,0 +1,148 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.dto.GradeCount;
+import com.schooltracker.dto.GradeCountRow;
+import com.schooltracker.dto.StudentPerformance;
+import com.schooltracker.dto.SubjectPerformance;
+import com.schooltracker.dto.SubjectPerformanceRow;
+import com.schooltracker.model.Subject;
+import com.schooltracker.repository.MarkRepository;
+import com.schooltracker.repository.SubjectRepository;
+import com.schooltracker.service.MarkColumnStore;
+import com.schooltracker.service.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Faculty dashboard aggregates, so the browser receives a few rows per
+ * subject instead of every mark. Subject totals, pass rates and the grade
+ * histogram are scanned from the in-memory MarkColumnStore; the top-students
+ * ranking is a grouped query.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    private static final int MAX_TOP_STUDENTS = 100;
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private MarkColumnStore markColumnStore;
+
+    @GetMapping("/faculty/{facultyId}/subjects")
+    public ResponseEntity<List<SubjectPerformance>> getSubjectAverages(@PathVariable Long facultyId) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(subjectPerformance(aggregate(facultyId)));
+    }
+
+    @GetMapping("/faculty/{facultyId}/grade-distribution")
+    public ResponseEntity<List<GradeCount>> getGradeDistribution(@PathVariable Long facultyId) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(gradeDistribution(aggregate(facultyId)));
+    }
+
+    @GetMapping("/faculty/{facultyId}/pass-rate")
+    public ResponseEntity<Map<String, Object>> getPassRate(@PathVariable Long facultyId) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(passRate(subjectPerformance(aggregate(facultyId))));
+    }
+
+    @GetMapping("/faculty/{facultyId}/top-students")
+    public ResponseEntity<List<StudentPerformance>> getTopStudents(@PathVariable Long facultyId,
+            @RequestParam(defaultValue = "5") int limit) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(markRepository.findTopStudentsByFaculty(facultyId, topStudents(limit)));
+    }
+
+    /**
+     * Everything the reports tab renders, in one round trip.
+     */
+    @GetMapping("/faculty/{facultyId}")
+    public ResponseEntity<Map<String, Object>> getFacultySummary(@PathVariable Long facultyId,
+            @RequestParam(defaultValue = "5") int limit) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+
+        MarkColumnStore.Aggregate aggregate = aggregate(facultyId);
+        List<SubjectPerformance> subjects = subjectPerformance(aggregate);
+        Map<String, Object> summary = passRate(subjects);
+        summary.put("subjects", subjects);
+        summary.put("gradeDistribution", gradeDistribution(aggregate));
+        summary.put("topStudents", markRepository.findTopStudentsByFaculty(facultyId, topStudents(limit)));
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping("/column-store/stats")
+    public Map<String, Object> getColumnStoreStats() {
+        return markColumnStore.getStats();
+    }
+
+    @PostMapping("/column-store/rebuild")
+    public Map<String, Object> rebuildColumnStore() {
+        return markColumnStore.rebuild();
+    }
+
+    // limit is clamped to 1..MAX_TOP_STUDENTS; PageRequest rejects anything below 1
+    private PageRequest topStudents(int limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_TOP_STUDENTS)));
+    }
+
+    private MarkColumnStore.Aggregate aggregate(Long facultyId) {
+        return markColumnStore.aggregate(subjectRepository.findIdsByFacultyIdIn(List.of(facultyId)));
+    }
+
+    private List<SubjectPerformance> subjectPerformance(MarkColumnStore.Aggregate aggregate) {
+        List<SubjectPerformance> subjects = new ArrayList<>(aggregate.subjects().size());
+        for (MarkColumnStore.SubjectAggregate totals : aggregate.subjects()) {
+            Subject subject = referenceDataCache.findSubject(totals.subjectId()).orElse(null);
+            subjects.add(new SubjectPerformanceRow(totals.subjectId(), subject == null ? null : subject.getName(),
+                    subject == null ? null : subject.getCode(), totals.totalObtained(), totals.totalMax(),
+                    totals.markCount(), totals.passCount()));
+        }
+        subjects.sort(Comparator.comparing(SubjectPerformance::getName,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        return subjects;
+    }
+
+    private List<GradeCount> gradeDistribution(MarkColumnStore.Aggregate aggregate) {
+        List<GradeCount> grades = new ArrayList<>(aggregate.gradeCounts().size());
+        aggregate.gradeCounts().forEach((grade, count) -> grades.add(new GradeCountRow(grade, count)));
+        return grades;
+    }
+
+    private Map<String, Object> passRate(List<SubjectPerformance> subjects) {
+        long markCount = 0;
+        long passCount = 0;
+        for (SubjectPerformance subject : subjects) {
+            markCount += subject.getMarkCount();
+            passCount += subject.getPassCount();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("markCount", markCount);
+        result.put("passCount", passCount);
+        result.put("passRate", markCount == 0 ? null : (passCount * 100.0) / markCount);
+        return result;
+    }
+}
@@ -1,52 +1,96 @@
 package com.schooltracker.controller;
 
+import com.schooltracker.dto.AssessmentView;
+import com.schooltracker.dto.Cursor;
 import com.schooltracker.model.Assessment;
-import com.schooltracker.model.User;
 import com.schooltracker.repository.AssessmentRepository;
-import com.schooltracker.repository.UserRepository;
+import com.schooltracker.service.MarkTrendIndex;
+import com.schooltracker.service.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/assessments")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = ListResponses.NEXT_CURSOR)
 public class AssessmentController {
 
     @Autowired
     private AssessmentRepository assessmentRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ReferenceDataCache referenceDataCache;
 
     @Autowired
-    private com.schooltracker.repository.SubjectRepository subjectRepository;
+    private ListResponses listResponses;
+
+    @Autowired
+    private MarkTrendIndex trendIndex;
 
     @GetMapping
-    public List<Assessment> getAllAssessments() {
-        return assessmentRepository.findAll();
+    public ResponseEntity<List<AssessmentView>> getAllAssessments(@RequestParam(required = false) Cursor after,
+            @RequestParam(required = false) Integer limit) {
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(
+                assessmentRepository.findAllViews(from.id(), from.date(), listResponses.pageable(limit)), limit,
+                AssessmentView::id, AssessmentView::date);
+    }
+
+    @GetMapping(params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllAssessments() {
+        return listResponses.ndjson(assessmentRepository::streamAllViews);
     }
 
     @PostMapping
     public Assessment createAssessment(@RequestBody Assessment assessment) {
-        return assessmentRepository.save(assessment);
+        // A body with an id updates that assessment
+        Assessment previous = assessment.getId() == null ? null
+                : referenceDataCache.findAssessment(assessment.getId()).orElse(null);
+        Assessment saved = assessmentRepository.save(assessment);
+        if (previous != null) {
+            referenceDataCache.evictAssessment(saved.getId());
+            if (!Objects.equals(previous.getDate(), saved.getDate())
+                    || !Objects.equals(previous.getTotalMarks(), saved.getTotalMarks()))
+                trendIndex.onAssessmentChanged(saved.getId());
+        }
+        return saved;
     }
 
     @GetMapping("/faculty/{facultyId}")
-    public ResponseEntity<List<Assessment>> getAssessmentsByFaculty(@PathVariable Long facultyId) {
-        User faculty = userRepository.findById(facultyId).orElse(null);
-        if (faculty == null)
+    public ResponseEntity<List<AssessmentView>> getAssessmentsByFaculty(@PathVariable Long facultyId,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(assessmentRepository.findViewsByFacultyId(facultyId, from.id(), from.date(),
+                listResponses.pageable(limit)), limit, AssessmentView::id, AssessmentView::date);
+    }
+
+    @GetMapping(value = "/faculty/{facultyId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAssessmentsByFaculty(@PathVariable Long facultyId) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
             return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(assessmentRepository.findByFaculty(faculty));
+        return listResponses.ndjson(() -> assessmentRepository.streamViewsByFacultyId(facultyId));
     }
 
     @GetMapping("/subject/{subjectId}")
-    public ResponseEntity<List<Assessment>> getAssessmentsBySubject(@PathVariable Long subjectId) {
-        com.schooltracker.model.Subject subject = subjectRepository.findById(subjectId).orElse(null);
-        if (subject == null)
+    public ResponseEntity<List<AssessmentView>> getAssessmentsBySubject(@PathVariable Long subjectId,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        if (referenceDataCache.findSubject(subjectId).isEmpty())
+            return ResponseEntity.notFound().build();
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(assessmentRepository.findViewsBySubjectId(subjectId, from.id(), from.date(),
+                listResponses.pageable(limit)), limit, AssessmentView::id, AssessmentView::date);
+    }
+
+    @GetMapping(value = "/subject/{subjectId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAssessmentsBySubject(@PathVariable Long subjectId) {
+        if (referenceDataCache.findSubject(subjectId).isEmpty())
             return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(assessmentRepository.findBySubject(subject));
+        return listResponses.ndjson(() -> assessmentRepository.streamViewsBySubjectId(subjectId));
     }
 }
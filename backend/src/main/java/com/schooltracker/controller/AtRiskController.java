@@ -0,0 +1,59 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.repository.AtRiskJdbcRepository;
+import com.schooltracker.service.AtRiskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Students flagged by the daily at-risk sweep, most at risk first. Pages are
+ * keyed by rank: pass the X-Next-Cursor header back as {@code after}.
+ */
+@RestController
+@RequestMapping("/api/at-risk")
+@CrossOrigin(origins = "*")
+public class AtRiskController {
+
+    @Autowired
+    private AtRiskService atRiskService;
+
+    @Autowired
+    private AtRiskJdbcRepository atRiskJdbcRepository;
+
+    @Autowired
+    private ListResponses listResponses;
+
+    /** Optionally only students enrolled in one of the faculty's subjects. */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getAtRisk(@RequestParam(required = false) Long facultyId,
+            @RequestParam(required = false) Integer after, @RequestParam(defaultValue = "100") Integer limit) {
+        List<Map<String, Object>> rows = atRiskJdbcRepository.findPage(facultyId, after,
+                listResponses.pageable(limit).getPageSize());
+        return listResponses.page(rows, limit, row -> ((Integer) row.get("rank")).longValue());
+    }
+
+    @GetMapping("/student/{studentId}")
+    public ResponseEntity<Map<String, Object>> getStudent(@PathVariable Long studentId) {
+        return atRiskJdbcRepository.findByStudentId(studentId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        return atRiskService.getLastRun();
+    }
+
+    /** Runs the sweep now instead of waiting for the schedule. */
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run() {
+        if (!atRiskService.start())
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "A sweep is already running"));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(atRiskService.getLastRun());
+    }
+}
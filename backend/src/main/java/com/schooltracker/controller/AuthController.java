@@ -1,42 +1,120 @@
 package com.schooltracker.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.schooltracker.model.User;
+import com.schooltracker.repository.UserJdbcRepository;
 import com.schooltracker.repository.UserRepository;
+import com.schooltracker.service.AuthTokenService;
+import com.schooltracker.service.LoginThrottle;
+import com.schooltracker.service.PasswordHasher;
+import com.schooltracker.service.ReferenceDataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
+    private static final String INVALID = "Invalid username, password, or role selection.";
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserJdbcRepository userJdbcRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AuthTokenService authTokenService;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Spring Boot's application executor: the login's database work runs there, off the hashing pool
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor applicationTaskExecutor;
+
+    /**
+     * Checks the credentials on the password hashing pool (the request thread
+     * is released meanwhile) and returns the user with a signed token to send
+     * as "Authorization: Bearer ..." from then on.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> credentials) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> credentials) {
         String username = credentials.get("username");
         String password = credentials.get("password");
         String role = credentials.get("role");
 
-        System.out.println("Login attempt: username=" + username + ", role=" + role);
+        log.debug("Login attempt: username={}, role={}", username, role);
 
-        Optional<User> userOptional = userRepository.findByUsername(username);
+        if (loginThrottle.isBlocked(username)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginThrottle.getRetryAfterSeconds()))
+                    .body("Too many failed logins. Try again later."));
+        }
 
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            // In a real app, we'd use BCrypt salt/hashing. For now, we'll do literal
-            // comparison as requested.
-            if (user.getPassword().equals(password) && user.getRole().equalsIgnoreCase(role)) {
-                return ResponseEntity.ok(user);
-            }
+        User user = username == null ? null : userRepository.findByUsername(username).orElse(null);
+        String stored = user == null ? null : user.getPassword();
+        CompletableFuture<Boolean> matches;
+        try {
+            matches = passwordHasher.matchesAsync(password, stored);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many logins in progress. Try again shortly."));
         }
 
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username, password, or role selection.");
+        return matches.<ResponseEntity<?>>thenApplyAsync(matched -> {
+            if (!matched || !user.getRole().equalsIgnoreCase(role)) {
+                loginThrottle.recordFailure(username);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(INVALID);
+            }
+            loginThrottle.reset(username);
+            if (passwordHasher.needsRehash(stored))
+                userJdbcRepository.updatePassword(user.getId(), stored, passwordHasher.hash(password));
+
+            AuthTokenService.IssuedToken token = authTokenService.issue(user);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> body = objectMapper.convertValue(user, LinkedHashMap.class);
+            body.put("token", token.token());
+            body.put("expiresAt", token.expiresAt());
+            return ResponseEntity.ok(body);
+        }, applicationTaskExecutor);
+    }
+
+    /** The user of the request's token (see AuthTokenFilter), from the reference data cache. */
+    @GetMapping("/me")
+    public ResponseEntity<User> me(@RequestAttribute(name = AuthTokenService.CLAIMS_ATTRIBUTE,
+            required = false) AuthTokenService.Claims claims) {
+        if (claims == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        Optional<User> user = referenceDataCache.findUser(claims.userId());
+        return user.map(ResponseEntity::ok).orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
 }
@@ -0,0 +1,21 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.service.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return referenceDataCache.getStats();
+    }
+}
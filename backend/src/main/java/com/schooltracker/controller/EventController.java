@@ -0,0 +1,54 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.service.EventBroadcaster;
+import com.schooltracker.service.MarkEventPublisher;
+import com.schooltracker.service.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Server-sent event streams of mark changes for the dashboards. Browsers
+ * reconnect with the Last-Event-ID header; clients that cannot set headers
+ * may pass ?lastEventId= instead.
+ */
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventController {
+
+    @Autowired
+    private EventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @GetMapping(value = "/student/{studentId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> studentEvents(@PathVariable Long studentId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        if (referenceDataCache.findUser(studentId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(eventBroadcaster.subscribe(MarkEventPublisher.studentTopic(studentId),
+                lastEventId != null ? lastEventId : lastEventIdParam));
+    }
+
+    @GetMapping(value = "/faculty/{facultyId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> facultyEvents(@PathVariable Long facultyId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(eventBroadcaster.subscribe(MarkEventPublisher.facultyTopic(facultyId),
+                lastEventId != null ? lastEventId : lastEventIdParam));
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return eventBroadcaster.getStats();
+    }
+}
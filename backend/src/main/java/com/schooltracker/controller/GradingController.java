@@ -0,0 +1,88 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.model.GradingScheme;
+import com.schooltracker.service.GradingPolicyService;
+import com.schooltracker.service.RegradeJob;
+import com.schooltracker.service.RegradeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/grading")
+@CrossOrigin(origins = "*")
+public class GradingController {
+
+    @Autowired
+    private GradingPolicyService gradingPolicyService;
+
+    @Autowired
+    private RegradeService regradeService;
+
+    @GetMapping("/schemes")
+    public List<GradingScheme> getSchemes() {
+        return gradingPolicyService.findAll();
+    }
+
+    @GetMapping("/schemes/{id}")
+    public ResponseEntity<GradingScheme> getScheme(@PathVariable Long id) {
+        return gradingPolicyService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** Creates the scheme, or replaces the one already set for the same subject, department or globally. */
+    @PostMapping("/schemes")
+    public ResponseEntity<Map<String, Object>> createScheme(@RequestBody GradingScheme scheme) {
+        scheme.setId(null);
+        return save(scheme);
+    }
+
+    @PutMapping("/schemes/{id}")
+    public ResponseEntity<Map<String, Object>> updateScheme(@PathVariable Long id,
+            @RequestBody GradingScheme scheme) {
+        if (gradingPolicyService.findById(id).isEmpty())
+            return ResponseEntity.notFound().build();
+        scheme.setId(id);
+        return save(scheme);
+    }
+
+    @DeleteMapping("/schemes/{id}")
+    public ResponseEntity<Map<String, Object>> deleteScheme(@PathVariable Long id) {
+        return gradingPolicyService.delete(id)
+                .map(body -> ResponseEntity.status(HttpStatus.ACCEPTED).body(body))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** The scheme currently grading the subject's marks. */
+    @GetMapping("/subjects/{subjectId}")
+    public Map<String, Object> getSubjectScheme(@PathVariable Long subjectId) {
+        return gradingPolicyService.forSubject(subjectId).describe();
+    }
+
+    @GetMapping("/regrade-jobs/{id}")
+    public ResponseEntity<RegradeJob> getRegradeJob(@PathVariable String id) {
+        RegradeJob job = regradeService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    // Marks already graded keep their old grade until the returned regrade job reaches them
+    private ResponseEntity<Map<String, Object>> save(GradingScheme scheme) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(gradingPolicyService.save(scheme));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "Another scheme already applies to that subject or department"));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.model.ImportJob;
+import com.schooltracker.service.ImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin(origins = "*", exposedHeaders = ListResponses.NEXT_CURSOR)
+public class ImportController {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ListResponses listResponses;
+
+    /** Creates an import job, or returns the existing one for the same target and content hash. */
+    @PostMapping
+    public ResponseEntity<?> createJob(@RequestParam String kind,
+            @RequestParam(required = false) Long subjectId,
+            @RequestParam(required = false) Long assessmentId,
+            @RequestParam(required = false) String fileName,
+            @RequestParam long totalBytes,
+            @RequestParam String sha256) {
+        try {
+            return ResponseEntity.ok(importService.create(kind, subjectId, assessmentId, fileName, totalBytes,
+                    sha256));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(error(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJob> getJob(@PathVariable Long id) {
+        ImportJob job = importService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /** Raw bytes of the file starting at {@code offset}; resume from the job's receivedBytes. */
+    @PutMapping("/{id}/chunks")
+    public ResponseEntity<?> uploadChunk(@PathVariable Long id, @RequestParam long offset,
+            HttpServletRequest request) throws IOException {
+        try {
+            ImportJob job = importService.appendChunk(id, offset, request.getInputStream());
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error(e.getMessage(), importService.getJob(id)));
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable Long id) throws IOException {
+        try {
+            ImportJob job = importService.complete(id);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error(e.getMessage(), importService.getJob(id)));
+        }
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resume(@PathVariable Long id) {
+        try {
+            ImportJob job = importService.resume(id);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error(e.getMessage(), importService.getJob(id)));
+        }
+    }
+
+    @GetMapping("/{id}/errors")
+    public ResponseEntity<List<Map<String, Object>>> getErrors(@PathVariable Long id,
+            @RequestParam(required = false) Long after, @RequestParam(defaultValue = "100") Integer limit) {
+        if (importService.getJob(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        int pageSize = listResponses.pageable(limit).getPageSize();
+        return listResponses.page(importService.getErrors(id, after, pageSize), limit,
+                row -> (Long) row.get("id"));
+    }
+
+    private Map<String, Object> error(String message, ImportJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        if (job != null) {
+            response.put("job", job);
+        }
+        return response;
+    }
+}
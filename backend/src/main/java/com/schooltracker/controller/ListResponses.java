@@ -0,0 +1,103 @@
+package com.schooltracker.controller;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.schooltracker.dto.Cursor;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Shared plumbing for list endpoints.
+ *
+ * Keyset pages: pass {@code ?limit=N} (and {@code &after=<cursor>} for the
+ * next page). Rows are ordered by the list's sort key (name or date) and then
+ * id, and a full page carries the Cursor to continue from in the
+ * X-Next-Cursor header; queries seek with (key, id) > (cursor key, cursor id).
+ * Lists ordered by a unique column alone use that value as the cursor.
+ * Without {@code limit} the whole list is returned, as before.
+ *
+ * NDJSON: {@code ?format=ndjson} writes one JSON object per line straight from
+ * a repository Stream, without building the list in memory.
+ */
+@Component
+public class ListResponses {
+
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    public static final String NDJSON = "application/x-ndjson";
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public Pageable pageable(Integer limit) {
+        if (limit == null)
+            return Pageable.unpaged();
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /** A page of a list ordered by a unique column (id or rank) alone. */
+    public <T> ResponseEntity<List<T>> page(List<T> rows, Integer limit, Function<T, Long> idOf) {
+        return page(rows, limit, idOf, row -> null);
+    }
+
+    /** A page of a list ordered by (key, id). */
+    public <T> ResponseEntity<List<T>> page(List<T> rows, Integer limit, Function<T, Long> idOf,
+            Function<T, ?> keyOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (limit != null && !rows.isEmpty() && rows.size() == pageable(limit).getPageSize()) {
+            T last = rows.get(rows.size() - 1);
+            response.header(NEXT_CURSOR, Cursor.encode(idOf.apply(last), keyOf.apply(last)));
+        }
+        return response.body(rows);
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<T>> query) {
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writer();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    rows.forEach(row -> {
+                        try {
+                            out.write(writer.writeValueAsBytes(row));
+                            out.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        // Keep the persistence context from growing with the stream
+                        if (row.getClass().isAnnotationPresent(Entity.class))
+                            entityManager.detach(row);
+                    });
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+}
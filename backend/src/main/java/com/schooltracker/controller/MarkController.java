@@ -1,19 +1,21 @@
 package com.schooltracker.controller;
 
+import com.schooltracker.dto.Cursor;
+import com.schooltracker.dto.MarkView;
 import com.schooltracker.model.Mark;
-import com.schooltracker.model.User;
-import com.schooltracker.repository.UserRepository;
+import com.schooltracker.service.BulkUploadResult;
 import com.schooltracker.service.MarkService;
+import com.schooltracker.service.MarkTrendIndex;
+import com.schooltracker.service.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -21,14 +23,20 @@ import java.util.List;
 
 @RestController
 @RequestMapping("/api/marks")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = ListResponses.NEXT_CURSOR)
 public class MarkController {
 
     @Autowired
     private MarkService markService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private MarkTrendIndex trendIndex;
+
+    @Autowired
+    private ListResponses listResponses;
 
     @PostMapping
     public Mark enterMark(@RequestBody Mark mark) {
@@ -36,19 +44,40 @@ public class MarkController {
     }
 
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<List<Mark>> getMarksByStudent(@PathVariable Long studentId) {
-        User student = userRepository.findById(studentId).orElse(null);
-        if (student == null)
+    public ResponseEntity<List<MarkView>> getMarksByStudent(@PathVariable Long studentId,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        if (referenceDataCache.findUser(studentId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return listResponses.page(markService.getMarksByStudent(studentId, after, listResponses.pageable(limit)),
+                limit, MarkView::id, view -> view.assessment().date());
+    }
+
+    @GetMapping(value = "/student/{studentId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamMarksByStudent(@PathVariable Long studentId) {
+        if (referenceDataCache.findUser(studentId).isEmpty())
             return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(markService.getMarksByStudent(student));
+        return listResponses.ndjson(() -> markService.streamMarksByStudent(studentId));
     }
 
     @GetMapping("/faculty/{facultyId}")
-    public ResponseEntity<List<Mark>> getMarksByFaculty(@PathVariable Long facultyId) {
-        User faculty = userRepository.findById(facultyId).orElse(null);
-        if (faculty == null)
+    public ResponseEntity<List<MarkView>> getMarksByFaculty(@PathVariable Long facultyId,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return listResponses.page(markService.getMarksByFaculty(facultyId, after, listResponses.pageable(limit)),
+                limit, MarkView::id, view -> view.assessment().date());
+    }
+
+    @GetMapping(value = "/faculty/{facultyId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamMarksByFaculty(@PathVariable Long facultyId) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
             return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(markService.getMarksByFaculty(faculty));
+        return listResponses.ndjson(() -> markService.streamMarksByFaculty(facultyId));
+    }
+
+    @PostMapping("/trend-index/rebuild")
+    public Map<String, Object> rebuildTrendIndex() {
+        return trendIndex.rebuild();
     }
 
     @PostMapping("/bulk-upload")
@@ -56,53 +85,14 @@ public class MarkController {
             @RequestParam("assessmentId") Long assessmentId,
             @RequestParam("subjectId") Long subjectId) {
         Map<String, Object> response = new HashMap<>();
-        int successCount = 0;
-        int failureCount = 0;
-        List<String> errors = new ArrayList<>();
 
         try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(file.getInputStream(), "UTF-8"));
                 CSVParser csvParser = new CSVParser(fileReader,
                         CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
 
-            Iterable<CSVRecord> csvRecords = csvParser.getRecords();
-
-            for (CSVRecord csvRecord : csvRecords) {
-                try {
-                    String username = csvRecord.get("username");
-                    Double obtainedMarks = Double.parseDouble(csvRecord.get("obtainedMarks"));
-
-                    User student = userRepository.findByUsername(username).orElse(null);
-                    if (student == null) {
-                        errors.add("Student not found for username: " + username);
-                        failureCount++;
-                        continue;
-                    }
-
-                    Mark mark = new Mark();
-                    mark.setObtainedMarks(obtainedMarks);
-                    mark.setStudent(student);
-
-                    com.schooltracker.model.Subject subject = new com.schooltracker.model.Subject();
-                    subject.setId(subjectId);
-                    mark.setSubject(subject);
-
-                    com.schooltracker.model.Assessment assessment = new com.schooltracker.model.Assessment();
-                    assessment.setId(assessmentId);
-                    mark.setAssessment(assessment);
-
-                    markService.saveMark(mark);
-                    successCount++;
-                } catch (Exception e) {
-                    errors.add("Error processing row " + csvRecord.getRecordNumber() + ": " + e.getMessage());
-                    failureCount++;
-                }
-            }
-
-            response.put("success", true);
-            response.put("successCount", successCount);
-            response.put("failureCount", failureCount);
-            response.put("errors", errors);
-            return ResponseEntity.ok(response);
+            // The parser is consumed lazily so the sheet is never held in memory as a whole
+            BulkUploadResult result = markService.saveMarksBulk(csvParser, assessmentId, subjectId);
+            return ResponseEntity.ok(result.toResponse());
 
         } catch (Exception e) {
             response.put("success", false);
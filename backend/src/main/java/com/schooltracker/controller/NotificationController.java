@@ -0,0 +1,21 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.service.NotificationDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@CrossOrigin(origins = "*")
+public class NotificationController {
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return notificationDispatcher.getStats();
+    }
+}
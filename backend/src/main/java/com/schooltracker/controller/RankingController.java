@@ -0,0 +1,107 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.model.User;
+import com.schooltracker.service.RankingIndex;
+import com.schooltracker.service.ReferenceDataCache;
+import com.schooltracker.service.ScoreCohort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rank-in-class and percentile per assessment and per subject (cumulative
+ * score), served from the in-memory RankingIndex.
+ */
+@RestController
+@RequestMapping("/api/rankings")
+@CrossOrigin(origins = "*")
+public class RankingController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @GetMapping("/assessment/{assessmentId}/student/{studentId}")
+    public ResponseEntity<Map<String, Object>> getAssessmentRank(@PathVariable Long assessmentId,
+            @PathVariable Long studentId) {
+        return standing(rankingIndex.assessment(assessmentId), studentId);
+    }
+
+    @GetMapping("/subject/{subjectId}/student/{studentId}")
+    public ResponseEntity<Map<String, Object>> getSubjectRank(@PathVariable Long subjectId,
+            @PathVariable Long studentId) {
+        return standing(rankingIndex.subject(subjectId), studentId);
+    }
+
+    @GetMapping("/assessment/{assessmentId}/top")
+    public List<Map<String, Object>> getAssessmentTop(@PathVariable Long assessmentId,
+            @RequestParam(defaultValue = "10") int limit) {
+        ScoreCohort cohort = rankingIndex.assessment(assessmentId);
+        return cohort == null ? List.of() : entries(cohort.top(clamp(limit)));
+    }
+
+    @GetMapping("/assessment/{assessmentId}/bottom")
+    public List<Map<String, Object>> getAssessmentBottom(@PathVariable Long assessmentId,
+            @RequestParam(defaultValue = "10") int limit) {
+        ScoreCohort cohort = rankingIndex.assessment(assessmentId);
+        return cohort == null ? List.of() : entries(cohort.bottom(clamp(limit)));
+    }
+
+    @GetMapping("/subject/{subjectId}/top")
+    public List<Map<String, Object>> getSubjectTop(@PathVariable Long subjectId,
+            @RequestParam(defaultValue = "10") int limit) {
+        ScoreCohort cohort = rankingIndex.subject(subjectId);
+        return cohort == null ? List.of() : entries(cohort.top(clamp(limit)));
+    }
+
+    @GetMapping("/subject/{subjectId}/bottom")
+    public List<Map<String, Object>> getSubjectBottom(@PathVariable Long subjectId,
+            @RequestParam(defaultValue = "10") int limit) {
+        ScoreCohort cohort = rankingIndex.subject(subjectId);
+        return cohort == null ? List.of() : entries(cohort.bottom(clamp(limit)));
+    }
+
+    @PostMapping("/rebuild")
+    public Map<String, Object> rebuild() {
+        return rankingIndex.rebuild();
+    }
+
+    private ResponseEntity<Map<String, Object>> standing(ScoreCohort cohort, Long studentId) {
+        if (cohort == null || cohort.score(studentId) == null)
+            return ResponseEntity.notFound().build();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("studentId", studentId);
+        response.put("score", cohort.score(studentId));
+        response.put("rank", cohort.rank(studentId));
+        response.put("percentile", cohort.percentile(studentId));
+        response.put("cohortSize", cohort.size());
+        return ResponseEntity.ok(response);
+    }
+
+    private List<Map<String, Object>> entries(List<ScoreCohort.Entry> entries) {
+        List<Map<String, Object>> rows = new ArrayList<>(entries.size());
+        for (ScoreCohort.Entry entry : entries) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("studentId", entry.studentId());
+            row.put("name", referenceDataCache.findUser(entry.studentId()).map(User::getName).orElse(null));
+            row.put("score", entry.score());
+            row.put("rank", entry.rank());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
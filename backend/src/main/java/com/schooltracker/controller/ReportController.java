@@ -0,0 +1,57 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.service.ReportCardService;
+import com.schooltracker.service.ReportJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.CONTENT_DISPOSITION)
+public class ReportController {
+
+    @Autowired
+    private ReportCardService reportCardService;
+
+    @PostMapping("/report-cards")
+    public ResponseEntity<ReportJob> startReportCards(@RequestParam String year,
+            @RequestParam String semester,
+            @RequestParam(required = false) String department,
+            @RequestParam(defaultValue = ReportCardService.PDF) String format) {
+        ReportJob job = reportCardService.start(year, semester, department, format);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReportJob> getJob(@PathVariable String id) {
+        ReportJob job = reportCardService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<Resource> download(@PathVariable String id) {
+        ReportJob job = reportCardService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!ReportJob.DONE.equals(job.getStatus())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        MediaType type = ReportCardService.CSV.equals(job.getFormat())
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/zip");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+                .contentType(type)
+                .body(new FileSystemResource(job.getFile()));
+    }
+}
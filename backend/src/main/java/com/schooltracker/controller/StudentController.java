@@ -0,0 +1,101 @@
+package com.schooltracker.controller;
+
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import com.schooltracker.service.MarkTrendIndex;
+import com.schooltracker.service.ReferenceDataCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A student's recent results and multi-step trend per subject, served from
+ * the rolling windows of the in-memory MarkTrendIndex.
+ */
+@RestController
+@RequestMapping("/api/students")
+@CrossOrigin(origins = "*")
+public class StudentController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private record Recent(MarkTrendIndex.Point point, Map<String, Object> row) {
+    }
+
+    @Autowired
+    private MarkTrendIndex trendIndex;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    /**
+     * Per subject, the last marks (oldest first) with their moving average,
+     * min/max, standard deviation and slope, plus the {@code limit} most
+     * recent marks across all subjects.
+     */
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<Map<String, Object>> getTimeline(@PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        Optional<User> student = referenceDataCache.findUser(id);
+        if (student.isEmpty())
+            return ResponseEntity.notFound().build();
+
+        List<Map<String, Object>> subjects = new ArrayList<>();
+        List<Recent> recent = new ArrayList<>();
+        trendIndex.timeline(id).forEach((subjectId, slot) -> {
+            Optional<Subject> subject = referenceDataCache.findSubject(subjectId);
+            List<Map<String, Object>> points = new ArrayList<>(slot.points().size());
+            for (MarkTrendIndex.Point point : slot.points()) {
+                Map<String, Object> row = point(point);
+                points.add(row);
+
+                Map<String, Object> entry = new LinkedHashMap<>(row);
+                entry.put("subjectId", subjectId);
+                entry.put("subjectName", subject.map(Subject::getName).orElse(null));
+                recent.add(new Recent(point, entry));
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("subjectId", subjectId);
+            row.put("name", subject.map(Subject::getName).orElse(null));
+            row.put("code", subject.map(Subject::getCode).orElse(null));
+            row.put("stats", slot.stats());
+            row.put("points", points);
+            subjects.add(row);
+        });
+        subjects.sort(Comparator.comparing(row -> (Long) row.get("subjectId")));
+
+        // Newest first, by the same order the index keeps: date, then assessment id
+        recent.sort(Comparator.comparing(Recent::point, MarkTrendIndex.Point.ORDER).reversed());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("studentId", id);
+        response.put("name", student.get().getName());
+        response.put("subjects", subjects);
+        response.put("recent", recent.stream().limit(clamp(limit)).map(Recent::row).toList());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> point(MarkTrendIndex.Point point) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("markId", point.markId());
+        row.put("assessmentId", point.assessmentId());
+        row.put("assessmentName", referenceDataCache.findAssessment(point.assessmentId())
+                .map(Assessment::getName).orElse(null));
+        row.put("date", point.date());
+        row.put("percentage", Math.round(point.percentage() * 100) / 100.0);
+        return row;
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
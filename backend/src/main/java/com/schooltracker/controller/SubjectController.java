@@ -1,19 +1,23 @@
 package com.schooltracker.controller;
 
+import com.schooltracker.dto.Cursor;
+import com.schooltracker.dto.SubjectView;
 import com.schooltracker.model.Subject;
 import com.schooltracker.model.User;
 import com.schooltracker.repository.SubjectRepository;
 import com.schooltracker.repository.UserRepository;
+import com.schooltracker.service.EnrollmentService;
+import com.schooltracker.service.GradingPolicyService;
+import com.schooltracker.service.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Optional;
@@ -22,7 +26,7 @@ import java.util.List;
 
 @RestController
 @RequestMapping("/api/subjects")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = ListResponses.NEXT_CURSOR)
 public class SubjectController {
 
     @Autowired
@@ -31,14 +35,34 @@ public class SubjectController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private GradingPolicyService gradingPolicyService;
+
+    @Autowired
+    private ListResponses listResponses;
+
     @GetMapping
-    public List<Subject> getAllSubjects() {
-        return subjectRepository.findAll();
+    public ResponseEntity<List<SubjectView>> getAllSubjects(@RequestParam(required = false) Cursor after,
+            @RequestParam(required = false) Integer limit) {
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(subjectRepository.findAllViews(from.id(), from.key(), listResponses.pageable(limit)),
+                limit, SubjectView::id, SubjectView::name);
+    }
+
+    @GetMapping(params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllSubjects() {
+        return listResponses.ndjson(subjectRepository::streamAllViews);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Subject> getSubjectById(@PathVariable Long id) {
-        return subjectRepository.findById(id)
+        return referenceDataCache.findSubject(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -60,7 +84,11 @@ public class SubjectController {
         subject.setSemester(subjectDetails.getSemester());
         subject.setFaculty(subjectDetails.getFaculty());
 
-        return ResponseEntity.ok(subjectRepository.save(subject));
+        Subject updatedSubject = subjectRepository.save(subject);
+        referenceDataCache.evictSubject(id);
+        // The faculty may have changed, and with it the department scheme
+        gradingPolicyService.evictSubject(id);
+        return ResponseEntity.ok(updatedSubject);
     }
 
     @DeleteMapping("/{id}")
@@ -70,72 +98,92 @@ public class SubjectController {
             return ResponseEntity.notFound().build();
 
         subjectRepository.delete(subject);
+        referenceDataCache.evictSubject(id);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/faculty/{facultyId}")
-    public ResponseEntity<List<Subject>> getSubjectsByFaculty(@PathVariable Long facultyId) {
-        User faculty = userRepository.findById(facultyId).orElse(null);
-        if (faculty == null)
+    public ResponseEntity<List<SubjectView>> getSubjectsByFaculty(@PathVariable Long facultyId,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
             return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(subjectRepository.findByFaculty(faculty));
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(
+                subjectRepository.findViewsByFacultyId(facultyId, from.id(), from.key(), listResponses.pageable(limit)),
+                limit, SubjectView::id, SubjectView::name);
+    }
+
+    @GetMapping(value = "/faculty/{facultyId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamSubjectsByFaculty(@PathVariable Long facultyId) {
+        if (referenceDataCache.findUser(facultyId).isEmpty())
+            return ResponseEntity.notFound().build();
+        return listResponses.ndjson(() -> subjectRepository.streamViewsByFacultyId(facultyId));
     }
 
     @PostMapping("/{id}/students/{studentId}")
     public ResponseEntity<Subject> enrollStudent(@PathVariable Long id, @PathVariable Long studentId) {
-        Subject subject = subjectRepository.findById(id).orElse(null);
-        User student = userRepository.findById(studentId).orElse(null);
-
-        if (subject == null || student == null) {
+        Optional<Subject> subject = referenceDataCache.findSubject(id);
+        if (subject.isEmpty() || referenceDataCache.findUser(studentId).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        subject.getStudents().add(student);
-        return ResponseEntity.ok(subjectRepository.save(subject));
+        enrollmentService.enroll(id, studentId);
+        return ResponseEntity.ok(subject.get());
     }
 
     @DeleteMapping("/{id}/students/{studentId}")
     public ResponseEntity<Subject> unenrollStudent(@PathVariable Long id, @PathVariable Long studentId) {
-        Subject subject = subjectRepository.findById(id).orElse(null);
-        User student = userRepository.findById(studentId).orElse(null);
-
-        if (subject == null || student == null) {
+        Optional<Subject> subject = referenceDataCache.findSubject(id);
+        if (subject.isEmpty() || referenceDataCache.findUser(studentId).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        subject.getStudents().remove(student);
-        return ResponseEntity.ok(subjectRepository.save(subject));
+        enrollmentService.unenroll(id, studentId);
+        return ResponseEntity.ok(subject.get());
     }
 
     @GetMapping("/{id}/students")
-    public ResponseEntity<java.util.Set<User>> getSubjectStudents(@PathVariable Long id) {
-        Subject subject = subjectRepository.findById(id).orElse(null);
-        if (subject == null) {
+    public ResponseEntity<List<User>> getSubjectStudents(@PathVariable Long id,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        if (referenceDataCache.findSubject(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(
+                userRepository.findStudentsBySubjectId(id, from.id(), from.key(), listResponses.pageable(limit)),
+                limit, User::getId, User::getName);
+    }
+
+    @GetMapping(value = "/{id}/students", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamSubjectStudents(@PathVariable Long id) {
+        if (referenceDataCache.findSubject(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(subject.getStudents());
+        return listResponses.ndjson(() -> userRepository.streamStudentsBySubjectId(id));
     }
 
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<List<Subject>> getSubjectsByStudent(@PathVariable Long studentId) {
-        User student = userRepository.findById(studentId).orElse(null);
-        if (student == null)
+    public ResponseEntity<List<SubjectView>> getSubjectsByStudent(@PathVariable Long studentId,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        if (referenceDataCache.findUser(studentId).isEmpty())
+            return ResponseEntity.notFound().build();
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(
+                subjectRepository.findViewsByStudentId(studentId, from.id(), from.key(), listResponses.pageable(limit)),
+                limit, SubjectView::id, SubjectView::name);
+    }
+
+    @GetMapping(value = "/student/{studentId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamSubjectsByStudent(@PathVariable Long studentId) {
+        if (referenceDataCache.findUser(studentId).isEmpty())
             return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(subjectRepository.findByStudentsContains(student));
+        return listResponses.ndjson(() -> subjectRepository.streamViewsByStudentId(studentId));
     }
 
     @PostMapping("/{id}/enroll-bulk")
     public ResponseEntity<Map<String, Object>> enrollBulk(@PathVariable Long id,
             @RequestParam("file") MultipartFile file) {
-        Map<String, Object> response = new HashMap<>();
-        int successCount = 0;
-        int failureCount = 0;
-        List<String> errors = new ArrayList<>();
-
-        Subject subject = subjectRepository.findById(id).orElse(null);
-        if (subject == null) {
-            response.put("success", false);
-            response.put("message", "Subject not found");
+        if (referenceDataCache.findSubject(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
@@ -143,41 +191,10 @@ public class SubjectController {
                 CSVParser csvParser = new CSVParser(fileReader,
                         CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
 
-            Iterable<CSVRecord> csvRecords = csvParser.getRecords();
-
-            for (CSVRecord csvRecord : csvRecords) {
-                try {
-                    String username = csvRecord.get("username");
-                    Optional<User> studentOpt = userRepository.findByUsername(username);
-
-                    if (studentOpt.isPresent()) {
-                        User student = studentOpt.get();
-                        if ("Student".equalsIgnoreCase(student.getRole())) {
-                            subject.getStudents().add(student);
-                            successCount++;
-                        } else {
-                            errors.add("User " + username + " is not a student");
-                            failureCount++;
-                        }
-                    } else {
-                        errors.add("Student not found: " + username);
-                        failureCount++;
-                    }
-                } catch (Exception e) {
-                    errors.add("Error processing row " + csvRecord.getRecordNumber() + ": " + e.getMessage());
-                    failureCount++;
-                }
-            }
-
-            subjectRepository.save(subject);
-
-            response.put("success", true);
-            response.put("successCount", successCount);
-            response.put("failureCount", failureCount);
-            response.put("errors", errors);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(enrollmentService.enrollBulk(id, csvParser).toResponse());
 
         } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "Failed to parse CSV file: " + e.getMessage());
             return ResponseEntity.badRequest().body(response);
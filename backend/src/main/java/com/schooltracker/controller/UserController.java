@@ -1,53 +1,99 @@
 package com.schooltracker.controller;
 
+import com.schooltracker.dto.Cursor;
 import com.schooltracker.model.User;
 import com.schooltracker.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/users")
-@CrossOrigin(origins = "*") // Adjust port if Vite is running elsewhere
+@CrossOrigin(origins = "*", exposedHeaders = ListResponses.NEXT_CURSOR) // Adjust port if Vite is running elsewhere
 public class UserController {
 
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private com.schooltracker.repository.SubjectRepository subjectRepository;
+    private com.schooltracker.service.ReferenceDataCache referenceDataCache;
 
     @Autowired
-    private com.schooltracker.repository.MarkRepository markRepository;
+    private com.schooltracker.service.UserImportService userImportService;
+
+    @Autowired
+    private com.schooltracker.service.UserDeletionService userDeletionService;
+
+    @Autowired
+    private com.schooltracker.service.GradingPolicyService gradingPolicyService;
+
+    @Autowired
+    private com.schooltracker.service.PasswordHasher passwordHasher;
+
+    // Spring Boot's application executor (virtual threads in virtual mode), also behind async MVC requests
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor applicationTaskExecutor;
+
+    @Autowired
+    private ListResponses listResponses;
 
     @GetMapping
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) Cursor after,
+            @RequestParam(required = false) Integer limit) {
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(userRepository.findPage(from.id(), from.key(), listResponses.pageable(limit)), limit,
+                User::getId, User::getName);
+    }
+
+    @GetMapping(params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        return listResponses.ndjson(userRepository::streamAll);
     }
 
     @GetMapping("/role/{role}")
-    public List<User> getUsersByRole(@PathVariable String role) {
-        return userRepository.findByRole(role);
+    public ResponseEntity<List<User>> getUsersByRole(@PathVariable String role,
+            @RequestParam(required = false) Cursor after, @RequestParam(required = false) Integer limit) {
+        Cursor from = Cursor.orStart(after);
+        return listResponses.page(
+                userRepository.findPageByRole(role, from.id(), from.key(), listResponses.pageable(limit)), limit,
+                User::getId, User::getName);
     }
 
+    @GetMapping(value = "/role/{role}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamUsersByRole(@PathVariable String role) {
+        return listResponses.ndjson(() -> userRepository.streamByRole(role));
+    }
+
+    /** The password is hashed on the hashing pool, like logins; 503 when its queue is full. */
     @PostMapping
-    public User createUser(@RequestBody User user) {
-        return userRepository.save(user);
+    public CompletableFuture<ResponseEntity<?>> createUser(@RequestBody User user) {
+        return withHashedPassword(user.getPassword(), hash -> {
+            user.setPassword(hash);
+            return ResponseEntity.ok(userRepository.save(user));
+        });
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        User user = userRepository.findById(id)
+        User user = referenceDataCache.findUser(id)
                 .orElse(null);
         if (user == null) {
             return ResponseEntity.notFound().build();
@@ -56,11 +102,11 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
+    public CompletableFuture<ResponseEntity<?>> updateUser(@PathVariable Long id, @RequestBody User userDetails) {
         User user = userRepository.findById(id)
                 .orElse(null);
         if (user == null) {
-            return ResponseEntity.notFound().build();
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
         }
 
         user.setName(userDetails.getName());
@@ -71,84 +117,76 @@ public class UserController {
         user.setParentsEmail(userDetails.getParentsEmail());
         user.setParentsMobile(userDetails.getParentsMobile());
 
-        if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
-            user.setPassword(userDetails.getPassword());
-        }
+        String password = userDetails.getPassword();
+        boolean passwordChanged = password != null && !password.isEmpty();
+        return withHashedPassword(passwordChanged ? password : null, hash -> {
+            if (passwordChanged)
+                user.setPassword(hash);
+            User updatedUser = userRepository.save(user);
+            referenceDataCache.evictUser(id);
+            gradingPolicyService.evictResolved();
+            return ResponseEntity.ok(updatedUser);
+        });
+    }
 
-        User updatedUser = userRepository.save(user);
-        return ResponseEntity.ok(updatedUser);
+    // Runs the write once the password (if any) is hashed off the request thread. The write moves to the
+    // application executor, so database round-trips never hold the bounded hashing pool logins wait on.
+    private CompletableFuture<ResponseEntity<?>> withHashedPassword(String password,
+            Function<String, ResponseEntity<?>> write) {
+        if (password == null)
+            return CompletableFuture.completedFuture(write.apply(null));
+        try {
+            return passwordHasher.hashAsync(password).thenApplyAsync(write, applicationTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many password changes in progress. Try again shortly."));
+        }
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        User user = userRepository.findById(id)
-                .orElse(null);
-        if (user == null) {
+    public ResponseEntity<Map<String, Object>> deleteUser(@PathVariable Long id) {
+        if (!userRepository.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(userDeletionService.deleteUsers(List.of(id)));
+    }
 
-        // 1. Unassign as Faculty from Subjects
-        List<com.schooltracker.model.Subject> facultySubjects = subjectRepository.findByFaculty(user);
-        for (com.schooltracker.model.Subject sub : facultySubjects) {
-            sub.setFaculty(null);
-            subjectRepository.save(sub);
+    /**
+     * Bulk delete: {@code ?ids=1,2,3} or {@code ?year=2024} for the students
+     * whose last enrolled year is the given one.
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> deleteUsers(@RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) String year) {
+        if (ids != null && !ids.isEmpty()) {
+            return ResponseEntity.ok(userDeletionService.deleteUsers(ids));
         }
-
-        // 2. Remove as Student from Subjects
-        List<com.schooltracker.model.Subject> studentSubjects = subjectRepository.findByStudentsContains(user);
-        for (com.schooltracker.model.Subject sub : studentSubjects) {
-            sub.getStudents().remove(user);
-            subjectRepository.save(sub);
+        Map<String, Object> response = new HashMap<>();
+        if (year != null && !year.isBlank()) {
+            try {
+                return ResponseEntity.ok(userDeletionService.deleteGraduatingStudents(year));
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
         }
-
-        // 3. Delete Marks
-        List<com.schooltracker.model.Mark> studentMarks = markRepository.findByStudent(user);
-        markRepository.deleteAll(studentMarks);
-
-        userRepository.delete(user);
-        return ResponseEntity.noContent().build();
+        response.put("success", false);
+        response.put("message", "Either ids or year is required");
+        return ResponseEntity.badRequest().body(response);
     }
 
     @PostMapping("/bulk-upload")
     public ResponseEntity<Map<String, Object>> bulkUpload(@RequestParam("file") MultipartFile file) {
-        Map<String, Object> response = new HashMap<>();
-        int successCount = 0;
-        int failureCount = 0;
-        List<String> errors = new ArrayList<>();
-
         try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(file.getInputStream(), "UTF-8"));
                 CSVParser csvParser = new CSVParser(fileReader,
                         CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
 
-            Iterable<CSVRecord> csvRecords = csvParser.getRecords();
-
-            for (CSVRecord csvRecord : csvRecords) {
-                try {
-                    User user = new User();
-                    user.setName(csvRecord.get("name"));
-                    user.setRole(csvRecord.get("role"));
-                    user.setDepartment(csvRecord.get("department"));
-                    user.setEmail(csvRecord.get("email"));
-                    user.setParentsEmail(csvRecord.get("parentsEmail"));
-                    user.setParentsMobile(csvRecord.get("parentsMobile"));
-                    user.setUsername(csvRecord.get("username"));
-                    user.setPassword(csvRecord.get("password"));
-
-                    userRepository.save(user);
-                    successCount++;
-                } catch (Exception e) {
-                    errors.add("Error processing row " + csvRecord.getRecordNumber() + ": " + e.getMessage());
-                    failureCount++;
-                }
-            }
-
-            response.put("success", true);
-            response.put("successCount", successCount);
-            response.put("failureCount", failureCount);
-            response.put("errors", errors);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(userImportService.importUsers(csvParser).toResponse());
 
         } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "Failed to parse CSV file: " + e.getMessage());
             return ResponseEntity.badRequest().body(response);
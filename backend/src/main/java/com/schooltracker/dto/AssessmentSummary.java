@@ -0,0 +1,9 @@
+package com.schooltracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Reference to an assessment inside a mark row.
+ */
+public record AssessmentSummary(Long id, String name, String type, Double totalMarks, LocalDate date) {
+}
@@ -0,0 +1,19 @@
+package com.schooltracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Read model for assessment lists, with subject and faculty reduced to
+ * references.
+ */
+public record AssessmentView(Long id, String name, String type, Double totalMarks, LocalDate date,
+        SubjectSummary subject, UserSummary faculty) {
+
+    // Flat constructor used by the JPQL constructor expressions in AssessmentRepository
+    public AssessmentView(Long id, String name, String type, Double totalMarks, LocalDate date,
+            Long subjectId, String subjectName, String subjectCode, Long facultyId, String facultyName) {
+        this(id, name, type, totalMarks, date,
+                SubjectSummary.of(subjectId, subjectName, subjectCode),
+                UserSummary.of(facultyId, facultyName));
+    }
+}
@@ -0,0 +1,8 @@
+package com.schooltracker.dto;
+
+/**
+ * A student flagged by the at-risk sweep, as stored in the at_risk table.
+ */
+public record AtRiskRow(Long studentId, int rank, double score, int failingSubjects, int decliningSubjects,
+        int missingAssessments, Double lowestAverage, Long lowestSubjectId) {
+}
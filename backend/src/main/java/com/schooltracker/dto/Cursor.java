@@ -0,0 +1,63 @@
+package com.schooltracker.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Where a keyset page resumes: the sort key and id of the last row of the
+ * previous page. Lists ordered by (key, id) seek past both, so rows sharing
+ * a key are neither skipped nor repeated. A null key sorts first, as it does
+ * in MySQL.
+ *
+ * Written as {@code <id>.<base64url key>}, or just {@code <id>} for a null
+ * key. Binds from the {@code after} request parameter through valueOf; a
+ * malformed cursor is a 400, and so is a key that does not parse as the
+ * list's key type (a tampered cursor, or one taken from another list).
+ */
+public record Cursor(Long id, String key) {
+
+    /** The first page. */
+    public static final Cursor START = new Cursor(null, null);
+
+    public static Cursor orStart(Cursor cursor) {
+        return cursor == null ? START : cursor;
+    }
+
+    public static Cursor valueOf(String value) {
+        int dot = value.indexOf('.');
+        if (dot < 0)
+            return new Cursor(Long.valueOf(value), null);
+        return new Cursor(Long.valueOf(value.substring(0, dot)),
+                new String(Base64.getUrlDecoder().decode(value.substring(dot + 1)), StandardCharsets.UTF_8));
+    }
+
+    public static String encode(Long id, Object key) {
+        if (key == null)
+            return String.valueOf(id);
+        return id + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The key of a date-ordered list (ISO format, as LocalDate.toString writes it). */
+    public LocalDate date() {
+        if (key == null)
+            return null;
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new MalformedCursorException("Cursor key is not a date: " + key);
+        }
+    }
+
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Malformed cursor")
+    public static class MalformedCursorException extends IllegalArgumentException {
+        public MalformedCursorException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.schooltracker.dto;
+
+public interface GradeCount {
+    String getGrade();
+
+    Long getMarkCount();
+}
@@ -0,0 +1,17 @@
+package com.schooltracker.dto;
+
+/**
+ * GradeCount computed in memory (MarkColumnStore).
+ */
+public record GradeCountRow(String grade, Long markCount) implements GradeCount {
+
+    @Override
+    public String getGrade() {
+        return grade;
+    }
+
+    @Override
+    public Long getMarkCount() {
+        return markCount;
+    }
+}
@@ -0,0 +1,8 @@
+package com.schooltracker.dto;
+
+/**
+ * One mark as loaded into the columnar analytics store.
+ */
+public record MarkColumnRow(Long markId, Long studentId, Long subjectId, Long assessmentId,
+        Double obtainedMarks, Double totalMarks, String grade) {
+}
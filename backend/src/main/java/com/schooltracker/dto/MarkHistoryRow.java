@@ -0,0 +1,23 @@
+package com.schooltracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Flat projection of a mark with just enough of its assessment to compute
+ * percentages and order the history (date, then assessment id).
+ */
+public interface MarkHistoryRow {
+    Long getMarkId();
+
+    Long getStudentId();
+
+    Long getSubjectId();
+
+    Long getAssessmentId();
+
+    LocalDate getAssessmentDate();
+
+    Double getObtainedMarks();
+
+    Double getTotalMarks();
+}
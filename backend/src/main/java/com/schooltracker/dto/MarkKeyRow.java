@@ -0,0 +1,8 @@
+package com.schooltracker.dto;
+
+/**
+ * The stored mark of a (student, assessment) row key, as read before an
+ * upsert to skip unchanged scores.
+ */
+public record MarkKeyRow(Long markId, Long studentId, Double obtainedMarks) {
+}
@@ -0,0 +1,23 @@
+package com.schooltracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Read model for mark lists. Same JSON shape as the Mark entity for the
+ * fields the dashboards read, without the full student, subject roster and
+ * assessment graph behind each row.
+ */
+public record MarkView(Long id, Double obtainedMarks, String grade, String status,
+        UserSummary student, SubjectSummary subject, AssessmentSummary assessment) {
+
+    // Flat constructor used by the JPQL constructor expressions in MarkRepository
+    public MarkView(Long id, Double obtainedMarks, String grade, String status,
+            Long studentId, String studentName,
+            Long subjectId, String subjectName, String subjectCode,
+            Long assessmentId, String assessmentName, String assessmentType, Double totalMarks, LocalDate date) {
+        this(id, obtainedMarks, grade, status,
+                UserSummary.of(studentId, studentName),
+                SubjectSummary.of(subjectId, subjectName, subjectCode),
+                new AssessmentSummary(assessmentId, assessmentName, assessmentType, totalMarks, date));
+    }
+}
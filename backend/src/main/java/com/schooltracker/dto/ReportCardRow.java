@@ -0,0 +1,11 @@
+package com.schooltracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One mark line of a report card, flattened for the report stream.
+ */
+public record ReportCardRow(Long studentId, String studentName, String username, String department,
+        String subjectCode, String subjectName, String assessmentName, LocalDate assessmentDate,
+        Double obtainedMarks, Double totalMarks, String grade, String status) {
+}
@@ -0,0 +1,11 @@
+package com.schooltracker.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One mark as read by the at-risk sweep, in (student, date, assessment) order
+ * within a subject.
+ */
+public record RiskMarkRow(Long studentId, LocalDate assessmentDate, Double obtainedMarks, Double totalMarks,
+        String status) {
+}
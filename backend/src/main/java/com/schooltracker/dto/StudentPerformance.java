@@ -0,0 +1,16 @@
+package com.schooltracker.dto;
+
+/**
+ * A student's cumulative score across the marks being aggregated.
+ */
+public interface StudentPerformance {
+    Long getStudentId();
+
+    String getName();
+
+    Double getObtained();
+
+    Double getMaxMarks();
+
+    Double getPercentage();
+}
@@ -0,0 +1,28 @@
+package com.schooltracker.dto;
+
+/**
+ * Per-subject aggregate of a faculty's marks.
+ */
+public interface SubjectPerformance {
+    Long getSubjectId();
+
+    String getName();
+
+    String getCode();
+
+    Double getTotalObtained();
+
+    Double getTotalMax();
+
+    Long getMarkCount();
+
+    Long getPassCount();
+
+    default Double getAveragePercentage() {
+        return getTotalMax() == null || getTotalMax() == 0 ? null : (getTotalObtained() / getTotalMax()) * 100;
+    }
+
+    default Double getPassRate() {
+        return getMarkCount() == 0 ? null : (getPassCount() * 100.0) / getMarkCount();
+    }
+}
@@ -0,0 +1,44 @@
+package com.schooltracker.dto;
+
+/**
+ * SubjectPerformance computed in memory (MarkColumnStore) rather than by a
+ * database projection.
+ */
+public record SubjectPerformanceRow(Long subjectId, String name, String code, Double totalObtained,
+        Double totalMax, Long markCount, Long passCount) implements SubjectPerformance {
+
+    @Override
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public Double getTotalObtained() {
+        return totalObtained;
+    }
+
+    @Override
+    public Double getTotalMax() {
+        return totalMax;
+    }
+
+    @Override
+    public Long getMarkCount() {
+        return markCount;
+    }
+
+    @Override
+    public Long getPassCount() {
+        return passCount;
+    }
+}
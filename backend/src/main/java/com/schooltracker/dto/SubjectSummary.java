@@ -0,0 +1,11 @@
+package com.schooltracker.dto;
+
+/**
+ * Reference to a subject inside a mark or assessment row.
+ */
+public record SubjectSummary(Long id, String name, String code) {
+
+    static SubjectSummary of(Long id, String name, String code) {
+        return id == null ? null : new SubjectSummary(id, name, code);
+    }
+}
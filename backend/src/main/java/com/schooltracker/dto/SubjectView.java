@@ -0,0 +1,14 @@
+package com.schooltracker.dto;
+
+/**
+ * Read model for subject lists: no enrollment roster, faculty reduced to id
+ * and name.
+ */
+public record SubjectView(Long id, String name, String code, String year, String semester, UserSummary faculty) {
+
+    // Flat constructor used by the JPQL constructor expressions in SubjectRepository
+    public SubjectView(Long id, String name, String code, String year, String semester,
+            Long facultyId, String facultyName) {
+        this(id, name, code, year, semester, UserSummary.of(facultyId, facultyName));
+    }
+}
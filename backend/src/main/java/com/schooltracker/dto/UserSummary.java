@@ -0,0 +1,11 @@
+package com.schooltracker.dto;
+
+/**
+ * Reference to a student or faculty member inside a list row.
+ */
+public record UserSummary(Long id, String name) {
+
+    static UserSummary of(Long id, String name) {
+        return id == null ? null : new UserSummary(id, name);
+    }
+}
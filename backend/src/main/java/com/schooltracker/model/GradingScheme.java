@@ -0,0 +1,52 @@
+package com.schooltracker.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Grade boundaries, GPA points and moderation for a subject, a department
+ * (of the subject's faculty) or every subject (neither set).
+ *
+ * A percentage is moderated as min(100, percentage * curveFactor +
+ * curveOffset) and takes the band with the highest min it reaches. Scores
+ * below every min take the lowest band.
+ */
+@Entity
+@Table(name = "grading_schemes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradingScheme {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+    @JsonIgnore
+    private String scope; // SUBJECT:<id>, DEPARTMENT:<name> or GLOBAL; unique
+    private String department;
+    private Long subjectId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<Band> bands;
+
+    private double curveFactor = 1.0;
+    private double curveOffset;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * One grade band. {@code fail} marks failing grades; when no band sets
+     * it, the lowest band is the failing one.
+     */
+    public record Band(String grade, double min, double points, Boolean fail) {
+    }
+}
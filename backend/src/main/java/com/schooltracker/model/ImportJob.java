@@ -0,0 +1,47 @@
+package com.schooltracker.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A chunked CSV upload and its background processing. rowsProcessed is the
+ * checkpoint: the last CSV record number whose chunk has been committed.
+ */
+@Entity
+@Table(name = "import_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String kind; // MARKS, USERS, ENROLLMENTS
+    @JsonIgnore
+    private String scope; // kind plus target ids, the idempotency key together with contentHash
+    private Long subjectId;
+    private Long assessmentId;
+    private String contentHash; // SHA-256 (hex) of the whole file
+    private String fileName;
+    private long totalBytes;
+    private long receivedBytes;
+
+    private String status; // UPLOADING, QUEUED, RUNNING, DONE, FAILED
+    private long rowsProcessed;
+    private long successCount;
+    private long failureCount;
+    private long skippedCount;
+
+    @Column(length = 500)
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
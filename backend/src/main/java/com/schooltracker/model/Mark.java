@@ -6,7 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "marks")
+@Table(name = "marks", uniqueConstraints = @UniqueConstraint(name = "uk_marks_student_assessment", columnNames = {
+        "student_id", "assessment_id" }))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,42 @@
+package com.schooltracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row for an email or SMS. Written in the same transaction as the
+ * mark that triggered it and drained by the NotificationDispatcher.
+ */
+@Entity
+@Table(name = "notifications")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Notification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String channel; // EMAIL, SMS
+    private String recipient;
+    private String subject; // Email subject line, null for SMS
+
+    @Column(length = 4000)
+    private String body;
+
+    @Column(length = 500)
+    private String digestLine; // Summary line in a digest, null to always send on its own
+
+    private String status; // PENDING, SENDING, SENT, FAILED
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+}
@@ -1,5 +1,6 @@
 package com.schooltracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -24,6 +25,7 @@ public class Subject {
     @JoinColumn(name = "faculty_id")
     private User faculty; // The teacher assigned to this subject
 
+    @JsonIgnore // Never serialize the roster with the subject; use /api/subjects/{id}/students
     @ManyToMany
     @JoinTable(name = "subject_students", joinColumns = @JoinColumn(name = "subject_id"), inverseJoinColumns = @JoinColumn(name = "student_id"))
     private java.util.Set<User> students = new java.util.HashSet<>();
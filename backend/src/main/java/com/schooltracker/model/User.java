@@ -1,5 +1,6 @@
 package com.schooltracker.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,6 +21,7 @@ public class User {
     private String department;
     private String email;
     private String username;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     private String parentsEmail; // Parent's email for student role
     private String parentsMobile; // Parent's mobile for SMS
@@ -1,16 +1,67 @@
 package com.schooltracker.repository;
 
+import com.schooltracker.dto.AssessmentView;
 import com.schooltracker.model.Assessment;
 import com.schooltracker.model.Subject;
 import com.schooltracker.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AssessmentRepository extends JpaRepository<Assessment, Long> {
     List<Assessment> findBySubject(Subject subject);
 
     List<Assessment> findByFaculty(User faculty);
+
+    @Query("SELECT a.id FROM Assessment a WHERE a.faculty.id IN :facultyIds")
+    List<Long> findIdsByFacultyIdIn(@Param("facultyIds") Collection<Long> facultyIds);
+
+    @Query("SELECT a.id FROM Assessment a WHERE a.subject.id = :subjectId")
+    List<Long> findIdsBySubjectId(@Param("subjectId") Long subjectId);
+
+    // Assessments already held (undated ones count as held)
+    @Query("SELECT COUNT(a) FROM Assessment a WHERE a.subject.id = :subjectId AND (a.date IS NULL OR a.date <= :today)")
+    long countHeldBySubjectId(@Param("subjectId") Long subjectId, @Param("today") LocalDate today);
+
+    String ASSESSMENT_VIEW = "SELECT new com.schooltracker.dto.AssessmentView(a.id, a.name, a.type, a.totalMarks, a.date, "
+            + "s.id, s.name, s.code, f.id, f.name) FROM Assessment a LEFT JOIN a.subject s LEFT JOIN a.faculty f ";
+
+    // Keyset pages in (date, id) order: (a.date, a.id) > (:afterKey, :afterId), undated first
+    String AFTER_DATE = "(:afterId IS NULL OR (:afterKey IS NULL AND (a.date IS NOT NULL OR a.id > :afterId)) "
+            + "OR a.date > :afterKey OR (a.date = :afterKey AND a.id > :afterId)) ";
+
+    @Query(ASSESSMENT_VIEW + "WHERE " + AFTER_DATE + "ORDER BY a.date, a.id")
+    List<AssessmentView> findAllViews(@Param("afterId") Long afterId, @Param("afterKey") LocalDate afterKey,
+            Pageable pageable);
+
+    @Query(ASSESSMENT_VIEW + "WHERE f.id = :facultyId AND " + AFTER_DATE + "ORDER BY a.date, a.id")
+    List<AssessmentView> findViewsByFacultyId(@Param("facultyId") Long facultyId, @Param("afterId") Long afterId,
+            @Param("afterKey") LocalDate afterKey, Pageable pageable);
+
+    @Query(ASSESSMENT_VIEW + "WHERE s.id = :subjectId AND " + AFTER_DATE + "ORDER BY a.date, a.id")
+    List<AssessmentView> findViewsBySubjectId(@Param("subjectId") Long subjectId, @Param("afterId") Long afterId,
+            @Param("afterKey") LocalDate afterKey, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(ASSESSMENT_VIEW + "ORDER BY a.id")
+    Stream<AssessmentView> streamAllViews();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(ASSESSMENT_VIEW + "WHERE f.id = :facultyId ORDER BY a.id")
+    Stream<AssessmentView> streamViewsByFacultyId(@Param("facultyId") Long facultyId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(ASSESSMENT_VIEW + "WHERE s.id = :subjectId ORDER BY a.id")
+    Stream<AssessmentView> streamViewsBySubjectId(@Param("subjectId") Long subjectId);
 }
@@ -0,0 +1,104 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.dto.AtRiskRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The at_risk result table: replaced wholesale by each sweep (call inside a
+ * transaction so readers see either the old or the new list) and read back
+ * with keyset pagination on the rank.
+ */
+@Repository
+public class AtRiskJdbcRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO at_risk (student_id, risk_rank, score, failing_subjects, "
+            + "declining_subjects, missing_assessments, lowest_average, lowest_subject_id, computed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SQL = "SELECT r.student_id, r.risk_rank, r.score, r.failing_subjects, "
+            + "r.declining_subjects, r.missing_assessments, r.lowest_average, r.lowest_subject_id, r.computed_at, "
+            + "u.name, u.username, u.department, s.name AS lowest_subject_name FROM at_risk r "
+            + "JOIN users u ON u.id = r.student_id LEFT JOIN subjects s ON s.id = r.lowest_subject_id ";
+
+    // Students enrolled in any subject the faculty teaches
+    private static final String FACULTY_FILTER = "AND EXISTS (SELECT 1 FROM subject_students ss "
+            + "JOIN subjects fs ON fs.id = ss.subject_id WHERE ss.student_id = r.student_id AND fs.faculty_id = ?) ";
+
+    private static final RowMapper<Map<String, Object>> ROW_MAPPER = (rs, rowNum) -> {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("rank", rs.getInt("risk_rank"));
+        row.put("studentId", rs.getLong("student_id"));
+        row.put("name", rs.getString("name"));
+        row.put("username", rs.getString("username"));
+        row.put("department", rs.getString("department"));
+        row.put("score", rs.getDouble("score"));
+        row.put("failingSubjects", rs.getInt("failing_subjects"));
+        row.put("decliningSubjects", rs.getInt("declining_subjects"));
+        row.put("missingAssessments", rs.getInt("missing_assessments"));
+        row.put("lowestAverage", rs.getObject("lowest_average", Double.class));
+        row.put("lowestSubjectId", rs.getObject("lowest_subject_id", Long.class));
+        row.put("lowestSubjectName", rs.getString("lowest_subject_name"));
+        row.put("computedAt", rs.getTimestamp("computed_at").toLocalDateTime());
+        return row;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void replaceAll(List<AtRiskRow> rows, LocalDateTime computedAt, int batchSize) {
+        jdbcTemplate.update("DELETE FROM at_risk");
+        Timestamp timestamp = Timestamp.valueOf(computedAt);
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<AtRiskRow> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, row) -> {
+                ps.setLong(1, row.studentId());
+                ps.setInt(2, row.rank());
+                ps.setDouble(3, row.score());
+                ps.setInt(4, row.failingSubjects());
+                ps.setInt(5, row.decliningSubjects());
+                ps.setInt(6, row.missingAssessments());
+                if (row.lowestAverage() == null) {
+                    ps.setNull(7, Types.DOUBLE);
+                } else {
+                    ps.setDouble(7, row.lowestAverage());
+                }
+                if (row.lowestSubjectId() == null) {
+                    ps.setNull(8, Types.BIGINT);
+                } else {
+                    ps.setLong(8, row.lowestSubjectId());
+                }
+                ps.setTimestamp(9, timestamp);
+            });
+        }
+    }
+
+    /** Flagged students after rank {@code after}, most at risk first, optionally only the faculty's. */
+    public List<Map<String, Object>> findPage(Long facultyId, Integer after, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_SQL).append("WHERE r.risk_rank > ? ");
+        args.add(after == null ? 0 : after);
+        if (facultyId != null) {
+            sql.append(FACULTY_FILTER);
+            args.add(facultyId);
+        }
+        sql.append("ORDER BY r.risk_rank LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    public Optional<Map<String, Object>> findByStudentId(Long studentId) {
+        return jdbcTemplate.query(SELECT_SQL + "WHERE r.student_id = ?", ROW_MAPPER, studentId).stream().findFirst();
+    }
+}
@@ -0,0 +1,45 @@
+package com.schooltracker.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Direct writes to the subject_students join table, so enrolling or
+ * unenrolling touches only the affected rows instead of having Hibernate
+ * rewrite the whole Subject.students collection.
+ */
+@Repository
+public class EnrollmentJdbcRepository {
+
+    // IGNORE: enrolling an already enrolled student is a no-op, as with the old Set semantics
+    private static final String INSERT_SQL = "INSERT IGNORE INTO subject_students (subject_id, student_id) VALUES (?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM subject_students WHERE subject_id = ? AND student_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void enroll(Long subjectId, Collection<Long> studentIds) {
+        if (studentIds.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(INSERT_SQL, pairs(subjectId, studentIds));
+    }
+
+    public void unenroll(Long subjectId, Collection<Long> studentIds) {
+        if (studentIds.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate(DELETE_SQL, pairs(subjectId, studentIds));
+    }
+
+    private List<Object[]> pairs(Long subjectId, Collection<Long> studentIds) {
+        List<Object[]> args = new ArrayList<>(studentIds.size());
+        for (Long studentId : studentIds) {
+            args.add(new Object[] { subjectId, studentId });
+        }
+        return args;
+    }
+}
@@ -0,0 +1,12 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.model.GradingScheme;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GradingSchemeRepository extends JpaRepository<GradingScheme, Long> {
+    Optional<GradingScheme> findByScope(String scope);
+}
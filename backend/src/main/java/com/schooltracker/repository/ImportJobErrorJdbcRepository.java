@@ -0,0 +1,45 @@
+package com.schooltracker.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row errors of import jobs. Written as one batch per processed chunk and
+ * read back with keyset pagination while the job runs.
+ */
+@Repository
+public class ImportJobErrorJdbcRepository {
+
+    private static final int MAX_MESSAGE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insertBatch(Long jobId, List<String> messages) {
+        if (messages.isEmpty())
+            return;
+        List<Object[]> args = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            args.add(new Object[] { jobId,
+                    message != null && message.length() > MAX_MESSAGE ? message.substring(0, MAX_MESSAGE) : message });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO import_job_errors (job_id, message) VALUES (?, ?)", args);
+    }
+
+    public List<Map<String, Object>> findPage(Long jobId, Long after, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, message FROM import_job_errors WHERE job_id = ? AND id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("id", rs.getLong("id"));
+                    row.put("message", rs.getString("message"));
+                    return row;
+                }, jobId, after == null ? 0L : after, limit);
+    }
+}
@@ -0,0 +1,16 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    Optional<ImportJob> findByScopeAndContentHash(String scope, String contentHash);
+
+    List<ImportJob> findByStatusInOrderByIdAsc(Collection<String> statuses);
+}
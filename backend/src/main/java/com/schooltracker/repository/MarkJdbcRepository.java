@@ -0,0 +1,83 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.dto.MarkColumnRow;
+import com.schooltracker.model.Mark;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC write paths for marks that JPA cannot batch (IDENTITY ids
+ * disable Hibernate insert batching).
+ */
+@Repository
+public class MarkJdbcRepository {
+
+    // (student_id, assessment_id) is unique: a second write for the pair replaces the score
+    private static final String UPSERT_SQL = "INSERT INTO marks (obtained_marks, grade, status, student_id, subject_id, assessment_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE obtained_marks = VALUES(obtained_marks), "
+            + "grade = VALUES(grade), status = VALUES(status), subject_id = VALUES(subject_id)";
+
+    // Matching the score read by the regrade skips marks re-entered since, which already carry a fresh grade
+    private static final String UPDATE_GRADE_SQL = "UPDATE marks SET grade = ? WHERE id = ? AND obtained_marks = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts or updates all marks, keyed by (student, assessment), as a
+     * single JDBC batch. Generated keys are not copied back: the driver does
+     * not report them reliably once rows of the batch hit the duplicate-key
+     * path, so callers read new ids back by row key.
+     */
+    public void upsertBatch(List<Mark> marks) {
+        if (marks.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, marks, marks.size(), (ps, mark) -> {
+            ps.setDouble(1, mark.getObtainedMarks());
+            ps.setString(2, mark.getGrade());
+            ps.setString(3, mark.getStatus());
+            ps.setLong(4, mark.getStudent().getId());
+            ps.setLong(5, mark.getSubject().getId());
+            ps.setLong(6, mark.getAssessment().getId());
+        });
+    }
+
+    /**
+     * Sets the grade of each (id, score) pair still holding that score, as a
+     * single JDBC batch. Returns the ids actually updated.
+     */
+    public List<Long> updateGrades(List<MarkColumnRow> rows, List<String> grades) {
+        if (rows.isEmpty())
+            return List.of();
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_GRADE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setString(1, grades.get(i));
+                ps.setLong(2, rows.get(i).markId());
+                ps.setDouble(3, rows.get(i).obtainedMarks());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        List<Long> updated = new ArrayList<>(rows.size());
+        for (int i = 0; i < counts.length; i++) {
+            // Drivers rewriting the batch report SUCCESS_NO_INFO instead of a count
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO)
+                updated.add(rows.get(i).markId());
+        }
+        return updated;
+    }
+}
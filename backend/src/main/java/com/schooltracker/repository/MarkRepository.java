@@ -1,12 +1,28 @@
 package com.schooltracker.repository;
 
+import com.schooltracker.dto.MarkColumnRow;
+import com.schooltracker.dto.MarkHistoryRow;
+import com.schooltracker.dto.MarkKeyRow;
+import com.schooltracker.dto.MarkView;
+import com.schooltracker.dto.ReportCardRow;
+import com.schooltracker.dto.RiskMarkRow;
+import com.schooltracker.dto.StudentPerformance;
 import com.schooltracker.model.Mark;
 import com.schooltracker.model.User;
 import com.schooltracker.model.Subject;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MarkRepository extends JpaRepository<Mark, Long> {
@@ -17,4 +33,95 @@ public interface MarkRepository extends JpaRepository<Mark, Long> {
     List<Mark> findByStudentAndSubject(User student, Subject subject);
 
     List<Mark> findBySubjectFaculty(User faculty);
+
+    // Row key lookup of the mark upserts: the given students' marks for one assessment
+    @Query("SELECT new com.schooltracker.dto.MarkKeyRow(m.id, m.student.id, m.obtainedMarks) FROM Mark m "
+            + "WHERE m.assessment.id = :assessmentId AND m.student.id IN :studentIds")
+    List<MarkKeyRow> findKeyRows(@Param("assessmentId") Long assessmentId,
+            @Param("studentIds") Collection<Long> studentIds);
+
+    String MARK_VIEW = "SELECT new com.schooltracker.dto.MarkView(m.id, m.obtainedMarks, m.grade, m.status, "
+            + "st.id, st.name, s.id, s.name, s.code, a.id, a.name, a.type, a.totalMarks, a.date) "
+            + "FROM Mark m JOIN m.student st JOIN m.subject s JOIN m.assessment a ";
+
+    // Keyset pages in (assessment date, id) order: (a.date, m.id) > (:afterKey, :afterId), undated first
+    String AFTER_DATE = "(:afterId IS NULL OR (:afterKey IS NULL AND (a.date IS NOT NULL OR m.id > :afterId)) "
+            + "OR a.date > :afterKey OR (a.date = :afterKey AND m.id > :afterId)) ";
+
+    @Query(MARK_VIEW + "WHERE st.id = :studentId AND " + AFTER_DATE + "ORDER BY a.date, m.id")
+    List<MarkView> findViewsByStudentId(@Param("studentId") Long studentId, @Param("afterId") Long afterId,
+            @Param("afterKey") LocalDate afterKey, Pageable pageable);
+
+    @Query(MARK_VIEW + "WHERE s.faculty.id = :facultyId AND " + AFTER_DATE + "ORDER BY a.date, m.id")
+    List<MarkView> findViewsByFacultyId(@Param("facultyId") Long facultyId, @Param("afterId") Long afterId,
+            @Param("afterKey") LocalDate afterKey, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(MARK_VIEW + "WHERE st.id = :studentId ORDER BY m.id")
+    Stream<MarkView> streamViewsByStudentId(@Param("studentId") Long studentId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(MARK_VIEW + "WHERE s.faculty.id = :facultyId ORDER BY m.id")
+    Stream<MarkView> streamViewsByFacultyId(@Param("facultyId") Long facultyId);
+
+    @Query("SELECT m.id AS markId, m.student.id AS studentId, m.subject.id AS subjectId, a.id AS assessmentId, "
+            + "a.date AS assessmentDate, m.obtainedMarks AS obtainedMarks, a.totalMarks AS totalMarks "
+            + "FROM Mark m JOIN m.assessment a WHERE m.subject.id = :subjectId AND m.student.id IN :studentIds")
+    List<MarkHistoryRow> findHistoryRows(@Param("subjectId") Long subjectId,
+            @Param("studentIds") Collection<Long> studentIds);
+
+    // MySQL only streams rows (instead of buffering the result) with fetch size Integer.MIN_VALUE
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT m.id AS markId, m.student.id AS studentId, m.subject.id AS subjectId, a.id AS assessmentId, "
+            + "a.date AS assessmentDate, m.obtainedMarks AS obtainedMarks, a.totalMarks AS totalMarks "
+            + "FROM Mark m JOIN m.assessment a")
+    Stream<MarkHistoryRow> streamAllHistoryRows();
+
+    // Every mark of the (student, subject) keys with a mark in the assessment
+    @Query("SELECT m.id AS markId, m.student.id AS studentId, m.subject.id AS subjectId, a.id AS assessmentId, "
+            + "a.date AS assessmentDate, m.obtainedMarks AS obtainedMarks, a.totalMarks AS totalMarks "
+            + "FROM Mark m JOIN m.assessment a WHERE EXISTS (SELECT 1 FROM Mark x "
+            + "WHERE x.assessment.id = :assessmentId AND x.student.id = m.student.id AND x.subject.id = m.subject.id)")
+    List<MarkHistoryRow> findHistoryRowsSharingAssessment(@Param("assessmentId") Long assessmentId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT new com.schooltracker.dto.MarkColumnRow(m.id, m.student.id, m.subject.id, a.id, m.obtainedMarks, "
+            + "a.totalMarks, m.grade) FROM Mark m JOIN m.assessment a ORDER BY m.id")
+    Stream<MarkColumnRow> streamAllColumnRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT new com.schooltracker.dto.MarkColumnRow(m.id, m.student.id, m.subject.id, a.id, m.obtainedMarks, "
+            + "a.totalMarks, m.grade) FROM Mark m JOIN m.assessment a WHERE m.subject.id = :subjectId ORDER BY m.id")
+    Stream<MarkColumnRow> streamColumnRowsBySubjectId(@Param("subjectId") Long subjectId);
+
+    // At-risk sweep: one subject at a time, each student's marks together and in trend order
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT new com.schooltracker.dto.RiskMarkRow(m.student.id, a.date, m.obtainedMarks, a.totalMarks, "
+            + "m.status) FROM Mark m JOIN m.assessment a WHERE m.subject.id = :subjectId "
+            + "ORDER BY m.student.id, a.date, a.id")
+    Stream<RiskMarkRow> streamRiskRowsBySubjectId(@Param("subjectId") Long subjectId);
+
+    // Faculty top students, grouped in the database so only the aggregates leave it
+    @Query("SELECT st.id AS studentId, st.name AS name, SUM(m.obtainedMarks) AS obtained, SUM(a.totalMarks) AS maxMarks, "
+            + "SUM(m.obtainedMarks) * 100.0 / SUM(a.totalMarks) AS percentage "
+            + "FROM Mark m JOIN m.student st JOIN m.assessment a WHERE m.subject.faculty.id = :facultyId "
+            + "GROUP BY st.id, st.name ORDER BY SUM(m.obtainedMarks) * 100.0 / SUM(a.totalMarks) DESC, st.id")
+    List<StudentPerformance> findTopStudentsByFaculty(@Param("facultyId") Long facultyId, Pageable pageable);
+
+    // Report cards: one cursor over the cohort's marks, grouped by student in order
+
+    String REPORT_CARD_FILTER = "WHERE s.year = :year AND s.semester = :semester "
+            + "AND (:department IS NULL OR st.department = :department) ";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT new com.schooltracker.dto.ReportCardRow(st.id, st.name, st.username, st.department, "
+            + "s.code, s.name, a.name, a.date, m.obtainedMarks, a.totalMarks, m.grade, m.status) "
+            + "FROM Mark m JOIN m.student st JOIN m.subject s JOIN m.assessment a " + REPORT_CARD_FILTER
+            + "ORDER BY st.id, s.code, a.date, a.id")
+    Stream<ReportCardRow> streamReportCardRows(@Param("year") String year, @Param("semester") String semester,
+            @Param("department") String department);
+
+    @Query("SELECT COUNT(DISTINCT st.id) FROM Mark m JOIN m.student st JOIN m.subject s " + REPORT_CARD_FILTER)
+    long countReportCardStudents(@Param("year") String year, @Param("semester") String semester,
+            @Param("department") String department);
 }
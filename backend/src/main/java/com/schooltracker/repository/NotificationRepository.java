@@ -0,0 +1,45 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.model.Notification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+    // Lock timeout -2 is SKIP LOCKED: concurrent claims (another instance, an overlapping drain) pass over
+    // rows locked by one another, so each due row is claimed once (MySQL 8: SELECT ... FOR UPDATE SKIP LOCKED)
+    String SKIP_LOCKED = "-2";
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    List<Notification> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(String status, LocalDateTime now,
+            Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    List<Notification> findByStatusAndDigestLineIsNotNullAndRecipientIn(String status,
+            Collection<String> recipients);
+
+    long countByStatus(String status);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :to WHERE n.status = :from")
+    int updateAllStatus(@Param("from") String from, @Param("to") String to);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :to WHERE n.id IN :ids AND n.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
+}
@@ -1,15 +1,67 @@
 package com.schooltracker.repository;
 
+import com.schooltracker.dto.SubjectView;
 import com.schooltracker.model.Subject;
 import com.schooltracker.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface SubjectRepository extends JpaRepository<Subject, Long> {
     List<Subject> findByFaculty(User faculty);
 
     List<Subject> findByStudentsContains(User student);
+
+    @Query("SELECT s.id FROM Subject s WHERE s.faculty.id IN :facultyIds")
+    List<Long> findIdsByFacultyIdIn(@Param("facultyIds") Collection<Long> facultyIds);
+
+    @Query("SELECT s.id FROM Subject s")
+    List<Long> findAllIds();
+
+    @Query("SELECT st.id FROM Subject s JOIN s.students st WHERE s.id = :subjectId")
+    List<Long> findStudentIdsById(@Param("subjectId") Long subjectId);
+
+    @Query("SELECT s.id FROM Subject s WHERE s.faculty.department = :department")
+    List<Long> findIdsByFacultyDepartment(@Param("department") String department);
+
+    String SUBJECT_VIEW = "SELECT new com.schooltracker.dto.SubjectView(s.id, s.name, s.code, s.year, s.semester, "
+            + "f.id, f.name) FROM Subject s LEFT JOIN s.faculty f ";
+
+    // Keyset pages in (name, id) order: (s.name, s.id) > (:afterKey, :afterId), null names first
+    String AFTER_NAME = "(:afterId IS NULL OR (:afterKey IS NULL AND (s.name IS NOT NULL OR s.id > :afterId)) "
+            + "OR s.name > :afterKey OR (s.name = :afterKey AND s.id > :afterId)) ";
+
+    @Query(SUBJECT_VIEW + "WHERE " + AFTER_NAME + "ORDER BY s.name, s.id")
+    List<SubjectView> findAllViews(@Param("afterId") Long afterId, @Param("afterKey") String afterKey,
+            Pageable pageable);
+
+    @Query(SUBJECT_VIEW + "WHERE f.id = :facultyId AND " + AFTER_NAME + "ORDER BY s.name, s.id")
+    List<SubjectView> findViewsByFacultyId(@Param("facultyId") Long facultyId, @Param("afterId") Long afterId,
+            @Param("afterKey") String afterKey, Pageable pageable);
+
+    @Query(SUBJECT_VIEW + "JOIN s.students st WHERE st.id = :studentId AND " + AFTER_NAME + "ORDER BY s.name, s.id")
+    List<SubjectView> findViewsByStudentId(@Param("studentId") Long studentId, @Param("afterId") Long afterId,
+            @Param("afterKey") String afterKey, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(SUBJECT_VIEW + "ORDER BY s.id")
+    Stream<SubjectView> streamAllViews();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(SUBJECT_VIEW + "WHERE f.id = :facultyId ORDER BY s.id")
+    Stream<SubjectView> streamViewsByFacultyId(@Param("facultyId") Long facultyId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query(SUBJECT_VIEW + "JOIN s.students st WHERE st.id = :studentId ORDER BY s.id")
+    Stream<SubjectView> streamViewsByStudentId(@Param("studentId") Long studentId);
 }
@@ -0,0 +1,119 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC write paths for users: the batch insert of imports (IDENTITY ids
+ * disable Hibernate insert batching; with rewriteBatchedStatements the driver
+ * sends one multi-row INSERT per batch) and the set-based cascade delete.
+ */
+@Repository
+public class UserJdbcRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO users (name, role, department, email, username, password, "
+            + "parents_email, parents_mobile) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Ids per IN list in the cascade delete
+    private static final int DELETE_CHUNK = 1000;
+
+    // Ordered so no statement violates a foreign key of a later one
+    private static final String[][] CASCADE = {
+            { "subjectsUnassigned", "UPDATE subjects SET faculty_id = NULL WHERE faculty_id IN (:ids)" },
+            { "assessmentsUnassigned", "UPDATE assessments SET faculty_id = NULL WHERE faculty_id IN (:ids)" },
+            { "enrollmentsDeleted", "DELETE FROM subject_students WHERE student_id IN (:ids)" },
+            { "marksDeleted", "DELETE FROM marks WHERE student_id IN (:ids)" },
+            { "usersDeleted", "DELETE FROM users WHERE id IN (:ids)" } };
+
+    // Students of the given year's subjects with no enrollment in a later year. subjects.year is a
+    // VARCHAR, so "later" compares numerically; the equality stays on the string to use the index.
+    private static final String GRADUATING_SQL = "SELECT DISTINCT ss.student_id FROM subject_students ss "
+            + "JOIN subjects s ON s.id = ss.subject_id JOIN users u ON u.id = ss.student_id "
+            + "WHERE s.year = :yearText AND LOWER(u.role) = 'student' AND NOT EXISTS ("
+            + "SELECT 1 FROM subject_students later JOIN subjects ls ON ls.id = later.subject_id "
+            + "WHERE later.student_id = ss.student_id AND CAST(ls.year AS SIGNED) > :year)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Inserts all users as a single JDBC batch and copies the generated ids
+     * back onto the entities.
+     */
+    public void insertBatch(List<User> users) {
+        if (users.isEmpty())
+            return;
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (User user : users) {
+                    ps.setString(1, user.getName());
+                    ps.setString(2, user.getRole());
+                    ps.setString(3, user.getDepartment());
+                    ps.setString(4, user.getEmail());
+                    ps.setString(5, user.getUsername());
+                    ps.setString(6, user.getPassword());
+                    ps.setString(7, user.getParentsEmail());
+                    ps.setString(8, user.getParentsMobile());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < users.size()) {
+                        users.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Removes the users and everything that references them with one bulk
+     * statement per table (per chunk of ids). Must run inside a transaction.
+     * Returns the affected row count of each step.
+     */
+    public Map<String, Integer> deleteCascade(List<Long> ids) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String[] step : CASCADE) {
+            counts.put(step[0], 0);
+        }
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK) {
+            Map<String, Object> params = Map.of("ids", ids.subList(from, Math.min(from + DELETE_CHUNK, ids.size())));
+            for (String[] step : CASCADE) {
+                counts.merge(step[0], namedParameterJdbcTemplate.update(step[1], params), Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Replaces a stored password with its new hash unless it changed in the
+     * meantime. Returns whether the row was updated.
+     */
+    public boolean updatePassword(Long id, String expected, String hash) {
+        return jdbcTemplate.update("UPDATE users SET password = ? WHERE id = ? AND password = ?", hash, id,
+                expected) > 0;
+    }
+
+    public List<Long> findGraduatingStudentIds(int year) {
+        return namedParameterJdbcTemplate.queryForList(GRADUATING_SQL,
+                Map.of("year", year, "yearText", String.valueOf(year)), Long.class);
+    }
+}
@@ -1,14 +1,53 @@
 package com.schooltracker.repository;
 
 import com.schooltracker.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
+    java.util.List<User> findByUsernameIn(Collection<String> usernames);
+
     java.util.List<User> findByRole(String role);
+
+    // Keyset pages in (name, id) order: (u.name, u.id) > (:afterKey, :afterId), null names first
+    String AFTER_NAME = "(:afterId IS NULL OR (:afterKey IS NULL AND (u.name IS NOT NULL OR u.id > :afterId)) "
+            + "OR u.name > :afterKey OR (u.name = :afterKey AND u.id > :afterId)) ";
+
+    @Query("SELECT u FROM User u WHERE " + AFTER_NAME + "ORDER BY u.name, u.id")
+    java.util.List<User> findPage(@Param("afterId") Long afterId, @Param("afterKey") String afterKey,
+            Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.role = :role AND " + AFTER_NAME + "ORDER BY u.name, u.id")
+    java.util.List<User> findPageByRole(@Param("role") String role, @Param("afterId") Long afterId,
+            @Param("afterKey") String afterKey, Pageable pageable);
+
+    @Query("SELECT u FROM Subject s JOIN s.students u WHERE s.id = :subjectId AND " + AFTER_NAME
+            + "ORDER BY u.name, u.id")
+    java.util.List<User> findStudentsBySubjectId(@Param("subjectId") Long subjectId, @Param("afterId") Long afterId,
+            @Param("afterKey") String afterKey, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT u FROM User u WHERE u.role = :role ORDER BY u.id")
+    Stream<User> streamByRole(@Param("role") String role);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT st FROM Subject s JOIN s.students st WHERE s.id = :subjectId ORDER BY st.id")
+    Stream<User> streamStudentsBySubjectId(@Param("subjectId") Long subjectId);
 }
@@ -0,0 +1,300 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.dto.AtRiskRow;
+import com.schooltracker.dto.RiskMarkRow;
+import com.schooltracker.repository.AssessmentRepository;
+import com.schooltracker.repository.AtRiskJdbcRepository;
+import com.schooltracker.repository.MarkRepository;
+import com.schooltracker.repository.SubjectRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Daily early-warning sweep over every student's marks.
+ *
+ * Subjects are scored in parallel on a fork-join pool, each streaming its
+ * marks once with a cursor in (student, date, assessment) order. Per student
+ * and subject it looks at the trailing run of "Declined" statuses, the
+ * average of the last {@code tracker.at-risk.window} marks against the
+ * subject's failing grades, and the held assessments without a mark. Only
+ * subjects raising a signal are folded into a small per-student tally, so
+ * the heap holds one subject's cursor per worker plus the tallies, never the
+ * marks. Students whose score reaches {@code tracker.at-risk.min-score} are
+ * ranked and replace the at_risk table in one transaction.
+ *
+ * Score: 3 per failing subject, 2 per declining subject, 1 per missing
+ * assessment.
+ */
+@Service
+public class AtRiskService {
+
+    private static final Logger log = LoggerFactory.getLogger(AtRiskService.class);
+
+    private static final String DECLINED = "Declined";
+    private static final double FAILING_WEIGHT = 3;
+    private static final double DECLINING_WEIGHT = 2;
+    private static final double MISSING_WEIGHT = 1;
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private AtRiskJdbcRepository atRiskJdbcRepository;
+
+    @Autowired
+    private GradingPolicyService gradingPolicyService;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Subjects streamed at once; each holds a connection for its cursor
+    @Value("${tracker.at-risk.parallelism:4}")
+    private int parallelism;
+
+    @Value("${tracker.at-risk.window:5}")
+    private int window;
+
+    @Value("${tracker.at-risk.min-declines:2}")
+    private int minDeclines;
+
+    @Value("${tracker.at-risk.min-score:3}")
+    private double minScore;
+
+    @Value("${tracker.bulk-upload.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate readOnlyTransaction;
+    private ForkJoinPool scoringPool;
+    private ExecutorService jobRunner;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastRun = Map.of("status", "NEVER_RUN");
+
+    /** Signals of one student summed over the subjects that raised any. */
+    private static final class Tally {
+        private int failingSubjects;
+        private int decliningSubjects;
+        private int missingAssessments;
+        private double lowestAverage = Double.MAX_VALUE;
+        private Long lowestSubjectId;
+
+        private synchronized void add(Long subjectId, boolean failing, boolean declining, int missing,
+                double average) {
+            if (failing)
+                failingSubjects++;
+            if (declining)
+                decliningSubjects++;
+            missingAssessments += missing;
+            if (!Double.isNaN(average) && average < lowestAverage) {
+                lowestAverage = average;
+                lowestSubjectId = subjectId;
+            }
+        }
+
+        private double score() {
+            return FAILING_WEIGHT * failingSubjects + DECLINING_WEIGHT * decliningSubjects
+                    + MISSING_WEIGHT * missingAssessments;
+        }
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void init() {
+        scoringPool = new ForkJoinPool(Math.max(1, parallelism));
+        jobRunner = executionMode.newSingleThreadExecutor("at-risk-job");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        scoringPool.shutdownNow();
+    }
+
+    @Scheduled(cron = "${tracker.at-risk.cron:0 30 2 * * *}")
+    public void runDaily() {
+        if (!start())
+            log.warn("At-risk sweep still running, skipping the scheduled run");
+    }
+
+    /** Starts a sweep in the background; false when one is already running. */
+    public boolean start() {
+        if (!running.compareAndSet(false, true))
+            return false;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", "RUNNING");
+        status.put("startedAt", LocalDateTime.now());
+        lastRun = status;
+        jobRunner.submit(this::run);
+        return true;
+    }
+
+    /** Status and counters of the running or last finished sweep. */
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    private void run() {
+        long start = System.currentTimeMillis();
+        Map<String, Object> status = new LinkedHashMap<>(lastRun);
+        try {
+            LocalDate today = LocalDate.now();
+            List<Long> subjectIds = subjectRepository.findAllIds();
+            Map<Long, Tally> tallies = new ConcurrentHashMap<>();
+            AtomicLong marksScanned = new AtomicLong();
+            scoringPool.submit(() -> subjectIds.parallelStream()
+                    .forEach(subjectId -> scoreSubject(subjectId, today, tallies, marksScanned))).get();
+
+            List<Map.Entry<Long, Tally>> flagged = new ArrayList<>();
+            for (Map.Entry<Long, Tally> entry : tallies.entrySet()) {
+                if (entry.getValue().score() >= minScore)
+                    flagged.add(entry);
+            }
+            flagged.sort(Comparator.comparingDouble((Map.Entry<Long, Tally> e) -> e.getValue().score()).reversed()
+                    .thenComparing(e -> e.getKey()));
+
+            List<AtRiskRow> rows = new ArrayList<>(flagged.size());
+            for (Map.Entry<Long, Tally> entry : flagged) {
+                Tally tally = entry.getValue();
+                rows.add(new AtRiskRow(entry.getKey(), rows.size() + 1, tally.score(), tally.failingSubjects,
+                        tally.decliningSubjects, tally.missingAssessments,
+                        tally.lowestSubjectId == null ? null : Math.round(tally.lowestAverage * 100) / 100.0,
+                        tally.lowestSubjectId));
+            }
+            LocalDateTime computedAt = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(tx -> atRiskJdbcRepository.replaceAll(rows, computedAt,
+                    batchSize));
+
+            status.put("status", "DONE");
+            status.put("subjects", subjectIds.size());
+            status.put("marksScanned", marksScanned.get());
+            status.put("studentsWithSignals", tallies.size());
+            status.put("studentsAtRisk", rows.size());
+            status.put("computedAt", computedAt);
+            log.info("At-risk sweep finished: {} of {} students flagged from {} marks in {} ms", rows.size(),
+                    tallies.size(), marksScanned.get(), System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.put("status", "FAILED");
+            status.put("error", "Interrupted");
+        } catch (ExecutionException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            status.put("status", "FAILED");
+            status.put("error", cause.getMessage());
+            log.error("At-risk sweep failed", cause);
+        } finally {
+            status.put("millis", System.currentTimeMillis() - start);
+            lastRun = status;
+            running.set(false);
+        }
+    }
+
+    /**
+     * Streams one subject's marks, closing each student's run as the cursor
+     * moves to the next student, then charges enrolled students who have no
+     * mark at all with every held assessment.
+     */
+    private void scoreSubject(Long subjectId, LocalDate today, Map<Long, Tally> tallies, AtomicLong marksScanned) {
+        CompiledGradingScheme scheme = gradingPolicyService.forSubject(subjectId);
+        readOnlyTransaction.executeWithoutResult(tx -> {
+            long held = assessmentRepository.countHeldBySubjectId(subjectId, today);
+            Set<Long> enrolled = new HashSet<>(subjectRepository.findStudentIdsById(subjectId));
+            int capacity = Math.max(1, window);
+            double[] recent = new double[capacity];
+
+            try (Stream<RiskMarkRow> rows = markRepository.streamRiskRowsBySubjectId(subjectId)) {
+                Iterator<RiskMarkRow> iterator = rows.iterator();
+                Long studentId = null;
+                int count = 0;
+                int heldMarks = 0;
+                int declines = 0;
+                long scanned = 0;
+                while (iterator.hasNext()) {
+                    RiskMarkRow row = iterator.next();
+                    scanned++;
+                    if (!row.studentId().equals(studentId)) {
+                        if (studentId != null)
+                            close(subjectId, studentId, scheme, recent, count, declines,
+                                    enrolled.remove(studentId) ? held - heldMarks : 0, tallies);
+                        studentId = row.studentId();
+                        count = 0;
+                        heldMarks = 0;
+                        declines = 0;
+                    }
+                    if (row.assessmentDate() == null || !row.assessmentDate().isAfter(today))
+                        heldMarks++;
+                    declines = DECLINED.equals(row.status()) ? declines + 1 : 0;
+                    if (row.obtainedMarks() != null && row.totalMarks() != null && row.totalMarks() > 0)
+                        recent[count++ % capacity] = (row.obtainedMarks() / row.totalMarks()) * 100;
+                }
+                if (studentId != null)
+                    close(subjectId, studentId, scheme, recent, count, declines,
+                            enrolled.remove(studentId) ? held - heldMarks : 0, tallies);
+                marksScanned.addAndGet(scanned);
+            }
+
+            if (held > 0) {
+                for (Long missingAll : enrolled)
+                    tallies.computeIfAbsent(missingAll, id -> new Tally())
+                            .add(subjectId, false, false, (int) held, Double.NaN);
+            }
+        });
+    }
+
+    private void close(Long subjectId, Long studentId, CompiledGradingScheme scheme, double[] recent, int count,
+            int declines, long missing, Map<Long, Tally> tallies) {
+        double average = Double.NaN;
+        if (count > 0) {
+            int n = Math.min(count, recent.length);
+            double sum = 0;
+            for (int i = 0; i < n; i++)
+                sum += recent[i];
+            average = sum / n;
+        }
+        boolean failing = count > 0 && scheme.isFailing(scheme.grade(average, 100.0));
+        boolean declining = declines >= minDeclines;
+        int missed = (int) Math.max(0, missing);
+        if (failing || declining || missed > 0)
+            tallies.computeIfAbsent(studentId, id -> new Tally())
+                    .add(subjectId, failing, declining, missed, average);
+    }
+}
@@ -0,0 +1,121 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.User;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Stateless login tokens: "<payload>.<signature>", both base64url, where the
+ * payload is "userId:role:expiresAtEpochSecond" and the signature its
+ * HMAC-SHA256 under tracker.auth.token-secret. Verifying needs no database
+ * access; a token stays valid until it expires.
+ *
+ * Without a configured secret a random one is generated at startup, so
+ * tokens do not survive a restart and are not accepted by other instances.
+ */
+@Service
+public class AuthTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthTokenService.class);
+
+    /** Request attribute holding the Claims of a request's valid token. */
+    public static final String CLAIMS_ATTRIBUTE = "tracker.auth.claims";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${tracker.auth.token-secret:}")
+    private String secret;
+
+    @Value("${tracker.auth.token-ttl-minutes:480}")
+    private long ttlMinutes;
+
+    private SecretKeySpec key;
+
+    // Mac instances are not thread-safe; initialising one per token would dominate verification
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /** The verified content of a token. */
+    public record Claims(long userId, String role, Instant expiresAt) {
+    }
+
+    public record IssuedToken(String token, Instant expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("tracker.auth.token-secret is not set; using a random key, tokens end with this process");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < 32)
+                throw new IllegalStateException("tracker.auth.token-secret must be at least 32 bytes");
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public IssuedToken issue(User user) {
+        Instant expiresAt = Instant.now().plusSeconds(ttlMinutes * 60);
+        String payload = user.getId() + ":" + user.getRole() + ":" + expiresAt.getEpochSecond();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return new IssuedToken(ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes)),
+                expiresAt);
+    }
+
+    /** The token's claims, or empty when it is malformed, forged or expired. */
+    public Optional<Claims> verify(String token) {
+        if (token == null)
+            return Optional.empty();
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.'))
+            return Optional.empty();
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature))
+                return Optional.empty();
+
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split(":", -1);
+            if (parts.length != 3)
+                return Optional.empty();
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(parts[2]));
+            if (!Instant.now().isBefore(expiresAt))
+                return Optional.empty();
+            return Optional.of(new Claims(Long.parseLong(parts[0]), parts[1], expiresAt));
+        } catch (IllegalArgumentException e) {
+            // Bad base64 or numbers (NumberFormatException is an IllegalArgumentException)
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.schooltracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows and duration of CSV bulk operations per kind (marks, users,
+ * enrollments). Rows per second is the rate of "tracker.bulk.upload.rows".
+ */
+@Component
+public class BulkUploadMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public void record(String kind, BulkUploadResult result, long elapsedNanos) {
+        rows(kind, "success").increment(result.getSuccessCount());
+        rows(kind, "failure").increment(result.getFailureCount());
+        rows(kind, "unchanged").increment(result.getUnchangedCount());
+        rows(kind, "duplicate").increment(result.getDuplicateCount());
+        Timer.builder("tracker.bulk.upload")
+                .description("Duration of a CSV bulk operation")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter rows(String kind, String outcome) {
+        return Counter.builder("tracker.bulk.upload.rows")
+                .description("CSV rows processed by bulk operations")
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,77 @@
+package com.schooltracker.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-row outcome of a CSV bulk operation, rendered in the same shape the
+ * bulk-upload endpoints have always returned.
+ */
+public class BulkUploadResult {
+
+    private int successCount;
+    private int failureCount;
+    private int unchangedCount;
+    private final List<String> errors = new ArrayList<>();
+    private final List<String> duplicates = new ArrayList<>();
+
+    public void success(int count) {
+        successCount += count;
+    }
+
+    public void failure(String error) {
+        errors.add(error);
+        failureCount++;
+    }
+
+    /** Rows that matched what is already stored and were not rewritten. */
+    public void unchanged(int count) {
+        unchangedCount += count;
+    }
+
+    /** A row superseded by a later row for the same key in the same upload; the later row is written. */
+    public void duplicate(String note) {
+        duplicates.add(note);
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public int getDuplicateCount() {
+        return duplicates.size();
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public List<String> getDuplicates() {
+        return duplicates;
+    }
+
+    public Map<String, Object> toResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("successCount", successCount);
+        response.put("failureCount", failureCount);
+        if (unchangedCount > 0)
+            response.put("unchangedCount", unchangedCount);
+        if (!duplicates.isEmpty()) {
+            response.put("duplicateCount", duplicates.size());
+            response.put("duplicates", duplicates);
+        }
+        response.put("errors", errors);
+        return response;
+    }
+}
@@ -0,0 +1,164 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.GradingScheme;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable lookup form of a GradingScheme: band minimums in a sorted array,
+ * searched with a binary search, and the band's grade, GPA points and fail
+ * flag in parallel arrays. Grades are the scheme's own String instances, so
+ * grading allocates nothing.
+ */
+public final class CompiledGradingScheme {
+
+    public static final String NOT_GRADED = "-";
+
+    /** Built-in bands: ≥75 A, 60–74 B, 50–59 C, 40–49 D, <40 Fail. */
+    public static final CompiledGradingScheme DEFAULT = compile(null, "Default", "DEFAULT", List.of(
+            new GradingScheme.Band("A", 75, 4.0, null),
+            new GradingScheme.Band("B", 60, 3.0, null),
+            new GradingScheme.Band("C", 50, 2.0, null),
+            new GradingScheme.Band("D", 40, 1.0, null),
+            new GradingScheme.Band("Fail", 0, 0.0, null)), 1.0, 0.0);
+
+    private final Long schemeId;
+    private final String name;
+    private final String scope;
+    private final double[] mins;
+    private final String[] grades;
+    private final double[] points;
+    private final boolean[] failing;
+    private final double curveFactor;
+    private final double curveOffset;
+
+    private CompiledGradingScheme(Long schemeId, String name, String scope, double[] mins, String[] grades,
+            double[] points, boolean[] failing, double curveFactor, double curveOffset) {
+        this.schemeId = schemeId;
+        this.name = name;
+        this.scope = scope;
+        this.mins = mins;
+        this.grades = grades;
+        this.points = points;
+        this.failing = failing;
+        this.curveFactor = curveFactor;
+        this.curveOffset = curveOffset;
+    }
+
+    public static CompiledGradingScheme compile(GradingScheme scheme) {
+        return compile(scheme.getId(), scheme.getName(), scheme.getScope(), scheme.getBands(),
+                scheme.getCurveFactor(), scheme.getCurveOffset());
+    }
+
+    /** Validates the bands and builds the lookup arrays; IllegalArgumentException when invalid. */
+    public static CompiledGradingScheme compile(Long schemeId, String name, String scope,
+            List<GradingScheme.Band> bands, double curveFactor, double curveOffset) {
+        if (bands == null || bands.isEmpty())
+            throw new IllegalArgumentException("A grading scheme needs at least one band");
+        if (!(curveFactor > 0) || Double.isInfinite(curveFactor) || !Double.isFinite(curveOffset))
+            throw new IllegalArgumentException("curveFactor must be positive and curveOffset finite");
+
+        List<GradingScheme.Band> sorted = new ArrayList<>(bands);
+        sorted.sort(Comparator.comparingDouble(GradingScheme.Band::min));
+        boolean anyFail = false;
+        Set<String> seenGrades = new HashSet<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            GradingScheme.Band band = sorted.get(i);
+            if (band.grade() == null || band.grade().isBlank() || NOT_GRADED.equals(band.grade()))
+                throw new IllegalArgumentException("Every band needs a grade other than '" + NOT_GRADED + "'");
+            if (!seenGrades.add(band.grade()))
+                throw new IllegalArgumentException("Grade " + band.grade() + " appears twice");
+            if (!Double.isFinite(band.min()) || band.min() < 0 || band.min() > 100)
+                throw new IllegalArgumentException("Band minimums must be between 0 and 100");
+            if (i > 0 && band.min() == sorted.get(i - 1).min())
+                throw new IllegalArgumentException("Two bands start at " + band.min() + "%");
+            anyFail |= Boolean.TRUE.equals(band.fail());
+        }
+
+        int size = sorted.size();
+        double[] mins = new double[size];
+        String[] grades = new String[size];
+        double[] points = new double[size];
+        boolean[] failing = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            GradingScheme.Band band = sorted.get(i);
+            mins[i] = band.min();
+            grades[i] = band.grade().intern();
+            points[i] = band.points();
+            failing[i] = anyFail ? Boolean.TRUE.equals(band.fail()) : i == 0;
+        }
+        return new CompiledGradingScheme(schemeId, name, scope, mins, grades, points, failing, curveFactor,
+                curveOffset);
+    }
+
+    public String grade(Double obtained, Double total) {
+        int band = band(obtained, total);
+        return band < 0 ? NOT_GRADED : grades[band];
+    }
+
+    /** GPA points of the score, or null when it cannot be graded. */
+    public Double points(Double obtained, Double total) {
+        int band = band(obtained, total);
+        return band < 0 ? null : points[band];
+    }
+
+    public boolean isFailing(String grade) {
+        for (int i = 0; i < grades.length; i++) {
+            if (grades[i].equals(grade))
+                return failing[i];
+        }
+        return false;
+    }
+
+    /** Failing grade names of this scheme. */
+    public List<String> failingGrades() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < grades.length; i++) {
+            if (failing[i])
+                names.add(grades[i]);
+        }
+        return names;
+    }
+
+    // Index of the highest band whose min the moderated percentage reaches, or -1 without a total
+    private int band(Double obtained, Double total) {
+        if (obtained == null || total == null || total == 0)
+            return -1;
+        double percentage = Math.min(100, (obtained / total) * 100 * curveFactor + curveOffset);
+        int index = Arrays.binarySearch(mins, percentage);
+        if (index < 0)
+            index = -index - 2;
+        return Math.max(index, 0);
+    }
+
+    public Long getSchemeId() {
+        return schemeId;
+    }
+
+    public Map<String, Object> describe() {
+        List<Map<String, Object>> bands = new ArrayList<>(grades.length);
+        for (int i = grades.length - 1; i >= 0; i--) {
+            Map<String, Object> band = new LinkedHashMap<>();
+            band.put("grade", grades[i]);
+            band.put("min", mins[i]);
+            band.put("points", points[i]);
+            band.put("fail", failing[i]);
+            bands.add(band);
+        }
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("schemeId", schemeId);
+        description.put("name", name);
+        description.put("scope", scope);
+        description.put("curveFactor", curveFactor);
+        description.put("curveOffset", curveOffset);
+        description.put("bands", bands);
+        return description;
+    }
+}
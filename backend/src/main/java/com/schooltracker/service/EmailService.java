@@ -5,6 +5,8 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class EmailService {
 
@@ -14,13 +16,24 @@ public class EmailService {
     @org.springframework.beans.factory.annotation.Value("${spring.mail.username}")
     private String fromEmail;
 
-    public void sendEmail(String to, String subject, String body) {
+    public SimpleMailMessage buildEmail(String to, String subject, String body) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom(fromEmail);
         message.setTo(to);
         message.setSubject(subject);
         message.setText(body);
+        return message;
+    }
+
+    public void sendEmail(String to, String subject, String body) {
+        mailSender.send(buildEmail(to, subject, body));
+    }
 
-        mailSender.send(message);
+    /**
+     * Sends all messages over a single SMTP connection. Partial failures
+     * surface as a MailSendException keyed by the failed messages.
+     */
+    public void sendEmails(List<SimpleMailMessage> messages) {
+        mailSender.send(messages.toArray(new SimpleMailMessage[0]));
     }
 }
@@ -0,0 +1,119 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.User;
+import com.schooltracker.repository.EnrollmentJdbcRepository;
+import com.schooltracker.repository.UserRepository;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Subject enrollment as set-based writes against subject_students. The
+ * roster is never loaded to add or remove a student.
+ */
+@Service
+public class EnrollmentService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EnrollmentJdbcRepository enrollmentJdbcRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BulkUploadMetrics bulkUploadMetrics;
+
+    @Value("${tracker.bulk-upload.batch-size:500}")
+    private int batchSize;
+
+    @Transactional
+    public void enroll(Long subjectId, Long studentId) {
+        enrollmentJdbcRepository.enroll(subjectId, List.of(studentId));
+    }
+
+    @Transactional
+    public void unenroll(Long subjectId, Long studentId) {
+        enrollmentJdbcRepository.unenroll(subjectId, List.of(studentId));
+    }
+
+    /**
+     * Enrolls the students listed in a CSV (column {@code username}), chunk by
+     * chunk: one username query and one batch insert per chunk.
+     */
+    public BulkUploadResult enrollBulk(Long subjectId, Iterable<CSVRecord> records) {
+        long start = System.nanoTime();
+        BulkUploadResult result = new BulkUploadResult();
+        List<CSVRecord> chunk = new ArrayList<>(batchSize);
+
+        for (CSVRecord csvRecord : records) {
+            chunk.add(csvRecord);
+            if (chunk.size() >= batchSize) {
+                enrollChunk(subjectId, chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            enrollChunk(subjectId, chunk, result);
+        }
+        bulkUploadMetrics.record("enrollments", result, System.nanoTime() - start);
+        return result;
+    }
+
+    private void enrollChunk(Long subjectId, List<CSVRecord> chunk, BulkUploadResult result) {
+        List<String> usernames = new ArrayList<>(chunk.size());
+        Set<String> lookup = new HashSet<>();
+        for (CSVRecord csvRecord : chunk) {
+            try {
+                String username = csvRecord.get("username");
+                usernames.add(username);
+                lookup.add(username);
+            } catch (Exception e) {
+                result.failure("Error processing row " + csvRecord.getRecordNumber() + ": " + e.getMessage());
+            }
+        }
+
+        Map<String, User> usersByUsername = new HashMap<>();
+        if (!lookup.isEmpty()) {
+            for (User user : userRepository.findByUsernameIn(lookup)) {
+                usersByUsername.put(user.getUsername().toLowerCase(Locale.ROOT), user);
+            }
+        }
+
+        Set<Long> studentIds = new LinkedHashSet<>();
+        int enrolled = 0;
+        for (String username : usernames) {
+            User student = usersByUsername.get(username.toLowerCase(Locale.ROOT));
+            if (student == null) {
+                result.failure("Student not found: " + username);
+            } else if (!"Student".equalsIgnoreCase(student.getRole())) {
+                result.failure("User " + username + " is not a student");
+            } else {
+                studentIds.add(student.getId());
+                enrolled++;
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> enrollmentJdbcRepository.enroll(subjectId, studentIds));
+        } catch (Exception e) {
+            result.failure("Error enrolling " + enrolled + " students: " + e.getMessage());
+            return;
+        }
+        result.success(enrolled);
+    }
+}
@@ -0,0 +1,206 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ExecutionMode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event fan-out by topic (e.g. "student:12", "faculty:3").
+ *
+ * Publishing only appends to a replay ring and to each subscriber's queue;
+ * a small sender pool drains the queues, one subscriber at a time, so events
+ * reach a connection in order and a slow connection never holds up the
+ * publisher. A subscriber whose queue overflows is closed and resumes with
+ * Last-Event-ID. Event ids are "bootId-sequence"; an id from another boot or
+ * older than the ring gets a "reset" event, telling the client to refetch.
+ */
+@Component
+public class EventBroadcaster {
+
+    public static final String RESET = "reset";
+
+    @Value("${tracker.events.replay-size:10000}")
+    private int replaySize;
+
+    @Value("${tracker.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Value("${tracker.events.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${tracker.events.max-queue:1000}")
+    private int maxQueue;
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private Event[] ring;
+    private long sequence;
+
+    private ExecutorService sender;
+
+    private record Event(long sequence, String topic, String name, Object data) {
+    }
+
+    @PostConstruct
+    public void init() {
+        ring = new Event[replaySize];
+        sender = executionMode.newPool("sse-send", sendThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe(String topic, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Replay and join under the publish lock: every event is either replayed or delivered live, once
+        synchronized (this) {
+            replay(subscriber, lastEventId);
+            subscribers.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        return emitter;
+    }
+
+    public void publish(String topic, String name, Object data) {
+        synchronized (this) {
+            Event event = new Event(++sequence, topic, name, data);
+            ring[(int) (event.sequence() % ring.length)] = event;
+            Set<Subscriber> set = subscribers.get(topic);
+            if (set != null)
+                set.forEach(subscriber -> subscriber.enqueue(event));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int connections = subscribers.values().stream().mapToInt(Set::size).sum();
+        synchronized (this) {
+            return Map.of("topics", subscribers.size(), "connections", connections, "lastEventId",
+                    bootId + "-" + sequence);
+        }
+    }
+
+    /** Comment line every 25s so proxies keep idle streams open and dead ones are detected. */
+    @Scheduled(fixedDelay = 25000)
+    public void heartbeat() {
+        Event ping = new Event(0, null, null, null);
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.enqueue(ping)));
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank())
+            return;
+
+        long last = -1;
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator > 0 && lastEventId.substring(0, separator).equals(bootId)) {
+            try {
+                last = Long.parseLong(lastEventId.substring(separator + 1));
+            } catch (NumberFormatException ignored) {
+                // Treated as unknown below
+            }
+        }
+        if (last < 0 || last > sequence || sequence - last > ring.length) {
+            subscriber.enqueue(new Event(sequence, subscriber.topic, RESET, Map.of()));
+            return;
+        }
+        for (long seq = last + 1; seq <= sequence; seq++) {
+            Event event = ring[(int) (seq % ring.length)];
+            if (subscriber.topic.equals(event.topic()))
+                subscriber.enqueue(event);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> set = subscribers.get(subscriber.topic);
+        if (set != null) {
+            set.remove(subscriber);
+            if (set.isEmpty())
+                subscribers.remove(subscriber.topic, set);
+        }
+    }
+
+    private final class Subscriber {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(String topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(Event event) {
+            if (queued.incrementAndGet() > maxQueue) {
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            queue.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true))
+                sender.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while ((event = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!queue.isEmpty())
+                schedule();
+        }
+
+        private void send(Event event) throws IOException {
+            if (event.name() == null) {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(bootId + "-" + event.sequence())
+                        .name(event.name())
+                        .data(event.data(), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.GradingScheme;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import com.schooltracker.repository.GradingSchemeRepository;
+import com.schooltracker.repository.SubjectRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Grading schemes per subject, department (of the subject's faculty) and
+ * globally. All schemes are compiled once into CompiledGradingScheme lookups;
+ * the scheme that applies to a subject is resolved on first use and cached
+ * per subject until a scheme or the subject changes.
+ *
+ * Saving or deleting a scheme starts a RegradeService job over the subjects
+ * it can affect.
+ */
+@Service
+public class GradingPolicyService {
+
+    public static final String GLOBAL = "GLOBAL";
+
+    @Autowired
+    private GradingSchemeRepository gradingSchemeRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private RegradeService regradeService;
+
+    @Autowired
+    private MarkColumnStore markColumnStore;
+
+    private volatile Schemes schemes;
+
+    // Not a monitor: loading blocks on JDBC, which would pin a virtual thread
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // Every compiled scheme, plus the per-subject resolutions made against them
+    private record Schemes(Map<Long, CompiledGradingScheme> subjects, Map<String, CompiledGradingScheme> departments,
+            CompiledGradingScheme global, Map<Long, CompiledGradingScheme> resolved) {
+    }
+
+    @PostConstruct
+    public void init() {
+        markColumnStore.setSchemeResolver(this::forSubject);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        schemes();
+    }
+
+    /** The scheme grading the subject's marks. */
+    public CompiledGradingScheme forSubject(Long subjectId) {
+        Schemes current = schemes();
+        if (subjectId == null)
+            return current.global();
+        CompiledGradingScheme scheme = current.resolved().get(subjectId);
+        if (scheme != null)
+            return scheme;
+        // Resolved outside the map: it may load the subject, which must not run under a bin lock
+        scheme = resolve(current, subjectId);
+        CompiledGradingScheme raced = current.resolved().putIfAbsent(subjectId, scheme);
+        return raced != null ? raced : scheme;
+    }
+
+    /** Forgets the subject's resolved scheme, e.g. after its faculty changed. */
+    public void evictSubject(Long subjectId) {
+        Schemes current = schemes;
+        if (current != null)
+            current.resolved().remove(subjectId);
+    }
+
+    /** Forgets every resolved scheme, e.g. after a faculty member's department changed. */
+    public void evictResolved() {
+        Schemes current = schemes;
+        if (current != null)
+            current.resolved().clear();
+    }
+
+    public List<GradingScheme> findAll() {
+        return gradingSchemeRepository.findAll();
+    }
+
+    public Optional<GradingScheme> findById(Long id) {
+        return gradingSchemeRepository.findById(id);
+    }
+
+    /**
+     * Creates or replaces a scheme (by id, or by its scope when the id is
+     * null) and queues the regrade of the subjects it can affect.
+     */
+    @Transactional
+    public Map<String, Object> save(GradingScheme scheme) {
+        if (scheme.getSubjectId() != null && scheme.getDepartment() != null)
+            throw new IllegalArgumentException("A scheme applies to a subject or a department, not both");
+        if (scheme.getSubjectId() != null && referenceDataCache.findSubject(scheme.getSubjectId()).isEmpty())
+            throw new IllegalArgumentException("Unknown subject " + scheme.getSubjectId());
+        if (scheme.getName() == null || scheme.getName().isBlank())
+            throw new IllegalArgumentException("A scheme needs a name");
+
+        String scope = scopeOf(scheme.getSubjectId(), scheme.getDepartment());
+        GradingScheme target = scheme.getId() != null
+                ? gradingSchemeRepository.findById(scheme.getId())
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown scheme " + scheme.getId()))
+                : gradingSchemeRepository.findByScope(scope).orElseGet(GradingScheme::new);
+        Set<Long> affected = new HashSet<>();
+        if (target.getId() != null)
+            affected.addAll(affectedSubjects(target));
+
+        target.setName(scheme.getName());
+        target.setScope(scope);
+        target.setSubjectId(scheme.getSubjectId());
+        target.setDepartment(scheme.getDepartment());
+        target.setBands(scheme.getBands());
+        target.setCurveFactor(scheme.getCurveFactor());
+        target.setCurveOffset(scheme.getCurveOffset());
+        target.setUpdatedAt(LocalDateTime.now());
+        // Rejects invalid bands before anything is written
+        CompiledGradingScheme.compile(target);
+
+        GradingScheme saved = gradingSchemeRepository.save(target);
+        affected.addAll(affectedSubjects(saved));
+        return Map.of("scheme", saved, "regradeJob", reloadAndRegrade(affected));
+    }
+
+    /** Deletes a scheme and regrades its subjects with whatever now applies to them. */
+    @Transactional
+    public Optional<Map<String, Object>> delete(Long id) {
+        Optional<GradingScheme> scheme = gradingSchemeRepository.findById(id);
+        if (scheme.isEmpty())
+            return Optional.empty();
+        Set<Long> affected = new HashSet<>(affectedSubjects(scheme.get()));
+        gradingSchemeRepository.delete(scheme.get());
+        return Optional.of(Map.of("regradeJob", reloadAndRegrade(affected)));
+    }
+
+    private RegradeJob reloadAndRegrade(Collection<Long> subjectIds) {
+        RegradeJob job = regradeService.create(subjectIds);
+        // New grades apply to writes once the scheme change is committed
+        afterCommit(() -> {
+            reload();
+            regradeService.submit(job, this::forSubject);
+        });
+        return job;
+    }
+
+    private List<Long> affectedSubjects(GradingScheme scheme) {
+        if (scheme.getSubjectId() != null)
+            return List.of(scheme.getSubjectId());
+        if (scheme.getDepartment() != null)
+            return subjectRepository.findIdsByFacultyDepartment(scheme.getDepartment());
+        return subjectRepository.findAllIds();
+    }
+
+    private CompiledGradingScheme resolve(Schemes current, Long subjectId) {
+        CompiledGradingScheme scheme = current.subjects().get(subjectId);
+        if (scheme != null)
+            return scheme;
+        String department = referenceDataCache.findSubject(subjectId).map(Subject::getFaculty)
+                .map(User::getDepartment).orElse(null);
+        if (department != null) {
+            scheme = current.departments().get(department.toLowerCase(Locale.ROOT));
+            if (scheme != null)
+                return scheme;
+        }
+        return current.global();
+    }
+
+    private Schemes schemes() {
+        Schemes current = schemes;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                current = schemes;
+                if (current == null)
+                    current = reload();
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private Schemes reload() {
+        reloadLock.lock();
+        try {
+            Map<Long, CompiledGradingScheme> subjects = new HashMap<>();
+            Map<String, CompiledGradingScheme> departments = new HashMap<>();
+            CompiledGradingScheme global = CompiledGradingScheme.DEFAULT;
+            for (GradingScheme scheme : gradingSchemeRepository.findAll()) {
+                CompiledGradingScheme compiled = CompiledGradingScheme.compile(scheme);
+                if (scheme.getSubjectId() != null) {
+                    subjects.put(scheme.getSubjectId(), compiled);
+                } else if (scheme.getDepartment() != null) {
+                    departments.put(scheme.getDepartment().toLowerCase(Locale.ROOT), compiled);
+                } else {
+                    global = compiled;
+                }
+            }
+            Schemes loaded = new Schemes(Map.copyOf(subjects), Map.copyOf(departments), global,
+                    new ConcurrentHashMap<>());
+            schemes = loaded;
+            return loaded;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static String scopeOf(Long subjectId, String department) {
+        if (subjectId != null)
+            return "SUBJECT:" + subjectId;
+        if (department != null)
+            return "DEPARTMENT:" + department.toLowerCase(Locale.ROOT);
+        return GLOBAL;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.model.ImportJob;
+import com.schooltracker.model.User;
+import com.schooltracker.repository.ImportJobErrorJdbcRepository;
+import com.schooltracker.repository.ImportJobRepository;
+import com.schooltracker.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable CSV imports (marks, users, enrollments).
+ *
+ * A client creates a job with the file's size and SHA-256, uploads it in
+ * chunks at byte offsets (a dropped connection resumes from receivedBytes)
+ * and completes it. The job then runs in the background in chunks of
+ * {@code tracker.bulk-upload.batch-size} rows; each chunk's rows, row errors
+ * and the job checkpoint (rowsProcessed) commit in one transaction, so a
+ * crashed or failed job resumes after its last committed chunk. Creating a
+ * job again for the same target and content returns the existing job.
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    public static final String MARKS = "MARKS";
+    public static final String USERS = "USERS";
+    public static final String ENROLLMENTS = "ENROLLMENTS";
+
+    public static final String UPLOADING = "UPLOADING";
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    // Same parsing as the synchronous upload endpoints
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true)
+            .setIgnoreHeaderCase(true).setTrim(true).build();
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private ImportJobErrorJdbcRepository importJobErrorJdbcRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MarkService markService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Value("${tracker.imports.dir:${java.io.tmpdir}/school-tracker-imports}")
+    private String importDir;
+
+    @Value("${tracker.bulk-upload.batch-size:500}")
+    private int batchSize;
+
+    private Path directory;
+    private ExecutorService jobRunner;
+    // Locks rather than monitors: a virtual thread blocked on file I/O inside synchronized pins its carrier
+    private final Map<Long, ReentrantLock> uploadLocks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Files.createDirectories(Paths.get(importDir));
+        // One job at a time: each chunk already writes a full JDBC batch
+        jobRunner = executionMode.newSingleThreadExecutor("import-job");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+    }
+
+    /** Picks up jobs that were queued or running when the application stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        List<ImportJob> pending = importJobRepository.findByStatusInOrderByIdAsc(List.of(QUEUED, RUNNING));
+        pending.forEach(job -> submit(job.getId()));
+        if (!pending.isEmpty())
+            log.info("Resumed {} import job(s)", pending.size());
+    }
+
+    public ImportJob create(String kind, Long subjectId, Long assessmentId, String fileName, long totalBytes,
+            String contentHash) {
+        String normalizedKind = kind == null ? "" : kind.toUpperCase(Locale.ROOT);
+        String scope;
+        switch (normalizedKind) {
+            case MARKS:
+                if (subjectId == null || assessmentId == null)
+                    throw new IllegalArgumentException("MARKS imports need subjectId and assessmentId");
+                scope = MARKS + ":" + subjectId + ":" + assessmentId;
+                break;
+            case ENROLLMENTS:
+                if (subjectId == null)
+                    throw new IllegalArgumentException("ENROLLMENTS imports need subjectId");
+                scope = ENROLLMENTS + ":" + subjectId;
+                break;
+            case USERS:
+                scope = USERS;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown import kind: " + kind);
+        }
+        if (totalBytes < 0)
+            throw new IllegalArgumentException("totalBytes must not be negative");
+        if (contentHash == null || !contentHash.matches("[0-9a-fA-F]{64}"))
+            throw new IllegalArgumentException("contentHash must be a hex SHA-256");
+        String hash = contentHash.toLowerCase(Locale.ROOT);
+
+        ImportJob existing = importJobRepository.findByScopeAndContentHash(scope, hash).orElse(null);
+        if (existing != null)
+            return existing;
+
+        ImportJob job = new ImportJob();
+        job.setKind(normalizedKind);
+        job.setScope(scope);
+        job.setSubjectId(USERS.equals(normalizedKind) ? null : subjectId);
+        job.setAssessmentId(MARKS.equals(normalizedKind) ? assessmentId : null);
+        job.setContentHash(hash);
+        job.setFileName(fileName);
+        job.setTotalBytes(totalBytes);
+        job.setStatus(UPLOADING);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        try {
+            return importJobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with an identical request
+            return importJobRepository.findByScopeAndContentHash(scope, hash).orElseThrow(() -> e);
+        }
+    }
+
+    public ImportJob getJob(Long id) {
+        return importJobRepository.findById(id).orElse(null);
+    }
+
+    public List<Map<String, Object>> getErrors(Long id, Long after, int limit) {
+        return importJobErrorJdbcRepository.findPage(id, after, limit);
+    }
+
+    /**
+     * Writes a chunk of the file at {@code offset}, which may not be past
+     * receivedBytes. Re-sending a chunk that already arrived overwrites it
+     * with the same bytes.
+     */
+    public ImportJob appendChunk(Long id, long offset, InputStream body) throws IOException {
+        ReentrantLock lock = uploadLocks.computeIfAbsent(id, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            ImportJob job = importJobRepository.findById(id).orElse(null);
+            if (job == null)
+                return null;
+            if (!UPLOADING.equals(job.getStatus()))
+                throw new IllegalStateException("Job " + id + " is " + job.getStatus());
+            if (offset < 0 || offset > job.getReceivedBytes())
+                throw new IllegalStateException("Expected offset at most " + job.getReceivedBytes());
+
+            long end;
+            try (FileChannel channel = FileChannel.open(file(job), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                channel.position(offset);
+                OutputStream out = Channels.newOutputStream(channel);
+                end = offset + body.transferTo(out);
+            }
+            if (end > job.getTotalBytes())
+                throw new IllegalStateException("Chunk ends at " + end + ", past the declared "
+                        + job.getTotalBytes() + " bytes");
+
+            job.setReceivedBytes(Math.max(job.getReceivedBytes(), end));
+            job.setUpdatedAt(LocalDateTime.now());
+            return importJobRepository.save(job);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Verifies the uploaded file against the declared hash and queues the job. */
+    public ImportJob complete(Long id) throws IOException {
+        ReentrantLock lock = uploadLocks.computeIfAbsent(id, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            ImportJob job = importJobRepository.findById(id).orElse(null);
+            if (job == null)
+                return null;
+            if (!UPLOADING.equals(job.getStatus()))
+                return job;
+            if (job.getReceivedBytes() != job.getTotalBytes())
+                throw new IllegalStateException("Received " + job.getReceivedBytes() + " of "
+                        + job.getTotalBytes() + " bytes");
+
+            Path file = file(job);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                channel.truncate(job.getTotalBytes());
+            }
+            if (!job.getContentHash().equals(sha256(file))) {
+                // Start the upload over rather than keep a job that can never match
+                job.setReceivedBytes(0);
+                job.setUpdatedAt(LocalDateTime.now());
+                importJobRepository.save(job);
+                throw new IllegalStateException("Uploaded content does not match contentHash; upload it again");
+            }
+
+            job.setStatus(QUEUED);
+            job.setUpdatedAt(LocalDateTime.now());
+            job = importJobRepository.save(job);
+            uploadLocks.remove(id);
+            submit(job.getId());
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Requeues a failed job; it continues after its last committed chunk. */
+    public ImportJob resume(Long id) {
+        ImportJob job = importJobRepository.findById(id).orElse(null);
+        if (job == null)
+            return null;
+        if (!FAILED.equals(job.getStatus()))
+            throw new IllegalStateException("Job " + id + " is " + job.getStatus());
+        job.setStatus(QUEUED);
+        job.setError(null);
+        job.setUpdatedAt(LocalDateTime.now());
+        job = importJobRepository.save(job);
+        submit(job.getId());
+        return job;
+    }
+
+    private void submit(Long id) {
+        jobRunner.submit(() -> run(id));
+    }
+
+    private void run(Long id) {
+        ImportJob job = importJobRepository.findById(id).orElse(null);
+        if (job == null || !(QUEUED.equals(job.getStatus()) || RUNNING.equals(job.getStatus())))
+            return;
+        job.setStatus(RUNNING);
+        job.setUpdatedAt(LocalDateTime.now());
+        job = importJobRepository.save(job);
+
+        Path file = file(job);
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+                CSVParser parser = new CSVParser(reader, FORMAT)) {
+            List<CSVRecord> chunk = new ArrayList<>(batchSize);
+            for (CSVRecord record : parser) {
+                // Rows up to the checkpoint were committed by an earlier run
+                if (record.getRecordNumber() <= job.getRowsProcessed())
+                    continue;
+                chunk.add(record);
+                if (chunk.size() >= batchSize) {
+                    job = processChunk(job.getId(), chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty())
+                job = processChunk(job.getId(), chunk);
+
+            job.setStatus(DONE);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setUpdatedAt(job.getFinishedAt());
+            importJobRepository.save(job);
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            ImportJob failed = importJobRepository.findById(id).orElse(job);
+            failed.setStatus(FAILED);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            failed.setError(message.length() > 500 ? message.substring(0, 500) : message);
+            failed.setUpdatedAt(LocalDateTime.now());
+            importJobRepository.save(failed);
+            log.warn("Import job {} failed", id, e);
+        }
+    }
+
+    private ImportJob processChunk(Long id, List<CSVRecord> chunk) {
+        return transactionTemplate.execute(status -> {
+            ImportJob job = importJobRepository.findById(id).orElseThrow();
+            List<CSVRecord> fresh = dropImportedRows(job, chunk);
+            BulkUploadResult result = fresh.isEmpty() ? new BulkUploadResult() : importRows(job, fresh);
+
+            job.setRowsProcessed(chunk.get(chunk.size() - 1).getRecordNumber());
+            job.setSuccessCount(job.getSuccessCount() + result.getSuccessCount());
+            job.setFailureCount(job.getFailureCount() + result.getFailureCount());
+            job.setSkippedCount(job.getSkippedCount() + chunk.size() - fresh.size() + result.getUnchangedCount()
+                    + result.getDuplicateCount());
+            job.setUpdatedAt(LocalDateTime.now());
+            importJobErrorJdbcRepository.insertBatch(job.getId(), result.getErrors());
+            return importJobRepository.save(job);
+        });
+    }
+
+    private BulkUploadResult importRows(ImportJob job, List<CSVRecord> records) {
+        switch (job.getKind()) {
+            case MARKS:
+                return markService.saveMarksBulk(records, job.getAssessmentId(), job.getSubjectId());
+            case USERS:
+                return userImportService.importUsers(records);
+            case ENROLLMENTS:
+                return enrollmentService.enrollBulk(job.getSubjectId(), records);
+            default:
+                throw new IllegalStateException("Unknown import kind: " + job.getKind());
+        }
+    }
+
+    /**
+     * User imports skip usernames that already exist. Marks need no filter:
+     * they are upserted per (student, assessment) and unchanged scores are
+     * skipped by MarkService; enrollment writes are INSERT IGNORE. Rows
+     * without a username are left for the importer to report.
+     */
+    private List<CSVRecord> dropImportedRows(ImportJob job, List<CSVRecord> chunk) {
+        if (!USERS.equals(job.getKind()))
+            return chunk;
+
+        Set<String> usernames = new HashSet<>();
+        for (CSVRecord record : chunk) {
+            String username = username(record);
+            if (username != null)
+                usernames.add(username);
+        }
+        if (usernames.isEmpty())
+            return chunk;
+
+        Set<String> existing = new HashSet<>();
+        for (User user : userRepository.findByUsernameIn(usernames))
+            existing.add(user.getUsername().toLowerCase(Locale.ROOT));
+        if (existing.isEmpty())
+            return chunk;
+
+        List<CSVRecord> fresh = new ArrayList<>(chunk.size());
+        for (CSVRecord record : chunk) {
+            String username = username(record);
+            if (username == null || !existing.contains(username.toLowerCase(Locale.ROOT)))
+                fresh.add(record);
+        }
+        return fresh;
+    }
+
+    private static String username(CSVRecord record) {
+        if (!record.isMapped("username") || !record.isSet("username"))
+            return null;
+        String username = record.get("username");
+        return username == null || username.isEmpty() ? null : username;
+    }
+
+    private Path file(ImportJob job) {
+        return directory.resolve(job.getId() + ".csv");
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
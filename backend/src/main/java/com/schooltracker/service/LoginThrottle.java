@@ -0,0 +1,60 @@
+package com.schooltracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recent failed logins per username, kept in a small bounded cache. Once a
+ * username reaches the limit, further attempts are refused without hashing
+ * until its window (counted from the first failure) has passed.
+ */
+@Component
+public class LoginThrottle {
+
+    @Value("${tracker.auth.max-failures:5}")
+    private int maxFailures;
+
+    @Value("${tracker.auth.failure-window-minutes:15}")
+    private long windowMinutes;
+
+    @Value("${tracker.auth.throttle-size:10000}")
+    private long size;
+
+    private Cache<String, AtomicInteger> failures;
+
+    @PostConstruct
+    public void init() {
+        failures = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofMinutes(windowMinutes))
+                .build();
+    }
+
+    public boolean isBlocked(String username) {
+        AtomicInteger count = failures.getIfPresent(key(username));
+        return count != null && count.get() >= maxFailures;
+    }
+
+    public void recordFailure(String username) {
+        failures.get(key(username), k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void reset(String username) {
+        failures.invalidate(key(username));
+    }
+
+    public long getRetryAfterSeconds() {
+        return windowMinutes * 60;
+    }
+
+    private static String key(String username) {
+        return username == null ? "" : username.toLowerCase(Locale.ROOT);
+    }
+}
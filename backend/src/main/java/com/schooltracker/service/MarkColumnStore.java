@@ -0,0 +1,420 @@
+package com.schooltracker.service;
+
+import com.schooltracker.dto.MarkColumnRow;
+import com.schooltracker.repository.MarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Analytics copy of the marks table held as primitive columns (int ids,
+ * float scores, byte grade codes) sorted by mark id. Aggregations are plain
+ * loops over the arrays, split across the common fork-join pool once the
+ * store is large, instead of walks over Mark entity graphs.
+ *
+ * Writes from MarkService are applied after commit. Marks removed with their
+ * student are tombstoned and compacted away in bulk. Ids must fit in an int.
+ */
+@Component
+public class MarkColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MarkColumnStore.class);
+
+    private static final byte DELETED = -1;
+    private static final int MAX_GRADES = 128;
+
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // One rebuild at a time; not a monitor, since a rebuild blocks on JDBC
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Grade codes are indexes into this list, which is also the histogram order; only ever appended to
+    private final List<String> grades = new CopyOnWriteArrayList<>(
+            List.of(CompiledGradingScheme.NOT_GRADED, "A", "B", "C", "D", "Fail"));
+    private final Map<String, Byte> gradeCodes = new ConcurrentHashMap<>();
+
+    // The scheme grading each subject, for which grades count as a pass; set by GradingPolicyService
+    private volatile Function<Long, CompiledGradingScheme> schemes = subjectId -> CompiledGradingScheme.DEFAULT;
+
+    // Guarded by lock
+    private Columns columns = new Columns(1024);
+
+    // Non-null while a rebuild runs: writes to replay on the new columns; guarded by lock
+    private List<Consumer<Columns>> replay;
+
+    public record SubjectAggregate(long subjectId, double totalObtained, double totalMax, long markCount,
+            long passCount) {
+    }
+
+    /** Per-subject totals (in the order requested) and the grade histogram over those subjects. */
+    public record Aggregate(List<SubjectAggregate> subjects, Map<String, Long> gradeCounts) {
+    }
+
+    public MarkColumnStore() {
+        for (int code = 0; code < grades.size(); code++) {
+            gradeCodes.put(grades.get(code), (byte) code);
+        }
+    }
+
+    public void setSchemeResolver(Function<Long, CompiledGradingScheme> schemes) {
+        this.schemes = schemes;
+    }
+
+    public void onSaved(Long markId, Long studentId, Long subjectId, Long assessmentId, Double obtainedMarks,
+            Double totalMarks, String grade) {
+        afterCommit(() -> write(target -> target.upsert(markId, Math.toIntExact(studentId),
+                Math.toIntExact(subjectId), Math.toIntExact(assessmentId), floatValue(obtainedMarks),
+                floatValue(totalMarks), encode(grade))));
+    }
+
+    /** Drops every mark of the given students. */
+    public void evictStudents(Collection<Long> studentIds) {
+        BitSet ids = new BitSet();
+        studentIds.forEach(id -> ids.set(Math.toIntExact(id)));
+        afterCommit(() -> write(target -> target.removeStudents(ids)));
+    }
+
+    /**
+     * A mark passes unless its subject's scheme lists its grade as failing;
+     * the histogram merges equal grade names across schemes.
+     */
+    public Aggregate aggregate(List<Long> subjectIds) {
+        // Resolved before taking the lock, since resolving a subject may hit the database
+        List<String> names = List.copyOf(grades);
+        boolean[] failing = new boolean[subjectIds.size() * MAX_GRADES];
+        for (int slot = 0; slot < subjectIds.size(); slot++) {
+            CompiledGradingScheme scheme = schemes.apply(subjectIds.get(slot));
+            for (int code = 0; code < names.size(); code++) {
+                failing[slot * MAX_GRADES + code] = scheme.isFailing(names.get(code));
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            Columns current = columns;
+            int[] slotOf = new int[current.maxSubject + 1];
+            Arrays.fill(slotOf, -1);
+            for (int slot = 0; slot < subjectIds.size(); slot++) {
+                long subjectId = subjectIds.get(slot);
+                if (subjectId < slotOf.length)
+                    slotOf[(int) subjectId] = slot;
+            }
+
+            int size = current.size;
+            int chunks = (size + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+            Partial total = chunks <= 1
+                    ? current.scan(0, size, slotOf, subjectIds.size(), failing)
+                    : IntStream.range(0, chunks).parallel()
+                            .mapToObj(chunk -> current.scan(chunk * PARALLEL_CHUNK,
+                                    Math.min(size, (chunk + 1) * PARALLEL_CHUNK), slotOf, subjectIds.size(),
+                                    failing))
+                            .reduce(Partial::merge)
+                            .orElseThrow();
+
+            List<SubjectAggregate> subjects = new ArrayList<>(subjectIds.size());
+            for (int slot = 0; slot < subjectIds.size(); slot++) {
+                if (total.count[slot] > 0) {
+                    subjects.add(new SubjectAggregate(subjectIds.get(slot), total.obtained[slot], total.max[slot],
+                            total.count[slot], total.pass[slot]));
+                }
+            }
+            Map<String, Long> gradeCounts = new LinkedHashMap<>();
+            List<String> seen = List.copyOf(grades);
+            for (int code = 0; code < seen.size(); code++) {
+                if (total.grades[code] > 0)
+                    gradeCounts.put(seen.get(code), total.grades[code]);
+            }
+            return new Aggregate(subjects, gradeCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Reloads every mark in one streaming pass and swaps the new columns in. */
+    public Map<String, Object> rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                replay = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Columns fresh = new Columns(1024);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<MarkColumnRow> rows = markRepository.streamAllColumnRows()) {
+                        rows.forEach(row -> fresh.upsert(row.markId(), Math.toIntExact(row.studentId()),
+                                Math.toIntExact(row.subjectId()), Math.toIntExact(row.assessmentId()),
+                                floatValue(row.obtainedMarks()), floatValue(row.totalMarks()), encode(row.grade())));
+                    }
+                });
+
+                lock.writeLock().lock();
+                try {
+                    replay.forEach(op -> op.accept(fresh));
+                    columns = fresh;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    replay = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            Map<String, Object> stats = getStats();
+            stats.put("millis", System.currentTimeMillis() - start);
+            return stats;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Map<String, Object> stats = rebuild();
+        log.info("Mark column store built: {}", stats);
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("marks", columns.size - columns.deleted);
+            stats.put("tombstones", columns.deleted);
+            stats.put("capacity", columns.markIds.length);
+            stats.put("bytes", (long) columns.markIds.length * Columns.BYTES_PER_ROW);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Consumer<Columns> op) {
+        lock.writeLock().lock();
+        try {
+            op.accept(columns);
+            if (replay != null)
+                replay.add(op);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Grades come from configurable schemes, so codes are handed out on first sight
+    private byte encode(String grade) {
+        String name = grade == null ? CompiledGradingScheme.NOT_GRADED : grade;
+        Byte code = gradeCodes.get(name);
+        if (code != null)
+            return code;
+        synchronized (gradeCodes) {
+            code = gradeCodes.get(name);
+            if (code == null) {
+                if (grades.size() == MAX_GRADES)
+                    throw new IllegalStateException("More than " + MAX_GRADES + " distinct grades");
+                code = (byte) grades.size();
+                grades.add(name);
+                gradeCodes.put(name, code);
+            }
+            return code;
+        }
+    }
+
+    private static float floatValue(Double value) {
+        return value == null ? 0f : value.floatValue();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** Growable parallel arrays, one row per mark, sorted by mark id. */
+    private static final class Columns {
+        static final int BYTES_PER_ROW = 8 + 4 + 4 + 4 + 4 + 4 + 1;
+
+        long[] markIds;
+        int[] students;
+        int[] subjects;
+        int[] assessments;
+        float[] obtained;
+        float[] totals;
+        byte[] grades;
+        int size;
+        int deleted;
+        int maxSubject;
+
+        Columns(int capacity) {
+            markIds = new long[capacity];
+            students = new int[capacity];
+            subjects = new int[capacity];
+            assessments = new int[capacity];
+            obtained = new float[capacity];
+            totals = new float[capacity];
+            grades = new byte[capacity];
+        }
+
+        void upsert(long markId, int student, int subject, int assessment, float obtainedMarks, float totalMarks,
+                byte grade) {
+            // New marks almost always carry the highest id so far
+            int index = size > 0 && markIds[size - 1] >= markId ? Arrays.binarySearch(markIds, 0, size, markId)
+                    : -(size + 1);
+            if (index < 0) {
+                index = -index - 1;
+                if (size == markIds.length)
+                    grow();
+                shift(index, index + 1, size - index);
+                size++;
+            } else if (grades[index] == DELETED) {
+                deleted--;
+            }
+            markIds[index] = markId;
+            students[index] = student;
+            subjects[index] = subject;
+            assessments[index] = assessment;
+            obtained[index] = obtainedMarks;
+            totals[index] = totalMarks;
+            grades[index] = grade;
+            maxSubject = Math.max(maxSubject, subject);
+        }
+
+        void removeStudents(BitSet ids) {
+            for (int i = 0; i < size; i++) {
+                if (grades[i] != DELETED && ids.get(students[i])) {
+                    grades[i] = DELETED;
+                    deleted++;
+                }
+            }
+            if (deleted > size / 4)
+                compact();
+        }
+
+        // failing is indexed by slot * MAX_GRADES + grade code
+        Partial scan(int from, int to, int[] slotOf, int slots, boolean[] failing) {
+            Partial partial = new Partial(slots);
+            for (int i = from; i < to; i++) {
+                byte grade = grades[i];
+                int subject = subjects[i];
+                if (grade == DELETED || subject >= slotOf.length)
+                    continue;
+                int slot = slotOf[subject];
+                if (slot < 0)
+                    continue;
+                partial.obtained[slot] += obtained[i];
+                partial.max[slot] += totals[i];
+                partial.count[slot]++;
+                if (!failing[slot * MAX_GRADES + grade])
+                    partial.pass[slot]++;
+                partial.grades[grade]++;
+            }
+            return partial;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (grades[i] != DELETED) {
+                    if (kept != i)
+                        shift(i, kept, 1);
+                    kept++;
+                }
+            }
+            size = kept;
+            deleted = 0;
+        }
+
+        private void shift(int from, int to, int length) {
+            System.arraycopy(markIds, from, markIds, to, length);
+            System.arraycopy(students, from, students, to, length);
+            System.arraycopy(subjects, from, subjects, to, length);
+            System.arraycopy(assessments, from, assessments, to, length);
+            System.arraycopy(obtained, from, obtained, to, length);
+            System.arraycopy(totals, from, totals, to, length);
+            System.arraycopy(grades, from, grades, to, length);
+        }
+
+        private void grow() {
+            int capacity = markIds.length * 2;
+            markIds = Arrays.copyOf(markIds, capacity);
+            students = Arrays.copyOf(students, capacity);
+            subjects = Arrays.copyOf(subjects, capacity);
+            assessments = Arrays.copyOf(assessments, capacity);
+            obtained = Arrays.copyOf(obtained, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+            grades = Arrays.copyOf(grades, capacity);
+        }
+    }
+
+    /** Accumulators of one scanned range. */
+    private static final class Partial {
+        final double[] obtained;
+        final double[] max;
+        final long[] count;
+        final long[] pass;
+        final long[] grades = new long[MAX_GRADES];
+
+        Partial(int slots) {
+            obtained = new double[slots];
+            max = new double[slots];
+            count = new long[slots];
+            pass = new long[slots];
+        }
+
+        Partial merge(Partial other) {
+            for (int slot = 0; slot < count.length; slot++) {
+                obtained[slot] += other.obtained[slot];
+                max[slot] += other.max[slot];
+                count[slot] += other.count[slot];
+                pass[slot] += other.pass[slot];
+            }
+            for (int code = 0; code < grades.length; code++) {
+                grades[code] += other.grades[code];
+            }
+            return this;
+        }
+    }
+}
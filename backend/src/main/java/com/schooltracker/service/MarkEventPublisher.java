@@ -0,0 +1,129 @@
+package com.schooltracker.service;
+
+import com.schooltracker.dto.MarkView;
+import com.schooltracker.dto.SubjectPerformanceRow;
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Mark;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pushes committed mark changes to the live dashboards: the mark itself plus
+ * the subject aggregate (and, for the student, their standing in the
+ * subject). Registered after the index updates of the same transaction, so
+ * the aggregates already include the mark.
+ */
+@Component
+public class MarkEventPublisher {
+
+    public static final String MARK = "mark";
+    public static final String BULK = "bulk";
+
+    @Autowired
+    private EventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private MarkColumnStore markColumnStore;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    public static String studentTopic(Long studentId) {
+        return "student:" + studentId;
+    }
+
+    public static String facultyTopic(Long facultyId) {
+        return "faculty:" + facultyId;
+    }
+
+    public void onSaved(Mark mark) {
+        afterCommit(() -> {
+            Subject subject = mark.getSubject();
+            SubjectPerformanceRow aggregate = subjectAggregate(subject);
+
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("mark", view(mark));
+            event.put("subject", aggregate);
+            if (subject.getFaculty() != null)
+                eventBroadcaster.publish(facultyTopic(subject.getFaculty().getId()), MARK, event);
+
+            event = new LinkedHashMap<>(event);
+            event.put("standing", standing(subject.getId(), mark.getStudent().getId()));
+            eventBroadcaster.publish(studentTopic(mark.getStudent().getId()), MARK, event);
+        });
+    }
+
+    /** One event per student, and a single summary event for the subject's faculty. */
+    public void onBulkSaved(List<Mark> marks, Subject subject) {
+        if (marks.isEmpty())
+            return;
+        afterCommit(() -> {
+            SubjectPerformanceRow aggregate = subjectAggregate(subject);
+            for (Mark mark : marks) {
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("mark", view(mark));
+                event.put("subject", aggregate);
+                event.put("standing", standing(subject.getId(), mark.getStudent().getId()));
+                eventBroadcaster.publish(studentTopic(mark.getStudent().getId()), MARK, event);
+            }
+            if (subject.getFaculty() != null) {
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("count", marks.size());
+                event.put("subject", aggregate);
+                eventBroadcaster.publish(facultyTopic(subject.getFaculty().getId()), BULK, event);
+            }
+        });
+    }
+
+    private MarkView view(Mark mark) {
+        User student = mark.getStudent();
+        Subject subject = mark.getSubject();
+        Assessment assessment = mark.getAssessment();
+        return new MarkView(mark.getId(), mark.getObtainedMarks(), mark.getGrade(), mark.getStatus(),
+                student.getId(), student.getName(), subject.getId(), subject.getName(), subject.getCode(),
+                assessment.getId(), assessment.getName(), assessment.getType(), assessment.getTotalMarks(),
+                assessment.getDate());
+    }
+
+    private SubjectPerformanceRow subjectAggregate(Subject subject) {
+        List<MarkColumnStore.SubjectAggregate> totals = markColumnStore.aggregate(List.of(subject.getId())).subjects();
+        if (totals.isEmpty())
+            return null;
+        MarkColumnStore.SubjectAggregate total = totals.get(0);
+        return new SubjectPerformanceRow(subject.getId(), subject.getName(), subject.getCode(), total.totalObtained(),
+                total.totalMax(), total.markCount(), total.passCount());
+    }
+
+    private Map<String, Object> standing(Long subjectId, Long studentId) {
+        ScoreCohort cohort = rankingIndex.subject(subjectId);
+        if (cohort == null || cohort.score(studentId) == null)
+            return null;
+        Map<String, Object> standing = new LinkedHashMap<>();
+        standing.put("score", cohort.score(studentId));
+        standing.put("rank", cohort.rank(studentId));
+        standing.put("percentile", cohort.percentile(studentId));
+        standing.put("cohortSize", cohort.size());
+        return standing;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,90 +1,120 @@
 package com.schooltracker.service;
 
+import com.schooltracker.dto.Cursor;
+import com.schooltracker.dto.MarkKeyRow;
+import com.schooltracker.dto.MarkView;
 import com.schooltracker.model.Assessment;
 import com.schooltracker.model.Mark;
+import com.schooltracker.model.Notification;
 import com.schooltracker.model.Subject;
 import com.schooltracker.model.User;
+import com.schooltracker.repository.MarkJdbcRepository;
 import com.schooltracker.repository.MarkRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class MarkService {
 
+    private static final Logger log = LoggerFactory.getLogger(MarkService.class);
+
     @Autowired
     private MarkRepository markRepository;
 
     @Autowired
-    private com.schooltracker.repository.AssessmentRepository assessmentRepository;
+    private com.schooltracker.repository.UserRepository userRepository;
 
     @Autowired
-    private com.schooltracker.repository.UserRepository userRepository;
+    private NotificationService notificationService;
+
+    @Autowired
+    private MarkJdbcRepository markJdbcRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MarkTrendIndex trendIndex;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private MarkColumnStore markColumnStore;
+
+    @Autowired
+    private MarkEventPublisher markEventPublisher;
 
     @Autowired
-    private com.schooltracker.repository.SubjectRepository subjectRepository;
+    private ReferenceDataCache referenceDataCache;
 
     @Autowired
-    private EmailService emailService;
+    private BulkUploadMetrics bulkUploadMetrics;
 
     @Autowired
-    private SMSService smsService;
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private GradingPolicyService gradingPolicyService;
+
+    @Value("${tracker.bulk-upload.batch-size:500}")
+    private int bulkBatchSize;
 
     /**
-     * Business Logic for Grading (Requirement):
+     * Business Logic for Grading (Requirement), the built-in scheme used
+     * where no grading scheme is configured:
      * ≥75 → Grade A
      * 60–74 → Grade B
      * 50–59 → Grade C
+     * 40–49 → Grade D
      * <40 → Fail
+     * Marks are graded with GradingPolicyService.forSubject.
      */
     public String calculateGrade(Double obtained, Double total) {
-        if (total == null || total == 0)
-            return "-";
-        double percentage = (obtained / total) * 100;
-
-        if (percentage >= 75)
-            return "A";
-        if (percentage >= 60)
-            return "B";
-        if (percentage >= 50)
-            return "C";
-        if (percentage < 40)
-            return "Fail";
-
-        return "D"; // Default case for 40-49 if not specified
+        return CompiledGradingScheme.DEFAULT.grade(obtained, total);
     }
 
     /**
      * Business Logic for Performance Status (Requirement):
-     * Fetches previous assessment marks (same subject)
+     * Looks up the previous assessment mark (same subject) in the trend index
      * Compares current vs previous performance
      */
     public String calculateStatus(User student, Subject subject, Double currentObtained, Double currentTotal,
             Long currentMarkId) {
-        List<Mark> previousMarks = markRepository.findByStudentAndSubject(student, subject);
-
-        if (previousMarks.isEmpty()) {
-            return "New";
-        }
+        return Observation.createNotStarted("tracker.marks.status", observationRegistry).observe(() -> {
+            // Latest by Assessment Date, then Assessment ID, excluding the current mark
+            // (if it exists) to prevent self-comparison
+            MarkTrendIndex.Point lastMark = trendIndex.latest(student.getId(), subject.getId(), currentMarkId);
 
-        // Filter out the current mark (if it exists) to prevent self-comparison
-        // Sort by Assessment Date DESC, then by Assessment ID DESC to handle same-day
-        // assessments
-        Mark lastMark = previousMarks.stream()
-                .filter(m -> currentMarkId == null || !m.getId().equals(currentMarkId))
-                .sorted(Comparator.comparing((Mark m) -> m.getAssessment().getDate()).reversed()
-                        .thenComparing(Comparator.comparing((Mark m) -> m.getAssessment().getId()).reversed()))
-                .findFirst()
-                .orElse(null);
+            if (lastMark == null)
+                return "New";
 
-        if (lastMark == null)
-            return "New";
-
-        double currentPercentage = (currentObtained / currentTotal) * 100;
-        double lastPercentage = (lastMark.getObtainedMarks() / lastMark.getAssessment().getTotalMarks()) * 100;
+            double currentPercentage = (currentObtained / currentTotal) * 100;
+            return compareTrend(currentPercentage, lastMark.percentage());
+        });
+    }
 
+    private String compareTrend(double currentPercentage, double lastPercentage) {
         if (currentPercentage > lastPercentage)
             return "Improved";
         if (currentPercentage < lastPercentage)
@@ -92,36 +122,236 @@ public class MarkService {
         return "Same";
     }
 
+    /**
+     * Saves the student's mark for the assessment: the (student, assessment)
+     * pair is the row key, so a second save replaces the score. An unchanged
+     * score returns the stored mark without re-grading or notifying.
+     */
+    @Transactional
     public Mark saveMark(Mark mark) {
+        return Observation.createNotStarted("tracker.marks.save", observationRegistry).observe(() -> upsertMark(mark));
+    }
+
+    private Mark upsertMark(Mark mark) {
         // Fetch full entities to ensure we have all data (totalMarks, etc.)
-        Assessment assessment = assessmentRepository.findById(mark.getAssessment().getId()).orElse(null);
-        User student = userRepository.findById(mark.getStudent().getId()).orElse(null);
-        Subject subject = subjectRepository.findById(mark.getSubject().getId()).orElse(null);
+        Assessment assessment = referenceDataCache.findAssessment(mark.getAssessment().getId()).orElse(null);
+        User student = referenceDataCache.findUser(mark.getStudent().getId()).orElse(null);
+        Subject subject = referenceDataCache.findSubject(mark.getSubject().getId()).orElse(null);
 
         if (assessment == null || student == null || subject == null) {
             throw new RuntimeException("Invalid Assessment, Student, or Subject ID");
         }
 
+        MarkKeyRow existing = markRepository.findKeyRows(assessment.getId(), List.of(student.getId())).stream()
+                .findFirst().orElse(null);
+        if (existing != null && Objects.equals(existing.obtainedMarks(), mark.getObtainedMarks())) {
+            return markRepository.findById(existing.markId()).orElseThrow();
+        }
+
+        mark.setId(existing == null ? null : existing.markId());
         mark.setAssessment(assessment);
         mark.setStudent(student);
         mark.setSubject(subject);
 
-        // 1. Calculate Grade automatically
-        mark.setGrade(calculateGrade(mark.getObtainedMarks(), assessment.getTotalMarks()));
+        // 1. Calculate Grade automatically, with the subject's grading scheme
+        mark.setGrade(gradingPolicyService.forSubject(subject.getId()).grade(mark.getObtainedMarks(),
+                assessment.getTotalMarks()));
 
         // 2. Calculate Performance Status automatically (using percentages)
         mark.setStatus(
                 calculateStatus(student, subject, mark.getObtainedMarks(), assessment.getTotalMarks(), mark.getId()));
 
-        Mark savedMark = markRepository.save(mark);
+        markJdbcRepository.upsertBatch(List.of(mark));
+        assignInsertedIds(List.of(mark), assessment);
+        trendIndex.onSaved(mark.getId(), student.getId(), subject.getId(), assessment.getId(),
+                assessment.getDate(), (mark.getObtainedMarks() / assessment.getTotalMarks()) * 100);
+        rankingIndex.onSaved(student.getId(), subject.getId());
+        markColumnStore.onSaved(mark.getId(), student.getId(), subject.getId(), assessment.getId(),
+                mark.getObtainedMarks(), assessment.getTotalMarks(), mark.getGrade());
+        markEventPublisher.onSaved(mark);
+
+        // 3. Queue Email/SMS Notifications (sent asynchronously by the dispatcher)
+        notificationService.enqueue(buildPerformanceNotifications(mark));
+
+        return mark;
+    }
+
+    /**
+     * Streaming bulk ingest for one assessment sheet (columns: username,
+     * obtainedMarks). Records are consumed in chunks of
+     * {@code tracker.bulk-upload.batch-size}: each chunk resolves its usernames
+     * and the students' stored marks for the assessment in one query each,
+     * grades and trends the new or changed rows against the MarkTrendIndex and
+     * upserts them as one JDBC batch. Re-uploading a corrected sheet therefore
+     * only rewrites (and notifies) the rows whose score changed; when a
+     * student appears twice, the later row wins and the earlier one is
+     * reported as a duplicate.
+     */
+    public BulkUploadResult saveMarksBulk(Iterable<CSVRecord> records, Long assessmentId, Long subjectId) {
+        Assessment assessment = referenceDataCache.findAssessment(assessmentId).orElse(null);
+        Subject subject = referenceDataCache.findSubject(subjectId).orElse(null);
+
+        if (assessment == null || subject == null) {
+            throw new RuntimeException("Invalid Assessment or Subject ID");
+        }
+
+        long start = System.nanoTime();
+        BulkUploadResult result = new BulkUploadResult();
+        List<CSVRecord> chunk = new ArrayList<>(bulkBatchSize);
+
+        for (CSVRecord csvRecord : records) {
+            chunk.add(csvRecord);
+            if (chunk.size() >= bulkBatchSize) {
+                ingestChunk(chunk, assessment, subject, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            ingestChunk(chunk, assessment, subject, result);
+        }
+
+        bulkUploadMetrics.record("marks", result, System.nanoTime() - start);
+        return result;
+    }
+
+    private void ingestChunk(List<CSVRecord> chunk, Assessment assessment, Subject subject,
+            BulkUploadResult result) {
+        // 1. Parse rows, keeping parse errors in row order for the report
+        List<BulkRow> rows = new ArrayList<>(chunk.size());
+        Set<String> usernames = new HashSet<>();
+        for (CSVRecord csvRecord : chunk) {
+            BulkRow row = new BulkRow(csvRecord.getRecordNumber());
+            try {
+                row.username = csvRecord.get("username");
+                row.obtainedMarks = Double.parseDouble(csvRecord.get("obtainedMarks"));
+                usernames.add(row.username.toLowerCase(Locale.ROOT));
+            } catch (Exception e) {
+                row.error = e.getMessage();
+            }
+            rows.add(row);
+        }
+
+        // 2. Resolve every username of the chunk in one query
+        Map<String, User> studentsByUsername = new HashMap<>();
+        if (!usernames.isEmpty()) {
+            for (User user : userRepository.findByUsernameIn(usernames)) {
+                studentsByUsername.put(user.getUsername().toLowerCase(Locale.ROOT), user);
+            }
+        }
+
+        // 3. Latest row per student; report the rest
+        Map<Long, BulkRow> rowsByStudent = new LinkedHashMap<>();
+        for (BulkRow row : rows) {
+            if (row.error != null) {
+                result.failure("Error processing row " + row.recordNumber + ": " + row.error);
+                continue;
+            }
+
+            User student = studentsByUsername.get(row.username.toLowerCase(Locale.ROOT));
+            if (student == null) {
+                result.failure("Student not found for username: " + row.username);
+                continue;
+            }
+            row.student = student;
+            BulkRow replaced = rowsByStudent.put(student.getId(), row);
+            if (replaced != null)
+                result.duplicate("Row " + replaced.recordNumber + " replaced by row " + row.recordNumber
+                        + " for username: " + row.username);
+        }
+        if (rowsByStudent.isEmpty())
+            return;
+
+        // 4. Stored marks of these students for the assessment, in one query
+        Map<Long, MarkKeyRow> stored = new HashMap<>();
+        for (MarkKeyRow key : markRepository.findKeyRows(assessment.getId(), rowsByStudent.keySet())) {
+            stored.put(key.studentId(), key);
+        }
 
-        // 3. Send Email Notification
-        sendPerformanceEmail(savedMark);
+        // 5. Grade and trend the new or changed rows in memory against the trend index
+        CompiledGradingScheme scheme = gradingPolicyService.forSubject(subject.getId());
+        List<Mark> marks = new ArrayList<>(rowsByStudent.size());
+        List<Long> markRows = new ArrayList<>(rowsByStudent.size());
+        for (BulkRow row : rowsByStudent.values()) {
+            MarkKeyRow previous = stored.get(row.student.getId());
+            if (previous != null && Objects.equals(previous.obtainedMarks(), row.obtainedMarks))
+                continue;
+
+            Mark mark = new Mark();
+            mark.setId(previous == null ? null : previous.markId());
+            mark.setObtainedMarks(row.obtainedMarks);
+            mark.setStudent(row.student);
+            mark.setSubject(subject);
+            mark.setAssessment(assessment);
+            mark.setGrade(scheme.grade(row.obtainedMarks, assessment.getTotalMarks()));
+
+            // Compared with the student's latest other mark in the subject, never the one being replaced
+            double percentage = (row.obtainedMarks / assessment.getTotalMarks()) * 100;
+            MarkTrendIndex.Point last = trendIndex.latest(row.student.getId(), subject.getId(), mark.getId());
+            mark.setStatus(last == null ? "New" : compareTrend(percentage, last.percentage()));
+
+            marks.add(mark);
+            markRows.add(row.recordNumber);
+        }
+        result.unchanged(rowsByStudent.size() - marks.size());
+        if (marks.isEmpty())
+            return;
 
-        return savedMark;
+        // 6. Upsert the chunk and queue its notifications as one batch; a failed batch fails all of its rows
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                markJdbcRepository.upsertBatch(marks);
+                assignInsertedIds(marks, assessment);
+                List<Notification> notifications = new ArrayList<>();
+                for (Mark mark : marks) {
+                    notifications.addAll(buildPerformanceNotifications(mark));
+                }
+                notificationService.enqueue(notifications);
+                for (Mark mark : marks) {
+                    trendIndex.onSaved(mark.getId(), mark.getStudent().getId(), subject.getId(), assessment.getId(),
+                            assessment.getDate(), (mark.getObtainedMarks() / assessment.getTotalMarks()) * 100);
+                    markColumnStore.onSaved(mark.getId(), mark.getStudent().getId(), subject.getId(),
+                            assessment.getId(), mark.getObtainedMarks(), assessment.getTotalMarks(), mark.getGrade());
+                }
+                rankingIndex.onSavedAll(subject.getId(), marks.stream().map(m -> m.getStudent().getId()).toList());
+                markEventPublisher.onBulkSaved(marks, subject);
+            });
+        } catch (Exception e) {
+            for (int i = 0; i < marks.size(); i++) {
+                result.failure("Error processing row " + markRows.get(i) + ": " + e.getMessage());
+            }
+            return;
+        }
+        result.success(marks.size());
+    }
+
+    // Ids of the rows the upsert inserted, read back by (student, assessment)
+    private void assignInsertedIds(List<Mark> marks, Assessment assessment) {
+        Map<Long, Mark> inserted = new HashMap<>();
+        for (Mark mark : marks) {
+            if (mark.getId() == null)
+                inserted.put(mark.getStudent().getId(), mark);
+        }
+        if (inserted.isEmpty())
+            return;
+        for (MarkKeyRow key : markRepository.findKeyRows(assessment.getId(), inserted.keySet())) {
+            inserted.get(key.studentId()).setId(key.markId());
+        }
     }
 
-    private void sendPerformanceEmail(Mark mark) {
+    private static final class BulkRow {
+        private final long recordNumber;
+        private String username;
+        private Double obtainedMarks;
+        private User student;
+        private String error;
+
+        private BulkRow(long recordNumber) {
+            this.recordNumber = recordNumber;
+        }
+    }
+
+    private List<Notification> buildPerformanceNotifications(Mark mark) {
+        List<Notification> notifications = new ArrayList<>();
         try {
             User student = mark.getStudent();
             String subjectName = mark.getSubject().getName();
@@ -150,16 +380,21 @@ public class MarkService {
 
             messageBody += "\nBest Regards,\nStudent Performance Tracker System";
 
-            // Send to Student
+            // Summary lines for digest mode; parents may get several children's results in one digest
+            String digestLine = String.format("%s (%s): %.1f / %.1f, Grade %s, Trend %s", assessmentName, subjectName,
+                    obtained, total, grade, trend);
+            String parentDigestLine = student.getName() + " - " + digestLine;
+
+            // Email to Student
             if (student.getEmail() != null && !student.getEmail().isEmpty()) {
-                System.out.println("Sending student email to: " + student.getEmail());
-                emailService.sendEmail(student.getEmail(), subject, messageBody);
+                Notification email = notificationService.email(student.getEmail(), subject, messageBody);
+                email.setDigestLine(digestLine);
+                notifications.add(email);
             }
 
-            // Send to Parent (if available and different from student email)
+            // Email to Parent (if available and different from student email)
             if (student.getParentsEmail() != null && !student.getParentsEmail().isEmpty()
                     && !student.getParentsEmail().equalsIgnoreCase(student.getEmail())) {
-                System.out.println("Sending parent email to: " + student.getParentsEmail());
                 String parentBody = String.format(
                         "Dear Parent,\n\n" +
                                 "This is an update regarding your child %s's performance.\n\n" +
@@ -176,35 +411,45 @@ public class MarkService {
                 }
 
                 parentBody += "\nBest Regards,\nStudent Performance Tracker System";
-                emailService.sendEmail(student.getParentsEmail(), subject, parentBody);
+                Notification email = notificationService.email(student.getParentsEmail(), subject, parentBody);
+                email.setDigestLine(parentDigestLine);
+                notifications.add(email);
             }
 
-            // Send SMS to Parent (if available)
+            // SMS to Parent (if available)
             String parentMobile = student.getParentsMobile();
-            System.out.println("Processing SMS check for student: " + student.getName() + ", Parent Mobile: ["
-                    + parentMobile + "]");
-
             if (parentMobile != null && !parentMobile.trim().isEmpty()) {
-                System.out.println("Triggering SMSService for: " + parentMobile);
                 String smsContent = String.format(
                         "Tracker Alert: %s scored %.1f/%.1f in %s. Grade: %s. Trend: %s.",
                         student.getName(), obtained, total, assessmentName, grade, trend);
-                smsService.sendSMS(parentMobile, smsContent);
-            } else {
-                System.out.println("No parent mobile found for student: " + student.getName());
+                Notification sms = notificationService.sms(parentMobile, smsContent);
+                sms.setDigestLine(parentDigestLine);
+                notifications.add(sms);
             }
 
         } catch (Exception e) {
-            System.err.println("Failed to send email: " + e.getMessage());
-            e.printStackTrace(); // Added stack trace for better debugging
+            log.warn("Failed to build notifications for mark {}", mark.getId(), e);
         }
+        return notifications;
+    }
+
+    /** Ordered by assessment date, then mark id. */
+    public List<MarkView> getMarksByStudent(Long studentId, Cursor after, Pageable pageable) {
+        Cursor from = Cursor.orStart(after);
+        return markRepository.findViewsByStudentId(studentId, from.id(), from.date(), pageable);
+    }
+
+    /** Ordered by assessment date, then mark id. */
+    public List<MarkView> getMarksByFaculty(Long facultyId, Cursor after, Pageable pageable) {
+        Cursor from = Cursor.orStart(after);
+        return markRepository.findViewsByFacultyId(facultyId, from.id(), from.date(), pageable);
     }
 
-    public List<Mark> getMarksByStudent(User student) {
-        return markRepository.findByStudent(student);
+    public Stream<MarkView> streamMarksByStudent(Long studentId) {
+        return markRepository.streamViewsByStudentId(studentId);
     }
 
-    public List<Mark> getMarksByFaculty(User faculty) {
-        return markRepository.findBySubjectFaculty(faculty);
+    public Stream<MarkView> streamMarksByFaculty(Long facultyId) {
+        return markRepository.streamViewsByFacultyId(facultyId);
     }
 }
@@ -0,0 +1,337 @@
+package com.schooltracker.service;
+
+import com.schooltracker.dto.MarkHistoryRow;
+import com.schooltracker.repository.MarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory window of the last {@code tracker.timeline.window} marks per
+ * (student, subject), ordered the same way calculateStatus always has:
+ * assessment date, then assessment id, with rolling aggregates (moving
+ * average, min/max, standard deviation, slope) recomputed from the window on
+ * each write. The window size is fixed, so reads and writes cost the same
+ * however long the history is.
+ *
+ * Inserts and updates merge into the window in place. Deleting a mark held
+ * in the window reloads that single key from the database, since the mark
+ * that slides back in is not kept; changing an assessment's date or total
+ * reloads every key with a mark in it. Changes made inside a transaction are
+ * applied after commit, to a rebuild in progress as well.
+ */
+@Component
+public class MarkTrendIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MarkTrendIndex.class);
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${tracker.timeline.window:10}")
+    private int window = 10;
+
+    // Percentage points per assessment beyond which the trend is no longer "Stable"
+    @Value("${tracker.timeline.slope-threshold:1.0}")
+    private double slopeThreshold = 1.0;
+
+    // studentId -> subjectId -> slot, so a student's timeline is a single lookup
+    private volatile Map<Long, Map<Long, Slot>> slots = new ConcurrentHashMap<>();
+
+    // Non-null while a rebuild runs, so concurrent writes reach the new map too
+    private volatile Map<Long, Map<Long, Slot>> rebuilding;
+
+    public record Point(Long markId, LocalDate date, Long assessmentId, double percentage) {
+        public static final Comparator<Point> ORDER = Comparator
+                .comparing(Point::date, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Point::assessmentId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        public boolean isAfter(Point other) {
+            return ORDER.compare(this, other) > 0;
+        }
+    }
+
+    /** Aggregates over the points of one window; percentages rounded to two decimals. */
+    public record Stats(int count, double average, double min, double max, double stdDev, double slope,
+            String trend) {
+    }
+
+    /** One subject of a student: the window, oldest first, and its aggregates. */
+    public record Slot(List<Point> points, Stats stats) {
+        public Point latest() {
+            return points.get(points.size() - 1);
+        }
+
+        private boolean contains(Long markId) {
+            return markId != null && points.stream().anyMatch(p -> markId.equals(p.markId()));
+        }
+    }
+
+    /**
+     * Most recent mark of the student in the subject, ignoring {@code excludeMarkId}
+     * (the mark being re-graded). Null when there is no earlier mark.
+     */
+    public Point latest(Long studentId, Long subjectId, Long excludeMarkId) {
+        Slot slot = slot(studentId, subjectId);
+        if (slot == null)
+            return null;
+        List<Point> points = slot.points();
+        for (int i = points.size() - 1; i >= 0; i--) {
+            Point point = points.get(i);
+            if (excludeMarkId == null || !excludeMarkId.equals(point.markId()))
+                return point;
+        }
+        return null;
+    }
+
+    public Slot slot(Long studentId, Long subjectId) {
+        Map<Long, Slot> subjects = slots.get(studentId);
+        return subjects == null ? null : subjects.get(subjectId);
+    }
+
+    /** Every subject the student has marks in, keyed by subject id. */
+    public Map<Long, Slot> timeline(Long studentId) {
+        Map<Long, Slot> subjects = slots.get(studentId);
+        return subjects == null ? Map.of() : Map.copyOf(subjects);
+    }
+
+    /** Records an inserted or updated mark. */
+    public void onSaved(Long markId, Long studentId, Long subjectId, Long assessmentId, LocalDate date,
+            double percentage) {
+        Point point = new Point(markId, date, assessmentId, percentage);
+        afterCommit(() -> {
+            apply(slots, studentId, subjectId, point);
+            Map<Long, Map<Long, Slot>> pending = rebuilding;
+            if (pending != null)
+                apply(pending, studentId, subjectId, point);
+        });
+    }
+
+    /** Records a deleted mark. */
+    public void onDeleted(Long markId, Long studentId, Long subjectId) {
+        afterCommit(() -> {
+            Map<Long, Map<Long, Slot>> pending = rebuilding;
+            if (contains(slots, studentId, subjectId, markId)
+                    || (pending != null && contains(pending, studentId, subjectId, markId)))
+                reload(markRepository.findHistoryRows(subjectId, List.of(studentId)), studentId, subjectId);
+        });
+    }
+
+    /**
+     * Records a changed assessment date or total: the marks of that assessment
+     * may move within their windows, or into or out of them.
+     */
+    public void onAssessmentChanged(Long assessmentId) {
+        afterCommit(() -> {
+            Map<Long, Map<Long, List<MarkHistoryRow>>> keys = new LinkedHashMap<>();
+            for (MarkHistoryRow row : markRepository.findHistoryRowsSharingAssessment(assessmentId))
+                keys.computeIfAbsent(row.getStudentId(), id -> new LinkedHashMap<>())
+                        .computeIfAbsent(row.getSubjectId(), id -> new ArrayList<>()).add(row);
+            keys.forEach((studentId, subjects) -> subjects
+                    .forEach((subjectId, rows) -> reload(rows, studentId, subjectId)));
+        });
+    }
+
+    /** Drops every slot of the students whose marks were removed wholesale. */
+    public void evictStudents(Collection<Long> studentIds) {
+        Set<Long> ids = new HashSet<>(studentIds);
+        afterCommit(() -> slots.keySet().removeAll(ids));
+    }
+
+    /**
+     * Reconstructs the whole index from the marks table in one streaming pass
+     * and swaps it in.
+     */
+    public Map<String, Object> rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, Map<Long, Slot>> fresh = new ConcurrentHashMap<>();
+        rebuilding = fresh;
+        long[] count = new long[1];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<MarkHistoryRow> rows = markRepository.streamAllHistoryRows()) {
+                    rows.forEach(row -> {
+                        Point point = toPoint(row);
+                        if (point == null)
+                            return;
+                        apply(fresh, row.getStudentId(), row.getSubjectId(), point);
+                        count[0]++;
+                    });
+                }
+            });
+            slots = fresh;
+        } finally {
+            rebuilding = null;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("marks", count[0]);
+        stats.put("students", fresh.size());
+        stats.put("keys", fresh.values().stream().mapToInt(Map::size).sum());
+        stats.put("window", capacity());
+        stats.put("millis", System.currentTimeMillis() - start);
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Map<String, Object> stats = rebuild();
+        log.info("Mark trend index built: {}", stats);
+    }
+
+    public int size() {
+        return slots.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void apply(Map<Long, Map<Long, Slot>> target, Long studentId, Long subjectId, Point point) {
+        target.computeIfAbsent(studentId, id -> new ConcurrentHashMap<>())
+                .compute(subjectId, (id, slot) -> merge(slot, point));
+    }
+
+    /**
+     * The window with the point added, or replacing the same mark. A point
+     * older than everything in a full window is left out.
+     */
+    private Slot merge(Slot slot, Point point) {
+        List<Point> points = new ArrayList<>(slot == null ? 1 : slot.points().size() + 1);
+        boolean placed = false;
+        if (slot != null) {
+            for (Point existing : slot.points()) {
+                if (existing.markId() != null && existing.markId().equals(point.markId()))
+                    continue;
+                if (!placed && existing.isAfter(point)) {
+                    points.add(point);
+                    placed = true;
+                }
+                points.add(existing);
+            }
+        }
+        if (!placed)
+            points.add(point);
+        int capacity = capacity();
+        if (points.size() > capacity)
+            points = points.subList(points.size() - capacity, points.size());
+        return toSlot(points);
+    }
+
+    /** Replaces one key with the window of its rows, in the live index and any rebuild. */
+    private void reload(List<MarkHistoryRow> rows, Long studentId, Long subjectId) {
+        Slot slot = null;
+        for (MarkHistoryRow row : rows) {
+            Point point = toPoint(row);
+            if (point != null)
+                slot = merge(slot, point);
+        }
+        put(slots, studentId, subjectId, slot);
+        Map<Long, Map<Long, Slot>> pending = rebuilding;
+        if (pending != null)
+            put(pending, studentId, subjectId, slot);
+    }
+
+    private static void put(Map<Long, Map<Long, Slot>> target, Long studentId, Long subjectId, Slot slot) {
+        Map<Long, Slot> subjects = target.computeIfAbsent(studentId, id -> new ConcurrentHashMap<>());
+        if (slot == null) {
+            subjects.remove(subjectId);
+        } else {
+            subjects.put(subjectId, slot);
+        }
+    }
+
+    private static boolean contains(Map<Long, Map<Long, Slot>> target, Long studentId, Long subjectId,
+            Long markId) {
+        Map<Long, Slot> subjects = target.get(studentId);
+        Slot slot = subjects == null ? null : subjects.get(subjectId);
+        return slot != null && slot.contains(markId);
+    }
+
+    private Slot toSlot(List<Point> points) {
+        int n = points.size();
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (Point point : points) {
+            sum += point.percentage();
+            min = Math.min(min, point.percentage());
+            max = Math.max(max, point.percentage());
+        }
+        double mean = sum / n;
+
+        // Population variance, and the least-squares slope against the position in the window
+        double squares = 0;
+        double covariance = 0;
+        double spread = 0;
+        double middle = (n - 1) / 2.0;
+        for (int i = 0; i < n; i++) {
+            double deviation = points.get(i).percentage() - mean;
+            squares += deviation * deviation;
+            covariance += (i - middle) * deviation;
+            spread += (i - middle) * (i - middle);
+        }
+        double slope = spread == 0 ? 0 : covariance / spread;
+
+        String trend;
+        if (n < 2)
+            trend = "New";
+        else if (slope >= slopeThreshold)
+            trend = "Improving";
+        else if (slope <= -slopeThreshold)
+            trend = "Declining";
+        else
+            trend = "Stable";
+
+        Stats stats = new Stats(n, round(mean), round(min), round(max), round(Math.sqrt(squares / n)),
+                round(slope), trend);
+        return new Slot(List.copyOf(points), stats);
+    }
+
+    private int capacity() {
+        return Math.max(2, window);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /** Null for a mark without a score or of an assessment without a total, which has no percentage. */
+    private Point toPoint(MarkHistoryRow row) {
+        if (row.getObtainedMarks() == null || row.getTotalMarks() == null || row.getTotalMarks() <= 0)
+            return null;
+        return new Point(row.getMarkId(), row.getAssessmentDate(), row.getAssessmentId(),
+                (row.getObtainedMarks() / row.getTotalMarks()) * 100);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.Notification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Digest mode of the notification outbox, on when
+ * tracker.notifications.digest-window-seconds is positive. Notifications
+ * with a digest line are held back for the window, and all of a
+ * recipient's held notifications that are claimed together go out as one
+ * message: an email listing every line, or one SMS.
+ */
+@Component
+public class NotificationDigester {
+
+    // Twilio's limit for a (multi-part) SMS body
+    private static final int SMS_MAX_LENGTH = 1600;
+
+    @Value("${tracker.notifications.digest-window-seconds:0}")
+    private long windowSeconds;
+
+    /** What is sent once, and the outbox rows whose outcome it decides. */
+    public record Delivery(Notification message, List<Notification> notifications) {
+    }
+
+    public boolean isEnabled() {
+        return windowSeconds > 0;
+    }
+
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    /**
+     * One delivery per (channel, recipient) for notifications with a digest
+     * line, and one per notification for the rest. Without digest mode every
+     * notification is its own delivery.
+     */
+    public List<Delivery> coalesce(List<Notification> notifications) {
+        List<Delivery> deliveries = new ArrayList<>(notifications.size());
+        Map<String, List<Notification>> groups = new LinkedHashMap<>();
+        for (Notification n : notifications) {
+            if (!isEnabled() || n.getDigestLine() == null) {
+                deliveries.add(new Delivery(n, List.of(n)));
+            } else {
+                String key = n.getChannel() + ":" + n.getRecipient().toLowerCase(Locale.ROOT);
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(n);
+            }
+        }
+        for (List<Notification> group : groups.values()) {
+            deliveries.add(new Delivery(group.size() == 1 ? group.get(0) : digest(group), group));
+        }
+        return deliveries;
+    }
+
+    private Notification digest(List<Notification> group) {
+        Notification first = group.get(0);
+        Notification digest = new Notification();
+        digest.setChannel(first.getChannel());
+        digest.setRecipient(first.getRecipient());
+        digest.setBody(NotificationService.SMS.equals(first.getChannel()) ? smsBody(group) : emailBody(group));
+        if (NotificationService.EMAIL.equals(first.getChannel()))
+            digest.setSubject("Performance Update: " + group.size() + " new results");
+        return digest;
+    }
+
+    private String emailBody(List<Notification> group) {
+        StringBuilder body = new StringBuilder("Hello,\n\nHere are the latest results:\n\n");
+        for (Notification n : group) {
+            body.append("- ").append(n.getDigestLine()).append('\n');
+        }
+        return body.append("\nBest Regards,\nStudent Performance Tracker System").toString();
+    }
+
+    // Lines that do not fit are counted instead of cut mid-line
+    private String smsBody(List<Notification> group) {
+        StringBuilder body = new StringBuilder("Tracker Alert: " + group.size() + " new results. ");
+        for (int i = 0; i < group.size(); i++) {
+            boolean last = i == group.size() - 1;
+            String line = group.get(i).getDigestLine() + (last ? "." : "; ");
+            // Room for the line, and unless it is the last one, for the count of those after it
+            int reserve = last ? 0 : (" (+" + (group.size() - i - 1) + " more)").length();
+            if (body.length() + line.length() + reserve > SMS_MAX_LENGTH) {
+                body.append("(+").append(group.size() - i).append(" more)");
+                break;
+            }
+            body.append(line);
+        }
+        return body.toString();
+    }
+}
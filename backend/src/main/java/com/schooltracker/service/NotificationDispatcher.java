@@ -0,0 +1,364 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ConcurrencyLimiter;
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.model.Notification;
+import com.schooltracker.service.NotificationDigester.Delivery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the notification outbox on a bounded worker pool. Emails are sent in
+ * batches over one SMTP connection each, every channel has its own rate
+ * limit and failed sends are retried with exponential backoff. In digest mode
+ * a recipient's claimed notifications are sent as one message (see
+ * NotificationDigester), whose outcome applies to each of them.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private SMSService smsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private NotificationDigester notificationDigester;
+
+    @Value("${tracker.notifications.workers:4}")
+    private int workerCount;
+
+    @Value("${tracker.notifications.batch-size:100}")
+    private int claimBatchSize;
+
+    @Value("${tracker.notifications.email-batch-size:20}")
+    private int emailBatchSize;
+
+    @Value("${tracker.notifications.email-rate-per-second:10}")
+    private double emailRate;
+
+    @Value("${tracker.notifications.sms-rate-per-second:1}")
+    private double smsRate;
+
+    @Value("${tracker.notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${tracker.notifications.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    private ExecutorService workers;
+    private ExecutorService poller;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private RateLimiter emailLimiter;
+    private RateLimiter smsLimiter;
+    private final Map<String, ChannelStats> stats = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        workers = executionMode.newPool("notification", workerCount);
+        poller = executionMode.newSingleThreadExecutor("notification-drain");
+        emailLimiter = new RateLimiter(emailRate);
+        smsLimiter = new RateLimiter(smsRate);
+        stats.put(NotificationService.EMAIL, new ChannelStats(NotificationService.EMAIL));
+        stats.put(NotificationService.SMS, new ChannelStats(NotificationService.SMS));
+
+        // Read from the outbox on each scrape
+        Gauge.builder("tracker.notifications.queue.depth",
+                notificationService, service -> service.countByStatus(NotificationService.PENDING))
+                .description("PENDING notifications in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("tracker.notifications.in.flight",
+                notificationService, service -> service.countByStatus(NotificationService.SENDING))
+                .description("Notifications claimed and being sent")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        poller.shutdown();
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+        // Lets a running drain record its outcome (tasks the workers no longer take are released)
+        poller.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void releaseInFlight() {
+        notificationService.releaseInFlight();
+    }
+
+    /**
+     * Hands a drain to the poller thread unless one is still running. Sends
+     * are rate limited (1 SMS/s by default), so a drain can take minutes; on
+     * the shared scheduler thread it would hold up the SSE heartbeat and the
+     * purge jobs.
+     */
+    @Scheduled(fixedDelayString = "${tracker.notifications.poll-interval-ms:2000}")
+    public void poll() {
+        if (!draining.compareAndSet(false, true))
+            return;
+        try {
+            poller.execute(() -> {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    log.error("Notification drain failed", e);
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * Claims one batch of due notifications, fans it out to the workers and
+     * records the outcome before the next poll. Each delivery's failure is
+     * its own: it is marked for retry (or FAILED) while the rest of the
+     * claim goes out. Only rows whose task the pool rejected go back to
+     * PENDING untouched.
+     */
+    public void drain() {
+        List<Notification> due = notificationService.claimDue(claimBatchSize);
+        if (due.isEmpty())
+            return;
+
+        Set<Notification> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Delivery> emails = new ArrayList<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Delivery delivery : notificationDigester.coalesce(due)) {
+            if (NotificationService.EMAIL.equals(delivery.message().getChannel())) {
+                emails.add(delivery);
+            } else {
+                submit(() -> sendSms(delivery), List.of(delivery), tasks, rejected);
+            }
+        }
+        for (int i = 0; i < emails.size(); i += emailBatchSize) {
+            List<Delivery> batch = emails.subList(i, Math.min(i + emailBatchSize, emails.size()));
+            submit(() -> sendEmails(batch), batch, tasks, rejected);
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+
+        if (!rejected.isEmpty()) {
+            log.warn("Notification workers rejected {} of {} claimed notifications, returning them to the queue",
+                    rejected.size(), due.size());
+            notificationService.release(new ArrayList<>(rejected));
+        }
+        List<Notification> attempted = due.stream().filter(n -> !rejected.contains(n)).toList();
+        if (!attempted.isEmpty())
+            notificationService.complete(attempted);
+    }
+
+    private void submit(Runnable send, List<Delivery> deliveries, List<CompletableFuture<Void>> tasks,
+            Set<Notification> rejected) {
+        try {
+            tasks.add(CompletableFuture.runAsync(send, workers));
+        } catch (RejectedExecutionException e) {
+            deliveries.forEach(delivery -> rejected.addAll(delivery.notifications()));
+        }
+    }
+
+    private void sendEmails(List<Delivery> batch) {
+        // A message that cannot be built fails alone; the rest of the batch still goes out
+        Map<SimpleMailMessage, Delivery> messages = new IdentityHashMap<>();
+        for (Delivery delivery : batch) {
+            Notification n = delivery.message();
+            try {
+                messages.put(emailService.buildEmail(n.getRecipient(), n.getSubject(), n.getBody()), delivery);
+            } catch (Exception e) {
+                delivery.notifications().forEach(failed -> markFailed(failed, e));
+            }
+        }
+        if (messages.isEmpty())
+            return;
+        emailLimiter.acquire(messages.size());
+
+        Map<Object, Exception> failed = new HashMap<>();
+        long start = System.nanoTime();
+        try {
+            Observation.createNotStarted("tracker.notifications.send", observationRegistry)
+                    .lowCardinalityKeyValue("channel", NotificationService.EMAIL)
+                    .highCardinalityKeyValue("batch.size", String.valueOf(messages.size()))
+                    .observe(() -> concurrencyLimiter.run(ConcurrencyLimiter.SMTP,
+                            () -> emailService.sendEmails(new ArrayList<>(messages.keySet()))));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.keySet().forEach(m -> failed.put(m, e));
+            } else {
+                failed.putAll(e.getFailedMessages());
+            }
+        } catch (Exception e) {
+            messages.keySet().forEach(m -> failed.put(m, e));
+        }
+        long perMessage = (System.nanoTime() - start) / messages.size();
+
+        messages.forEach((message, delivery) -> {
+            Exception error = failed.get(message);
+            if (error == null) {
+                markSent(delivery, perMessage);
+            } else {
+                delivery.notifications().forEach(n -> markFailed(n, error));
+            }
+        });
+    }
+
+    private void sendSms(Delivery delivery) {
+        Notification message = delivery.message();
+        smsLimiter.acquire(1);
+        long start = System.nanoTime();
+        try {
+            Observation.createNotStarted("tracker.notifications.send", observationRegistry)
+                    .lowCardinalityKeyValue("channel", NotificationService.SMS)
+                    .observe(() -> concurrencyLimiter.run(ConcurrencyLimiter.SMS,
+                            () -> smsService.sendSMS(message.getRecipient(), message.getBody())));
+            markSent(delivery, System.nanoTime() - start);
+        } catch (Exception e) {
+            delivery.notifications().forEach(n -> markFailed(n, e));
+        }
+    }
+
+    private void markSent(Delivery delivery, long latencyNanos) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Notification n : delivery.notifications()) {
+            n.setStatus(NotificationService.SENT);
+            n.setAttempts(n.getAttempts() + 1);
+            n.setSentAt(now);
+            n.setLastError(null);
+        }
+        stats.get(delivery.message().getChannel()).recordSent(delivery.notifications().size(), latencyNanos);
+    }
+
+    private void markFailed(Notification n, Exception error) {
+        int attempts = n.getAttempts() + 1;
+        n.setAttempts(attempts);
+        String message = String.valueOf(error.getMessage());
+        n.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+
+        ChannelStats channelStats = stats.get(n.getChannel());
+        if (attempts >= maxAttempts) {
+            n.setStatus(NotificationService.FAILED);
+            channelStats.failed.increment();
+        } else {
+            // 1x, 2x, 4x ... the base backoff, capped at one hour
+            long delayMs = Math.min(retryBackoffMs << Math.min(attempts - 1, 16), TimeUnit.HOURS.toMillis(1));
+            n.setStatus(NotificationService.PENDING);
+            n.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delayMs)));
+            channelStats.retried.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("queueDepth", notificationService.countByStatus(NotificationService.PENDING));
+        snapshot.put("inFlight", notificationService.countByStatus(NotificationService.SENDING));
+        snapshot.put("digestWindowSeconds", notificationDigester.getWindowSeconds());
+        stats.forEach((channel, channelStats) -> snapshot.put(channel.toLowerCase(), channelStats.toMap()));
+        return snapshot;
+    }
+
+    /**
+     * Per-channel outcome counters (per notification) and send latency (per
+     * message sent, a digest being one), also exported as meters.
+     */
+    private final class ChannelStats {
+        private final Counter sent;
+        private final Counter retried;
+        private final Counter failed;
+        private final Counter coalesced;
+        private final Timer latency;
+
+        private ChannelStats(String channel) {
+            sent = outcome(channel, "sent");
+            retried = outcome(channel, "retried");
+            failed = outcome(channel, "failed");
+            coalesced = Counter.builder("tracker.notifications.coalesced")
+                    .description("Notifications delivered inside another one's digest instead of on their own")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+            latency = Timer.builder("tracker.notifications.latency")
+                    .description("Send latency per message, a digest being one message "
+                            + "(batched emails share their batch's time)")
+                    .tag("channel", channel)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private Counter outcome(String channel, String outcome) {
+            return Counter.builder("tracker.notifications.outcome")
+                    .tag("channel", channel)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        private void recordSent(int notifications, long latencyNanos) {
+            sent.increment(notifications);
+            coalesced.increment(notifications - 1);
+            latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private Map<String, Object> toMap() {
+            long sentCount = latency.count();
+            long delivered = (long) sent.count();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sent", delivered);
+            map.put("messages", sentCount);
+            // Share of delivered notifications that did not need a message of their own
+            map.put("deduplicationRate", delivered == 0 ? 0.0 : coalesced.count() / delivered);
+            map.put("retried", (long) retried.count());
+            map.put("failed", (long) failed.count());
+            map.put("avgSendLatencyMs", sentCount == 0 ? 0.0 : latency.mean(TimeUnit.MILLISECONDS));
+            map.put("maxSendLatencyMs", latency.max(TimeUnit.MILLISECONDS));
+            return map;
+        }
+    }
+}
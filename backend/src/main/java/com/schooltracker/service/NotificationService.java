@@ -0,0 +1,176 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.Notification;
+import com.schooltracker.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Notification outbox. Callers enqueue inside their own transaction; the
+ * NotificationDispatcher claims due rows, sends them and records the outcome.
+ * In digest mode, rows with a digest line wait out the digest window and are
+ * claimed together with the rest of their recipient's buffer.
+ */
+@Service
+public class NotificationService {
+
+    public static final String EMAIL = "EMAIL";
+    public static final String SMS = "SMS";
+
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    private static final int MAX_DIGEST_LINE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO notifications "
+            + "(channel, recipient, subject, body, digest_line, status, attempts, next_attempt_at, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    private static final String COMPLETE_SQL = "UPDATE notifications SET status = ?, attempts = ?, "
+            + "next_attempt_at = ?, sent_at = ?, last_error = ? WHERE id = ? AND status = ?";
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationDigester notificationDigester;
+
+    public Notification email(String to, String subject, String body) {
+        Notification notification = new Notification();
+        notification.setChannel(EMAIL);
+        notification.setRecipient(to);
+        notification.setSubject(subject);
+        notification.setBody(body);
+        return notification;
+    }
+
+    public Notification sms(String mobileNumber, String body) {
+        Notification notification = new Notification();
+        notification.setChannel(SMS);
+        notification.setRecipient(mobileNumber);
+        notification.setBody(body);
+        return notification;
+    }
+
+    /**
+     * Records the notifications as PENDING with one JDBC batch. Joins the
+     * caller's transaction, so they commit or roll back with the mark.
+     */
+    public void enqueue(List<Notification> notifications) {
+        if (notifications.isEmpty())
+            return;
+
+        LocalDateTime created = LocalDateTime.now();
+        Timestamp now = Timestamp.valueOf(created);
+        Timestamp afterWindow = Timestamp.valueOf(created.plusSeconds(notificationDigester.getWindowSeconds()));
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (Notification n : notifications) {
+            String line = n.getDigestLine();
+            if (line != null && line.length() > MAX_DIGEST_LINE)
+                line = line.substring(0, MAX_DIGEST_LINE);
+            Timestamp due = notificationDigester.isEnabled() && line != null ? afterWindow : now;
+            rows.add(new Object[] { n.getChannel(), n.getRecipient(), n.getSubject(), n.getBody(), line, PENDING, due,
+                    now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Moves up to {@code limit} due PENDING rows to SENDING and returns them.
+     * In digest mode the recipients' other buffered rows come along, so a
+     * recipient's digest is not split across claims.
+     *
+     * The rows are selected FOR UPDATE SKIP LOCKED and stay locked until the
+     * SENDING status commits, so concurrent claims (several instances, or a
+     * drain overlapping another) get disjoint rows.
+     */
+    @Transactional
+    public List<Notification> claimDue(int limit) {
+        List<Notification> due = new ArrayList<>(notificationRepository
+                .findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(PENDING, LocalDateTime.now(),
+                        PageRequest.of(0, limit)));
+        if (due.isEmpty())
+            return due;
+
+        if (notificationDigester.isEnabled()) {
+            Set<String> recipients = new HashSet<>();
+            Set<Long> claimed = new HashSet<>();
+            for (Notification n : due) {
+                claimed.add(n.getId());
+                if (n.getDigestLine() != null)
+                    recipients.add(n.getRecipient());
+            }
+            if (!recipients.isEmpty()) {
+                // Rows waiting out a retry backoff keep waiting
+                for (Notification n : notificationRepository.findByStatusAndDigestLineIsNotNullAndRecipientIn(PENDING,
+                        recipients)) {
+                    if (n.getAttempts() == 0 && claimed.add(n.getId()))
+                        due.add(n);
+                }
+            }
+        }
+
+        // Flushed by dirty checking on commit
+        for (Notification n : due) {
+            n.setStatus(SENDING);
+        }
+        return due;
+    }
+
+    /**
+     * Writes the outcome the dispatcher recorded on each claimed row with one
+     * JDBC batch, keyed by id and still SENDING. Rows released in the
+     * meantime are left alone.
+     */
+    @Transactional
+    public void complete(List<Notification> notifications) {
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (Notification n : notifications) {
+            rows.add(new Object[] { n.getStatus(), n.getAttempts(), timestamp(n.getNextAttemptAt()),
+                    timestamp(n.getSentAt()), n.getLastError(), n.getId(), SENDING });
+        }
+        jdbcTemplate.batchUpdate(COMPLETE_SQL, rows);
+    }
+
+    /** Returns claimed rows that got no outcome to the queue, e.g. after a failed drain. */
+    @Transactional
+    public int release(List<Notification> notifications) {
+        if (notifications.isEmpty())
+            return 0;
+        return notificationRepository.updateStatus(notifications.stream().map(Notification::getId).toList(),
+                SENDING, PENDING);
+    }
+
+    /**
+     * Returns rows left in SENDING by a previous run (crash or shutdown) to
+     * the queue. Delivery is at-least-once: with several instances, a
+     * restarting one also requeues rows another is still sending.
+     */
+    @Transactional
+    public int releaseInFlight() {
+        return notificationRepository.updateAllStatus(SENDING, PENDING);
+    }
+
+    public long countByStatus(String status) {
+        return notificationRepository.countByStatus(status);
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+}
@@ -0,0 +1,146 @@
+package com.schooltracker.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt password hashing with a configurable cost. Hashing is deliberately
+ * slow, so it runs on a fixed pool with a bounded queue: a burst of logins
+ * or user edits queues up to the limit and is then rejected
+ * (RejectedExecutionException) instead of tying up every request thread.
+ *
+ * Passwords stored before hashing was introduced are plaintext. They still
+ * verify, compared in constant time, and needsRehash reports them so the
+ * caller can replace them on the next successful login.
+ */
+@Component
+public class PasswordHasher {
+
+    @Value("${tracker.auth.bcrypt-cost:10}")
+    private int cost;
+
+    @Value("${tracker.auth.hash-threads:0}")
+    private int threads;
+
+    @Value("${tracker.auth.hash-queue:256}")
+    private int queueSize;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor pool;
+
+    // Verified against when the username is unknown, so a miss costs as much as a wrong password
+    private String dummyHash;
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(cost);
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                task -> {
+                    Thread thread = new Thread(task, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        dummyHash = encoder.encode("not-a-password");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Hashes on the calling thread; callers on request threads use hashAsync. */
+    public String hash(String raw) {
+        return raw == null ? null : encoder.encode(raw);
+    }
+
+    /** Hashes on the hashing pool; throws RejectedExecutionException when its queue is full. */
+    public CompletableFuture<String> hashAsync(String raw) {
+        return CompletableFuture.supplyAsync(() -> hash(raw), pool);
+    }
+
+    /**
+     * Hashes every password (nulls stay null), split across the hashing pool.
+     * When the queue is full the caller waits for room rather than hashing on
+     * its own thread.
+     */
+    public List<String> hashAll(List<String> raws) {
+        int slices = Math.min(pool.getCorePoolSize(), raws.size());
+        List<CompletableFuture<List<String>>> parts = new ArrayList<>(slices);
+        for (int slice = 0; slice < slices; slice++) {
+            List<String> part = raws.subList(slice * raws.size() / slices, (slice + 1) * raws.size() / slices);
+            parts.add(submitWhenQueued(() -> part.stream().map(this::hash).toList(), parts));
+        }
+        List<String> hashes = new ArrayList<>(raws.size());
+        parts.forEach(part -> hashes.addAll(part.join()));
+        return hashes;
+    }
+
+    private <T> CompletableFuture<T> submitWhenQueued(Supplier<T> task, List<CompletableFuture<T>> submitted) {
+        int waitedFor = 0;
+        while (true) {
+            try {
+                return CompletableFuture.supplyAsync(task, pool);
+            } catch (RejectedExecutionException e) {
+                if (pool.isShutdown())
+                    throw e;
+                // Wait for one of our own slices, or briefly for the logins holding the queue
+                if (waitedFor < submitted.size()) {
+                    submitted.get(waitedFor++).join();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the password on the hashing pool. A null stored value (unknown
+     * user) is checked against a dummy hash and never matches.
+     */
+    public CompletableFuture<Boolean> matchesAsync(String raw, String stored) {
+        return CompletableFuture.supplyAsync(() -> matches(raw, stored), pool);
+    }
+
+    public boolean matches(String raw, String stored) {
+        if (raw == null)
+            return false;
+        if (stored == null) {
+            encoder.matches(raw, dummyHash);
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(raw.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        return encoder.matches(raw, stored);
+    }
+
+    /** Whether the stored value is plaintext or hashed with a different cost. */
+    public boolean needsRehash(String stored) {
+        return stored != null && (!isHashed(stored) || encoder.upgradeEncoding(stored));
+    }
+
+    /** Whether the value is already a BCrypt hash, so it must not be hashed again. */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.length() == 60
+                && (stored.startsWith("$2a$") || stored.startsWith("$2b$") || stored.startsWith("$2y$"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.schooltracker.service;
+
+import com.schooltracker.dto.MarkHistoryRow;
+import com.schooltracker.repository.MarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Rank-in-class and percentile per assessment (mark percentage) and per
+ * subject (cumulative obtained / total over the student's assessments).
+ *
+ * Marks are unique per (student, assessment). Saved marks reload their
+ * students' marks in the subject after commit, with one indexed query per
+ * write (a bulk-upload chunk included), and re-score the affected cohorts.
+ */
+@Component
+public class RankingIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RankingIndex.class);
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile Map<Long, ScoreCohort> assessments = new ConcurrentHashMap<>();
+    private volatile Map<Long, ScoreCohort> subjects = new ConcurrentHashMap<>();
+
+    // Non-null while a rebuild runs: (student, subject) pairs to reload once it is swapped in
+    private volatile Set<Key> pendingReloads;
+
+    // A student within a subject or an assessment
+    private record Key(long studentId, long cohortId) {
+    }
+
+    public ScoreCohort assessment(Long assessmentId) {
+        return assessments.get(assessmentId);
+    }
+
+    public ScoreCohort subject(Long subjectId) {
+        return subjects.get(subjectId);
+    }
+
+    /** Re-scores a student in a subject (and its assessments) after a mark write. */
+    public void onSaved(Long studentId, Long subjectId) {
+        onSavedAll(subjectId, List.of(studentId));
+    }
+
+    /** Re-scores the students in the subject after a batch of mark writes, with a single query. */
+    public void onSavedAll(Long subjectId, Collection<Long> studentIds) {
+        if (studentIds.isEmpty())
+            return;
+        List<Long> ids = List.copyOf(new HashSet<>(studentIds));
+        afterCommit(() -> {
+            Set<Key> pending = pendingReloads;
+            if (pending != null)
+                ids.forEach(id -> pending.add(new Key(id, subjectId)));
+            reload(subjectId, ids);
+        });
+    }
+
+    /** Removes students whose marks were deleted wholesale from every cohort. */
+    public void evictStudents(Collection<Long> studentIds) {
+        Set<Long> ids = new HashSet<>(studentIds);
+        afterCommit(() -> {
+            for (ScoreCohort cohort : assessments.values())
+                ids.forEach(cohort::remove);
+            for (ScoreCohort cohort : subjects.values())
+                ids.forEach(cohort::remove);
+        });
+    }
+
+    /** Rebuilds every cohort from the marks table in one streaming pass. */
+    public Map<String, Object> rebuild() {
+        long start = System.currentTimeMillis();
+        Set<Key> pending = ConcurrentHashMap.newKeySet();
+        pendingReloads = pending;
+
+        Map<Long, ScoreCohort> freshAssessments = new ConcurrentHashMap<>();
+        Map<Key, double[]> subjectTotals = new HashMap<>();
+        long[] count = new long[1];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<MarkHistoryRow> rows = markRepository.streamAllHistoryRows()) {
+                    rows.forEach(row -> {
+                        count[0]++;
+                        freshAssessments.computeIfAbsent(row.getAssessmentId(), id -> new ScoreCohort())
+                                .put(row.getStudentId(), percentage(row.getObtainedMarks(), row.getTotalMarks()));
+                        double[] totals = subjectTotals.computeIfAbsent(
+                                new Key(row.getStudentId(), row.getSubjectId()), k -> new double[2]);
+                        totals[0] += row.getObtainedMarks();
+                        totals[1] += row.getTotalMarks();
+                    });
+                }
+            });
+
+            Map<Long, ScoreCohort> freshSubjects = new ConcurrentHashMap<>();
+            subjectTotals.forEach((key, totals) -> freshSubjects
+                    .computeIfAbsent(key.cohortId(), id -> new ScoreCohort())
+                    .put(key.studentId(), percentage(totals[0], totals[1])));
+
+            assessments = freshAssessments;
+            subjects = freshSubjects;
+        } finally {
+            pendingReloads = null;
+        }
+        // Writes committed during the pass may be missing from it
+        Map<Long, List<Long>> missed = new HashMap<>();
+        pending.forEach(key -> missed.computeIfAbsent(key.cohortId(), id -> new ArrayList<>()).add(key.studentId()));
+        missed.forEach(this::reload);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("marks", count[0]);
+        stats.put("assessments", assessments.size());
+        stats.put("subjects", subjects.size());
+        stats.put("millis", System.currentTimeMillis() - start);
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Map<String, Object> stats = rebuild();
+        log.info("Ranking index built: {}", stats);
+    }
+
+    private void reload(Long subjectId, List<Long> studentIds) {
+        Map<Long, double[]> totals = new HashMap<>();
+        for (MarkHistoryRow row : markRepository.findHistoryRows(subjectId, studentIds)) {
+            assessments.computeIfAbsent(row.getAssessmentId(), id -> new ScoreCohort())
+                    .put(row.getStudentId(), percentage(row.getObtainedMarks(), row.getTotalMarks()));
+            double[] sums = totals.computeIfAbsent(row.getStudentId(), id -> new double[2]);
+            sums[0] += row.getObtainedMarks();
+            sums[1] += row.getTotalMarks();
+        }
+
+        ScoreCohort cohort = totals.isEmpty() ? subjects.get(subjectId)
+                : subjects.computeIfAbsent(subjectId, id -> new ScoreCohort());
+        if (cohort == null)
+            return;
+        for (Long studentId : studentIds) {
+            double[] sums = totals.get(studentId);
+            if (sums == null) {
+                cohort.remove(studentId);
+            } else {
+                cohort.put(studentId, percentage(sums[0], sums[1]));
+            }
+        }
+    }
+
+    private double percentage(double obtained, double total) {
+        return total == 0 ? 0 : (obtained / total) * 100;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
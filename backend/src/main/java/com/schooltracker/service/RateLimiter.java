@@ -0,0 +1,41 @@
+package com.schooltracker.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal token bucket. Callers that overdraw the bucket sleep until their
+ * permits would have been refilled, so throughput converges on the rate.
+ */
+public class RateLimiter {
+
+    private final double permitsPerSecond;
+    private final double maxPermits;
+    private double available;
+    private long lastRefillNanos;
+
+    public RateLimiter(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1, permitsPerSecond);
+        this.available = maxPermits;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire(int permits) {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            available = Math.min(maxPermits, available + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+            lastRefillNanos = now;
+            available -= permits;
+            waitNanos = available >= 0 ? 0 : (long) (-available / permitsPerSecond * 1e9);
+        }
+
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
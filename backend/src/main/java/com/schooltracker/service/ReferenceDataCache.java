@@ -0,0 +1,143 @@
+package com.schooltracker.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import com.schooltracker.repository.AssessmentRepository;
+import com.schooltracker.repository.SubjectRepository;
+import com.schooltracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-through cache in front of the user, subject and assessment
+ * repositories for by-id lookups on hot paths (mark entry, path-id checks).
+ * Size and TTL come from spring.cache.caffeine.spec.
+ *
+ * Cached entities are detached: use them for reading only, never to mutate
+ * lazy collections such as Subject.students. Writers evict the exact ids they
+ * touched, including entities that embed a copy of the changed one. The ids
+ * are looked up when evict* is called and dropped after the surrounding
+ * transaction commits, so a concurrent read cannot re-cache the old row.
+ */
+@Service
+public class ReferenceDataCache {
+
+    public static final String USERS = "users";
+    public static final String SUBJECTS = "subjects";
+    public static final String ASSESSMENTS = "assessments";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Cacheable(value = USERS, key = "#id", unless = "#result == null")
+    public Optional<User> findUser(Long id) {
+        return userRepository.findById(id);
+    }
+
+    @Cacheable(value = SUBJECTS, key = "#id", unless = "#result == null")
+    public Optional<Subject> findSubject(Long id) {
+        return subjectRepository.findById(id);
+    }
+
+    @Cacheable(value = ASSESSMENTS, key = "#id", unless = "#result == null")
+    public Optional<Assessment> findAssessment(Long id) {
+        return assessmentRepository.findById(id);
+    }
+
+    /** Evicts a user and the subjects/assessments that embed them as faculty. */
+    public void evictUser(Long id) {
+        evictUsers(List.of(id));
+    }
+
+    /**
+     * Bulk form of {@link #evictUser}: two queries whatever the number of
+     * users. Call before clearing faculty links, since those find the
+     * subjects/assessments to evict.
+     */
+    public void evictUsers(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        List<Long> userIds = List.copyOf(ids);
+        List<Long> subjectIds = subjectRepository.findIdsByFacultyIdIn(ids);
+        List<Long> assessmentIds = assessmentRepository.findIdsByFacultyIdIn(ids);
+        afterCommit(() -> {
+            userIds.forEach(id -> evict(USERS, id));
+            subjectIds.forEach(subjectId -> evict(SUBJECTS, subjectId));
+            assessmentIds.forEach(assessmentId -> evict(ASSESSMENTS, assessmentId));
+        });
+    }
+
+    /** Evicts a subject and the assessments that embed it. */
+    public void evictSubject(Long id) {
+        List<Long> assessmentIds = assessmentRepository.findIdsBySubjectId(id);
+        afterCommit(() -> {
+            evict(SUBJECTS, id);
+            assessmentIds.forEach(assessmentId -> evict(ASSESSMENTS, assessmentId));
+        });
+    }
+
+    public void evictAssessment(Long id) {
+        afterCommit(() -> evict(ASSESSMENTS, id));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String name : new String[] { USERS, SUBJECTS, ASSESSMENTS }) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof CaffeineCache caffeineCache))
+                continue;
+
+            CacheStats cacheStats = caffeineCache.getNativeCache().stats();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", caffeineCache.getNativeCache().estimatedSize());
+            entry.put("hits", cacheStats.hitCount());
+            entry.put("misses", cacheStats.missCount());
+            entry.put("hitRate", cacheStats.hitRate());
+            entry.put("evictions", cacheStats.evictionCount());
+            stats.put(name, entry);
+        }
+        return stats;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void evict(String cacheName, Long id) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null)
+            cache.evict(id);
+    }
+}
@@ -0,0 +1,92 @@
+package com.schooltracker.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Status of a background regrade after a grading scheme change. Progress
+ * fields are written by the regrade worker and read by the status endpoint.
+ */
+public class RegradeJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private final String id;
+    private final List<Long> subjectIds;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile String status = QUEUED;
+    private volatile int subjectsDone;
+    private volatile long marksScanned;
+    private volatile long marksRegraded;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    public RegradeJob(String id, List<Long> subjectIds) {
+        this.id = id;
+        this.subjectIds = subjectIds;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<Long> getSubjectIds() {
+        return subjectIds;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getSubjectsDone() {
+        return subjectsDone;
+    }
+
+    public void setSubjectsDone(int subjectsDone) {
+        this.subjectsDone = subjectsDone;
+    }
+
+    public long getMarksScanned() {
+        return marksScanned;
+    }
+
+    public void setMarksScanned(long marksScanned) {
+        this.marksScanned = marksScanned;
+    }
+
+    public long getMarksRegraded() {
+        return marksRegraded;
+    }
+
+    public void setMarksRegraded(long marksRegraded) {
+        this.marksRegraded = marksRegraded;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
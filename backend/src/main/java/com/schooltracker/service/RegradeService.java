@@ -0,0 +1,161 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.dto.MarkColumnRow;
+import com.schooltracker.repository.MarkJdbcRepository;
+import com.schooltracker.repository.MarkRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Re-applies grading schemes to stored marks after a scheme change. Each
+ * subject's marks are streamed once and only those whose grade changes are
+ * written back, in JDBC batches guarded by the score that was read.
+ */
+@Service
+public class RegradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegradeService.class);
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private MarkJdbcRepository markJdbcRepository;
+
+    @Autowired
+    private MarkColumnStore markColumnStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Value("${tracker.bulk-upload.batch-size:500}")
+    private int batchSize;
+
+    @Value("${tracker.regrade.retention-minutes:1440}")
+    private long retentionMinutes;
+
+    // One job at a time, so later scheme changes are applied after earlier ones
+    private ExecutorService jobRunner;
+    private final Map<String, RegradeJob> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        jobRunner = executionMode.newSingleThreadExecutor("regrade-job");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+    }
+
+    /** Registers a queued job; it starts once submitted. */
+    public RegradeJob create(Collection<Long> subjectIds) {
+        RegradeJob job = new RegradeJob(UUID.randomUUID().toString(), List.copyOf(subjectIds));
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /** Runs the job in the background, grading each subject with the scheme the function resolves. */
+    public void submit(RegradeJob job, Function<Long, CompiledGradingScheme> schemes) {
+        jobRunner.submit(() -> run(job, schemes));
+    }
+
+    public RegradeJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void run(RegradeJob job, Function<Long, CompiledGradingScheme> schemes) {
+        job.setStatus(RegradeJob.RUNNING);
+        try {
+            for (Long subjectId : job.getSubjectIds()) {
+                regradeSubject(job, subjectId, schemes.apply(subjectId));
+                job.setSubjectsDone(job.getSubjectsDone() + 1);
+            }
+            job.setStatus(RegradeJob.DONE);
+            log.info("Regrade {} finished: {} subjects, {} of {} marks regraded", job.getId(),
+                    job.getSubjectIds().size(), job.getMarksRegraded(), job.getMarksScanned());
+        } catch (RuntimeException e) {
+            job.setStatus(RegradeJob.FAILED);
+            job.setError(e.getMessage());
+            log.error("Regrade {} failed", job.getId(), e);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    private void regradeSubject(RegradeJob job, Long subjectId, CompiledGradingScheme scheme) {
+        List<MarkColumnRow> changed = new ArrayList<>();
+        List<String> grades = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<MarkColumnRow> rows = markRepository.streamColumnRowsBySubjectId(subjectId)) {
+                rows.forEach(row -> {
+                    job.setMarksScanned(job.getMarksScanned() + 1);
+                    if (row.obtainedMarks() == null)
+                        return;
+                    String grade = scheme.grade(row.obtainedMarks(), row.totalMarks());
+                    if (!Objects.equals(grade, row.grade())) {
+                        changed.add(row);
+                        grades.add(grade);
+                    }
+                });
+            }
+        });
+
+        for (int from = 0; from < changed.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, changed.size());
+            List<MarkColumnRow> batch = changed.subList(from, to);
+            List<String> batchGrades = grades.subList(from, to);
+            int updated = transactionTemplate.execute(status -> {
+                List<Long> updatedIds = markJdbcRepository.updateGrades(batch, batchGrades);
+                Map<Long, Integer> positions = positions(batch);
+                for (Long markId : updatedIds) {
+                    int i = positions.get(markId);
+                    MarkColumnRow row = batch.get(i);
+                    markColumnStore.onSaved(row.markId(), row.studentId(), row.subjectId(), row.assessmentId(),
+                            row.obtainedMarks(), row.totalMarks(), batchGrades.get(i));
+                }
+                return updatedIds.size();
+            });
+            job.setMarksRegraded(job.getMarksRegraded() + updated);
+        }
+    }
+
+    private static Map<Long, Integer> positions(List<MarkColumnRow> batch) {
+        Map<Long, Integer> positions = new HashMap<>(batch.size() * 2);
+        for (int i = 0; i < batch.size(); i++) {
+            positions.put(batch.get(i).markId(), i);
+        }
+        return positions;
+    }
+
+    /** Drops finished jobs after tracker.regrade.retention-minutes. */
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,328 @@
+package com.schooltracker.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.dto.ReportCardRow;
+import com.schooltracker.repository.MarkRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * End-of-semester report cards for a (year, semester, department) cohort.
+ *
+ * A job streams the cohort's marks in student order with one cursor query,
+ * cuts the stream into windows of {@code tracker.reports.window-size}
+ * students, renders each window in parallel on a fork-join pool and appends
+ * the results to a temp file in student order: a ZIP with one PDF per student,
+ * or one combined CSV. Memory stays bounded by the window, whatever the
+ * cohort size.
+ */
+@Service
+public class ReportCardService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportCardService.class);
+
+    public static final String PDF = "pdf";
+    public static final String CSV = "csv";
+
+    private static final String[] CSV_HEADER = { "studentId", "studentName", "username", "department",
+            "subjectCode", "subjectName", "assessment", "date", "obtainedMarks", "totalMarks", "grade", "status" };
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Value("${tracker.reports.parallelism:0}")
+    private int parallelism;
+
+    @Value("${tracker.reports.window-size:64}")
+    private int windowSize;
+
+    @Value("${tracker.reports.retention-minutes:1440}")
+    private long retentionMinutes;
+
+    private TransactionTemplate readOnlyTransaction;
+    private ForkJoinPool renderPool;
+    private ExecutorService jobRunner;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void init() {
+        renderPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        // One job at a time: each job already uses the whole render pool
+        jobRunner = executionMode.newSingleThreadExecutor("report-job");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        renderPool.shutdownNow();
+    }
+
+    public ReportJob start(String year, String semester, String department, String format) {
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), year, semester, department,
+                CSV.equalsIgnoreCase(format) ? CSV : PDF);
+        jobs.put(job.getId(), job);
+        jobRunner.submit(() -> run(job));
+        return job;
+    }
+
+    public ReportJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void run(ReportJob job) {
+        job.setStatus(ReportJob.RUNNING);
+        Path file = null;
+        try {
+            job.setTotalStudents(markRepository.countReportCardStudents(job.getYear(), job.getSemester(),
+                    job.getDepartment()));
+            file = Files.createTempFile("report-cards-", CSV.equals(job.getFormat()) ? ".csv" : ".zip");
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                if (CSV.equals(job.getFormat())) {
+                    out.write(csv(List.of((Object[]) CSV_HEADER)));
+                    export(job, this::renderCsv, cards -> {
+                        for (RenderedCard card : cards)
+                            out.write(card.content());
+                    });
+                } else {
+                    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+                        export(job, this::renderPdf, cards -> {
+                            for (RenderedCard card : cards) {
+                                zip.putNextEntry(new ZipEntry(card.name()));
+                                zip.write(card.content());
+                                zip.closeEntry();
+                            }
+                        });
+                    }
+                }
+            }
+
+            job.setFile(file);
+            job.setStatus(ReportJob.DONE);
+        } catch (Exception e) {
+            job.setStatus(ReportJob.FAILED);
+            job.setError(e.getMessage());
+            deleteQuietly(file);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Walks the cohort cursor, grouping consecutive rows per student, and
+     * hands each full window to the render pool. Windows are written in order.
+     */
+    private void export(ReportJob job, Renderer renderer, Sink sink) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ReportCardRow> rows = markRepository.streamReportCardRows(job.getYear(),
+                    job.getSemester(), job.getDepartment())) {
+                List<StudentCard> window = new ArrayList<>(windowSize);
+                StudentCard current = null;
+
+                Iterator<ReportCardRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    ReportCardRow row = iterator.next();
+                    if (current == null || !current.studentId().equals(row.studentId())) {
+                        if (current != null)
+                            window.add(current);
+                        if (window.size() >= windowSize) {
+                            flush(job, window, renderer, sink);
+                        }
+                        current = new StudentCard(row.studentId(), new ArrayList<>());
+                    }
+                    current.rows().add(row);
+                }
+                if (current != null)
+                    window.add(current);
+                flush(job, window, renderer, sink);
+            }
+        });
+    }
+
+    private void flush(ReportJob job, List<StudentCard> window, Renderer renderer, Sink sink) {
+        if (window.isEmpty())
+            return;
+        try {
+            List<RenderedCard> cards = renderPool.submit(() -> window.parallelStream()
+                    .map(card -> {
+                        try {
+                            return renderer.render(card);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList()).get();
+            sink.write(cards);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Report job interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to render report cards: " + e.getCause().getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        job.setStudentsDone(job.getStudentsDone() + window.size());
+        window.clear();
+    }
+
+    private RenderedCard renderCsv(StudentCard card) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ReportCardRow row : card.rows()) {
+            out.write(csv(List.of(row.studentId(), nullToEmpty(row.studentName()), nullToEmpty(row.username()),
+                    nullToEmpty(row.department()), nullToEmpty(row.subjectCode()), nullToEmpty(row.subjectName()),
+                    nullToEmpty(row.assessmentName()), row.assessmentDate() == null ? "" : row.assessmentDate(),
+                    row.obtainedMarks(), row.totalMarks(), nullToEmpty(row.grade()), nullToEmpty(row.status()))));
+        }
+        return new RenderedCard(null, out.toByteArray());
+    }
+
+    private RenderedCard renderPdf(StudentCard card) {
+        ReportCardRow first = card.rows().get(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, out);
+        document.open();
+
+        Font title = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
+        Font header = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+        Font body = FontFactory.getFont(FontFactory.HELVETICA, 10);
+
+        document.add(new Paragraph("Report Card", title));
+        document.add(new Paragraph("Student: " + first.studentName() + " (" + first.username() + ")", body));
+        document.add(new Paragraph("Department: " + nullToEmpty(first.department()), body));
+        document.add(new Paragraph(" "));
+
+        PdfPTable table = new PdfPTable(new float[] { 3, 3, 2, 2, 1, 2 });
+        table.setWidthPercentage(100);
+        for (String column : new String[] { "Subject", "Assessment", "Date", "Score", "Grade", "Trend" }) {
+            table.addCell(new Paragraph(column, header));
+        }
+
+        double obtainedTotal = 0;
+        double maxTotal = 0;
+        for (ReportCardRow row : card.rows()) {
+            table.addCell(new Paragraph(row.subjectCode() + " " + row.subjectName(), body));
+            table.addCell(new Paragraph(nullToEmpty(row.assessmentName()), body));
+            table.addCell(new Paragraph(row.assessmentDate() == null ? "" : row.assessmentDate().toString(), body));
+            table.addCell(new Paragraph(String.format("%.1f / %.1f", row.obtainedMarks(), row.totalMarks()), body));
+            table.addCell(new Paragraph(nullToEmpty(row.grade()), body));
+            table.addCell(new Paragraph(nullToEmpty(row.status()), body));
+            if (row.obtainedMarks() != null && row.totalMarks() != null) {
+                obtainedTotal += row.obtainedMarks();
+                maxTotal += row.totalMarks();
+            }
+        }
+        document.add(table);
+
+        if (maxTotal > 0) {
+            document.add(new Paragraph(" "));
+            document.add(new Paragraph(String.format("Overall: %.1f / %.1f (%.1f%%)", obtainedTotal, maxTotal,
+                    (obtainedTotal / maxTotal) * 100), header));
+        }
+        document.close();
+
+        String name = (first.username() == null ? String.valueOf(card.studentId()) : first.username())
+                .replaceAll("[^A-Za-z0-9._-]", "_") + ".pdf";
+        return new RenderedCard(name, out.toByteArray());
+    }
+
+    private byte[] csv(List<?> values) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+            printer.printRecord(values);
+        }
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /** Drops finished jobs (and their files) after the retention period. */
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff);
+            if (expired)
+                deleteQuietly(job.getFile());
+            return expired;
+        });
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null)
+            return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete report file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record StudentCard(Long studentId, List<ReportCardRow> rows) {
+    }
+
+    private record RenderedCard(String name, byte[] content) {
+    }
+
+    @FunctionalInterface
+    private interface Renderer {
+        RenderedCard render(StudentCard card) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void write(List<RenderedCard> cards) throws IOException;
+    }
+}
@@ -0,0 +1,124 @@
+package com.schooltracker.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Status of a background report-card export. Progress fields are written by
+ * the report worker and read by the status endpoint.
+ */
+public class ReportJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private final String id;
+    private final String year;
+    private final String semester;
+    private final String department;
+    private final String format;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile String status = QUEUED;
+    private volatile long totalStudents;
+    private volatile long studentsDone;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+    private volatile Path file;
+
+    public ReportJob(String id, String year, String semester, String department, String format) {
+        this.id = id;
+        this.year = year;
+        this.semester = semester;
+        this.department = department;
+        this.format = format;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getYear() {
+        return year;
+    }
+
+    public String getSemester() {
+        return semester;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getTotalStudents() {
+        return totalStudents;
+    }
+
+    public void setTotalStudents(long totalStudents) {
+        this.totalStudents = totalStudents;
+    }
+
+    public long getStudentsDone() {
+        return studentsDone;
+    }
+
+    public void setStudentsDone(long studentsDone) {
+        this.studentsDone = studentsDone;
+    }
+
+    public double getProgress() {
+        return totalStudents == 0 ? (DONE.equals(status) ? 100.0 : 0.0) : (studentsDone * 100.0) / totalStudents;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    @JsonIgnore
+    public Path getFile() {
+        return file;
+    }
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    @JsonIgnore
+    public String getFileName() {
+        String scope = department == null ? "all" : department;
+        String name = "report-cards-" + year + "-" + semester + "-" + scope;
+        return name.replaceAll("[^A-Za-z0-9._-]", "_") + ("csv".equals(format) ? ".csv" : ".zip");
+    }
+}
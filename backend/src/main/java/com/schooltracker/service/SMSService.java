@@ -4,12 +4,16 @@ import com.twilio.Twilio;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class SMSService {
 
+    private static final Logger log = LoggerFactory.getLogger(SMSService.class);
+
     @Value("${twilio.account.sid}")
     private String accountSid;
 
@@ -24,19 +28,19 @@ public class SMSService {
         try {
             if (!"ACxxxx".equals(accountSid) && accountSid != null && !accountSid.isEmpty()) {
                 Twilio.init(accountSid, authToken);
-                System.out.println("Twilio initialized with Account SID: " + accountSid);
+                log.info("Twilio initialized with Account SID: {}", accountSid);
             } else {
-                System.out.println("Twilio not initialized. Please provide real credentials in environment variables.");
+                log.warn("Twilio not initialized. Please provide real credentials in environment variables.");
             }
         } catch (Exception e) {
-            System.err.println("Error initializing Twilio: " + e.getMessage());
+            log.error("Error initializing Twilio: {}", e.getMessage());
         }
     }
 
     public void sendSMS(String mobileNumber, String messageText) {
         try {
             if ("ACxxxx".equals(accountSid)) {
-                System.out.println("[MOCK SMS] To: " + mobileNumber + ", Msg: " + messageText);
+                log.info("[MOCK SMS] To: {}, Msg: {}", mobileNumber, messageText);
                 return;
             }
 
@@ -44,23 +48,21 @@ public class SMSService {
             String formattedTo = mobileNumber.trim();
             if (!formattedTo.startsWith("+")) {
                 formattedTo = "+91" + formattedTo; // Assuming Indian numbers by default as per user previous input
-                System.out.println("Auto-formatted number to: " + formattedTo);
+                log.debug("Auto-formatted number to: {}", formattedTo);
             }
 
-            System.out.println("Attempting Twilio SMS: From=[" + fromNumber + "] To=[" + formattedTo + "]");
-            System.out.println("Message: " + messageText);
+            log.debug("Attempting Twilio SMS: From=[{}] To=[{}] Message: {}", fromNumber, formattedTo, messageText);
 
             Message message = Message.creator(
                     new PhoneNumber(formattedTo),
                     new PhoneNumber(fromNumber),
                     messageText).create();
 
-            System.out.println("Twilio SMS sent successfully! SID: " + message.getSid());
-            System.out.println("Status: " + message.getStatus());
+            log.debug("Twilio SMS sent, SID: {}, status: {}", message.getSid(), message.getStatus());
         } catch (Exception e) {
-            System.err.println("CRITICAL: Failed to send Twilio SMS to " + mobileNumber);
-            System.err.println("Error details: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Failed to send Twilio SMS to {}: {}", mobileNumber, e.getMessage());
+            // Rethrown so the notification dispatcher can retry with backoff
+            throw new RuntimeException("Failed to send SMS to " + mobileNumber + ": " + e.getMessage(), e);
         }
     }
 }
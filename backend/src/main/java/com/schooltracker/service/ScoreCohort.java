@@ -0,0 +1,161 @@
+package com.schooltracker.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores of one ranking cohort (an assessment, or a subject's cumulative
+ * score) kept as parallel primitive arrays sorted by (score, studentId).
+ *
+ * Rank, percentile and top/bottom-N are binary searches over the arrays.
+ * Updates shift the arrays with System.arraycopy, which for class-sized
+ * cohorts is cheaper than maintaining a balanced tree.
+ */
+public class ScoreCohort {
+
+    public record Entry(long studentId, double score, int rank) {
+    }
+
+    private final Map<Long, Double> scoreByStudent = new HashMap<>();
+    private double[] scores = new double[16];
+    private long[] students = new long[16];
+    private int size;
+
+    public synchronized void put(long studentId, double score) {
+        Double previous = scoreByStudent.put(studentId, score);
+        if (previous != null) {
+            if (previous == score)
+                return;
+            removeAt(indexOf(previous, studentId));
+        }
+        insertAt(-indexOf(score, studentId) - 1, studentId, score);
+    }
+
+    public synchronized void remove(long studentId) {
+        Double previous = scoreByStudent.remove(studentId);
+        if (previous != null)
+            removeAt(indexOf(previous, studentId));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized Double score(long studentId) {
+        return scoreByStudent.get(studentId);
+    }
+
+    /** Competition rank (1 = best; ties share a rank), or 0 when not in the cohort. */
+    public synchronized int rank(long studentId) {
+        Double score = scoreByStudent.get(studentId);
+        return score == null ? 0 : rankOf(score);
+    }
+
+    /**
+     * Percentile rank: share of the cohort scoring below the student, counting
+     * ties as half. Null when the student is not in the cohort.
+     */
+    public synchronized Double percentile(long studentId) {
+        Double score = scoreByStudent.get(studentId);
+        if (score == null)
+            return null;
+        int below = lowerBound(score);
+        int equal = upperBound(score) - below;
+        return ((below + equal / 2.0) / size) * 100;
+    }
+
+    /** Best {@code n} students, highest score first. */
+    public synchronized List<Entry> top(int n) {
+        int count = Math.min(n, size);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = size - 1; i >= size - count; i--) {
+            entries.add(new Entry(students[i], scores[i], rankOf(scores[i])));
+        }
+        return entries;
+    }
+
+    /** Lowest {@code n} students, lowest score first. */
+    public synchronized List<Entry> bottom(int n) {
+        int count = Math.min(n, size);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Entry(students[i], scores[i], rankOf(scores[i])));
+        }
+        return entries;
+    }
+
+    private int rankOf(double score) {
+        return size - upperBound(score) + 1;
+    }
+
+    // Position of (score, studentId), or -(insertion point) - 1 when absent
+    private int indexOf(double score, long studentId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Double.compare(scores[mid], score);
+            if (cmp == 0)
+                cmp = Long.compare(students[mid], studentId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // First index with scores[i] >= score
+    private int lowerBound(double score) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(scores[mid], score) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index with scores[i] > score
+    private int upperBound(double score) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(scores[mid], score) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insertAt(int index, long studentId, double score) {
+        if (size == scores.length) {
+            scores = Arrays.copyOf(scores, size * 2);
+            students = Arrays.copyOf(students, size * 2);
+        }
+        System.arraycopy(scores, index, scores, index + 1, size - index);
+        System.arraycopy(students, index, students, index + 1, size - index);
+        scores[index] = score;
+        students[index] = studentId;
+        size++;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(scores, index + 1, scores, index, size - index - 1);
+        System.arraycopy(students, index + 1, students, index, size - index - 1);
+        size--;
+    }
+}
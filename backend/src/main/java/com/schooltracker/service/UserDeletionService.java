@@ -0,0 +1,76 @@
+package com.schooltracker.service;
+
+import com.schooltracker.repository.UserJdbcRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Set-based user removal: faculty links are cleared and enrollments, marks
+ * and users deleted with bulk statements in one transaction, however many
+ * users are removed.
+ */
+@Service
+public class UserDeletionService {
+
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+    @Autowired
+    private UserJdbcRepository userJdbcRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private MarkTrendIndex trendIndex;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private MarkColumnStore markColumnStore;
+
+    @Transactional
+    public Map<String, Object> deleteUsers(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("requested", ids.size());
+        if (ids.isEmpty()) {
+            response.put("usersDeleted", 0);
+            return response;
+        }
+
+        // Before the delete: the faculty subjects/assessments are found through the links it clears.
+        // The entries themselves are dropped after commit.
+        referenceDataCache.evictUsers(ids);
+        response.putAll(userJdbcRepository.deleteCascade(ids));
+        trendIndex.evictStudents(ids);
+        rankingIndex.evictStudents(ids);
+        markColumnStore.evictStudents(ids);
+        return response;
+    }
+
+    /**
+     * Removes the graduating cohort of a year; see
+     * UserJdbcRepository#findGraduatingStudentIds. The year must be four
+     * digits (IllegalArgumentException otherwise).
+     */
+    @Transactional
+    public Map<String, Object> deleteGraduatingStudents(String year) {
+        String trimmed = year == null ? "" : year.trim();
+        if (!YEAR.matcher(trimmed).matches())
+            throw new IllegalArgumentException("year must be four digits, e.g. 2024");
+        Map<String, Object> response = deleteUsers(
+                userJdbcRepository.findGraduatingStudentIds(Integer.parseInt(trimmed)));
+        response.put("year", trimmed);
+        return response;
+    }
+}
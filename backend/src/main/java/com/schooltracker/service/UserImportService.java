@@ -0,0 +1,140 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.User;
+import com.schooltracker.repository.UserJdbcRepository;
+import com.schooltracker.repository.UserRepository;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Streaming CSV import of users. Rows are read in chunks of
+ * {@code tracker.bulk-upload.batch-size}; each chunk checks its usernames
+ * against the database in one query and is written as one JDBC batch.
+ * Usernames already seen earlier in the file are rejected as duplicates.
+ * Passwords are stored BCrypt-hashed.
+ */
+@Service
+public class UserImportService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserJdbcRepository userJdbcRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BulkUploadMetrics bulkUploadMetrics;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Value("${tracker.bulk-upload.batch-size:500}")
+    private int batchSize;
+
+    public BulkUploadResult importUsers(Iterable<CSVRecord> records) {
+        long start = System.nanoTime();
+        BulkUploadResult result = new BulkUploadResult();
+        // Usernames only (lower-cased), so a 50k-row file stays a few MB
+        Set<String> seenUsernames = new HashSet<>();
+        List<CSVRecord> chunk = new ArrayList<>(batchSize);
+
+        for (CSVRecord csvRecord : records) {
+            chunk.add(csvRecord);
+            if (chunk.size() >= batchSize) {
+                importChunk(chunk, seenUsernames, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seenUsernames, result);
+        }
+        bulkUploadMetrics.record("users", result, System.nanoTime() - start);
+        return result;
+    }
+
+    private void importChunk(List<CSVRecord> chunk, Set<String> seenUsernames, BulkUploadResult result) {
+        // 1. Parse rows and drop in-file duplicates
+        List<User> users = new ArrayList<>(chunk.size());
+        List<Long> userRows = new ArrayList<>(chunk.size());
+        for (CSVRecord csvRecord : chunk) {
+            try {
+                User user = new User();
+                user.setName(csvRecord.get("name"));
+                user.setRole(csvRecord.get("role"));
+                user.setDepartment(csvRecord.get("department"));
+                user.setEmail(csvRecord.get("email"));
+                user.setParentsEmail(csvRecord.get("parentsEmail"));
+                user.setParentsMobile(csvRecord.get("parentsMobile"));
+                user.setUsername(csvRecord.get("username"));
+                user.setPassword(csvRecord.get("password"));
+
+                if (user.getUsername() == null || user.getUsername().isBlank()) {
+                    result.failure("Error processing row " + csvRecord.getRecordNumber() + ": Username is required");
+                    continue;
+                }
+                if (!seenUsernames.add(user.getUsername().toLowerCase(Locale.ROOT))) {
+                    result.failure("Error processing row " + csvRecord.getRecordNumber()
+                            + ": Duplicate username in file: " + user.getUsername());
+                    continue;
+                }
+                users.add(user);
+                userRows.add(csvRecord.getRecordNumber());
+            } catch (Exception e) {
+                result.failure("Error processing row " + csvRecord.getRecordNumber() + ": " + e.getMessage());
+            }
+        }
+        if (users.isEmpty())
+            return;
+
+        // 2. One set query for the usernames that already exist
+        Set<String> usernames = new HashSet<>();
+        for (User user : users) {
+            usernames.add(user.getUsername());
+        }
+        Set<String> existing = new HashSet<>();
+        for (User user : userRepository.findByUsernameIn(usernames)) {
+            existing.add(user.getUsername().toLowerCase(Locale.ROOT));
+        }
+
+        List<User> fresh = new ArrayList<>(users.size());
+        List<Long> freshRows = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (existing.contains(user.getUsername().toLowerCase(Locale.ROOT))) {
+                result.failure("Error processing row " + userRows.get(i) + ": Username already exists: "
+                        + user.getUsername());
+                continue;
+            }
+            fresh.add(user);
+            freshRows.add(userRows.get(i));
+        }
+
+        // 3. Hash the passwords across the hashing pool, then write the chunk as one batch;
+        // a failed batch fails all of its rows
+        List<String> hashes = passwordHasher.hashAll(fresh.stream().map(User::getPassword).toList());
+        for (int i = 0; i < fresh.size(); i++) {
+            fresh.get(i).setPassword(hashes.get(i));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> userJdbcRepository.insertBatch(fresh));
+        } catch (Exception e) {
+            for (Long row : freshRows) {
+                result.failure("Error processing row " + row + ": " + e.getMessage());
+            }
+            return;
+        }
+        result.success(fresh.size());
+    }
+}
@@ -0,0 +1,75 @@
+-- Baseline schema, matching the tables Hibernate previously generated with ddl-auto=update.
+
+CREATE TABLE IF NOT EXISTS users (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    name            VARCHAR(255),
+    role            VARCHAR(255),
+    department      VARCHAR(255),
+    email           VARCHAR(255),
+    username        VARCHAR(255),
+    password        VARCHAR(255),
+    parents_email   VARCHAR(255),
+    parents_mobile  VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS subjects (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255),
+    code        VARCHAR(255),
+    year        VARCHAR(255),
+    semester    VARCHAR(255),
+    faculty_id  BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_subjects_faculty FOREIGN KEY (faculty_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS subject_students (
+    subject_id  BIGINT NOT NULL,
+    student_id  BIGINT NOT NULL,
+    PRIMARY KEY (subject_id, student_id),
+    CONSTRAINT fk_subject_students_subject FOREIGN KEY (subject_id) REFERENCES subjects (id),
+    CONSTRAINT fk_subject_students_student FOREIGN KEY (student_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS assessments (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    name         VARCHAR(255),
+    type         VARCHAR(255),
+    total_marks  DOUBLE,
+    date         DATE,
+    subject_id   BIGINT,
+    faculty_id   BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_assessments_subject FOREIGN KEY (subject_id) REFERENCES subjects (id),
+    CONSTRAINT fk_assessments_faculty FOREIGN KEY (faculty_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS marks (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    obtained_marks  DOUBLE,
+    grade           VARCHAR(255),
+    status          VARCHAR(255),
+    student_id      BIGINT,
+    subject_id      BIGINT,
+    assessment_id   BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_marks_student FOREIGN KEY (student_id) REFERENCES users (id),
+    CONSTRAINT fk_marks_subject FOREIGN KEY (subject_id) REFERENCES subjects (id),
+    CONSTRAINT fk_marks_assessment FOREIGN KEY (assessment_id) REFERENCES assessments (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS notifications (
+    id               BIGINT        NOT NULL AUTO_INCREMENT,
+    channel          VARCHAR(255),
+    recipient        VARCHAR(255),
+    subject          VARCHAR(255),
+    body             VARCHAR(4000),
+    status           VARCHAR(255),
+    attempts         INT           NOT NULL,
+    next_attempt_at  DATETIME(6),
+    created_at       DATETIME(6),
+    sent_at          DATETIME(6),
+    last_error       VARCHAR(500),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,24 @@
+-- Indexes for the repository access paths.
+
+-- MarkRepository: findByStudent, findByStudentAndSubject, trend history per (student, subject),
+-- and the per-assessment lookups; the leading student_id also serves fk_marks_student.
+CREATE INDEX idx_marks_student_subject_assessment ON marks (student_id, subject_id, assessment_id);
+
+-- MarkRepository: findBySubject and the faculty views/analytics (joined through subjects.faculty_id).
+CREATE INDEX idx_marks_subject ON marks (subject_id);
+
+-- UserRepository: findByUsername (login) and findByUsernameIn (CSV uploads).
+CREATE UNIQUE INDEX uk_users_username ON users (username);
+
+-- UserRepository: findByRole, findPageByRole, streamByRole.
+CREATE INDEX idx_users_role ON users (role, id);
+
+-- SubjectRepository: findByStudentsContains and the per-student subject views.
+-- The primary key (subject_id, student_id) already covers the roster direction.
+CREATE INDEX idx_subject_students_student ON subject_students (student_id);
+
+-- Report-card cohorts: subjects by (year, semester).
+CREATE INDEX idx_subjects_year_semester ON subjects (year, semester);
+
+-- NotificationDispatcher: PENDING rows due for delivery, oldest first.
+CREATE INDEX idx_notifications_status_next_attempt ON notifications (status, next_attempt_at);
@@ -0,0 +1,37 @@
+-- Asynchronous, resumable CSV import jobs (see ImportService).
+
+CREATE TABLE import_jobs (
+    id              BIGINT        NOT NULL AUTO_INCREMENT,
+    kind            VARCHAR(32)   NOT NULL,
+    scope           VARCHAR(255)  NOT NULL,
+    subject_id      BIGINT,
+    assessment_id   BIGINT,
+    content_hash    CHAR(64)      NOT NULL,
+    file_name       VARCHAR(255),
+    total_bytes     BIGINT        NOT NULL,
+    received_bytes  BIGINT        NOT NULL,
+    status          VARCHAR(32)   NOT NULL,
+    rows_processed  BIGINT        NOT NULL,
+    success_count   BIGINT        NOT NULL,
+    failure_count   BIGINT        NOT NULL,
+    skipped_count   BIGINT        NOT NULL,
+    error           VARCHAR(500),
+    created_at      DATETIME(6),
+    updated_at      DATETIME(6),
+    finished_at     DATETIME(6),
+    PRIMARY KEY (id),
+    -- Re-submitting the same file for the same target returns the existing job
+    CONSTRAINT uk_import_jobs_scope_hash UNIQUE (scope, content_hash)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_import_jobs_status ON import_jobs (status);
+
+CREATE TABLE import_job_errors (
+    id       BIGINT         NOT NULL AUTO_INCREMENT,
+    job_id   BIGINT         NOT NULL,
+    message  VARCHAR(1000),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_import_job_errors_job FOREIGN KEY (job_id) REFERENCES import_jobs (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_import_job_errors_job ON import_job_errors (job_id, id);
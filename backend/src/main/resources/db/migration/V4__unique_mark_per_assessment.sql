@@ -0,0 +1,10 @@
+-- One mark per (student, assessment); writes become upserts (see MarkJdbcRepository).
+
+-- Earlier re-uploads appended duplicates: keep the latest mark of each pair, which is
+-- also the one the trend and ranking indexes already counted
+DELETE FROM marks
+WHERE student_id IS NOT NULL AND assessment_id IS NOT NULL
+  AND id NOT IN (SELECT keep_id FROM (
+    SELECT MAX(id) AS keep_id FROM marks GROUP BY student_id, assessment_id) AS latest);
+
+ALTER TABLE marks ADD CONSTRAINT uk_marks_student_assessment UNIQUE (student_id, assessment_id);
@@ -0,0 +1,18 @@
+-- Grading schemes (see GradingPolicyService). scope is SUBJECT:<id>, DEPARTMENT:<name> or GLOBAL;
+-- a subject is graded by its own scheme, else its faculty's department's, else the global one,
+-- else the built-in 75/60/50/40 bands.
+
+CREATE TABLE grading_schemes (
+    id            BIGINT        NOT NULL AUTO_INCREMENT,
+    name          VARCHAR(255)  NOT NULL,
+    scope         VARCHAR(300)  NOT NULL,
+    department    VARCHAR(255),
+    subject_id    BIGINT,
+    bands         JSON          NOT NULL,
+    curve_factor  DOUBLE        NOT NULL,
+    curve_offset  DOUBLE        NOT NULL,
+    updated_at    DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_grading_schemes_scope UNIQUE (scope),
+    CONSTRAINT fk_grading_schemes_subject FOREIGN KEY (subject_id) REFERENCES subjects (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
@@ -0,0 +1,19 @@
+-- Early-warning results (see AtRiskService). Rewritten wholesale by each run; only students whose
+-- risk score reaches tracker.at-risk.min-score are kept, ranked by score (1 = most at risk).
+
+CREATE TABLE at_risk (
+    student_id           BIGINT        NOT NULL,
+    risk_rank            INT           NOT NULL,
+    score                DOUBLE        NOT NULL,
+    failing_subjects     INT           NOT NULL,
+    declining_subjects   INT           NOT NULL,
+    missing_assessments  INT           NOT NULL,
+    lowest_average       DOUBLE,
+    lowest_subject_id    BIGINT,
+    computed_at          DATETIME(6)   NOT NULL,
+    PRIMARY KEY (student_id),
+    CONSTRAINT fk_at_risk_student FOREIGN KEY (student_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- The list endpoint pages by rank
+CREATE UNIQUE INDEX uk_at_risk_rank ON at_risk (risk_rank);
@@ -0,0 +1,7 @@
+-- Digest mode (see NotificationDigester): a one-line summary per notification, so the pending
+-- rows of one recipient can be coalesced into a single message.
+
+ALTER TABLE notifications ADD COLUMN digest_line VARCHAR(500);
+
+-- NotificationService.claimDue: the rest of a digest recipient's buffer
+CREATE INDEX idx_notifications_recipient_status ON notifications (recipient, status);
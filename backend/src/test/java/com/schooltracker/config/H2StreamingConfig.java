@@ -0,0 +1,75 @@
+package com.schooltracker.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Lets the streaming repository queries run on H2. They pass MySQL's
+ * row-by-row fetch size, Integer.MIN_VALUE, which H2 rejects; this drops
+ * negative fetch sizes, so H2 reads those results in its usual pages.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class H2StreamingConfig {
+
+    @Bean
+    static BeanPostProcessor streamingFetchSizeDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StreamingDataSource)) {
+                    return new StreamingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class StreamingDataSource extends DelegatingDataSource {
+
+        private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall",
+                "createStatement");
+
+        StreamingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return proxy(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return proxy(Connection.class, super.getConnection(username, password));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                    (proxy, method, args) -> {
+                        if (target instanceof Statement && method.getName().equals("setFetchSize")
+                                && (int) args[0] < 0)
+                            return null;
+                        Object result;
+                        try {
+                            result = method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                        if (STATEMENT_METHODS.contains(method.getName()))
+                            return proxy((Class<Object>) method.getReturnType(), result);
+                        return result;
+                    });
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.schooltracker.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Flyway scripts against H2 in MySQL mode, as the benchmarks do,
+ * with the DuplicateUsernameCheck callback the application registers.
+ */
+class MigrationSmokeTest {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:migration-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Test
+    void migratesAnEmptyDatabaseToTheLatestVersion() {
+        Flyway flyway = flyway(null);
+        assertThat(flyway.migrate().success).isTrue();
+        assertThat(flyway.info().pending()).isEmpty();
+
+        // A table or column from each later migration
+        for (String sql : new String[] { "SELECT COUNT(*) FROM import_jobs", "SELECT COUNT(*) FROM import_job_errors",
+                "SELECT COUNT(*) FROM grading_schemes", "SELECT COUNT(*) FROM at_risk",
+                "SELECT COUNT(digest_line) FROM notifications" }) {
+            assertThat(jdbcTemplate.queryForObject(sql, Long.class)).as(sql).isZero();
+        }
+    }
+
+    @Test
+    void usernamesAreUniqueAfterV2() {
+        flyway(null).migrate();
+        jdbcTemplate.update("INSERT INTO users (name, role, username) VALUES ('Alice', 'STUDENT', 'alice')");
+
+        assertThatThrownBy(() -> jdbcTemplate
+                .update("INSERT INTO users (name, role, username) VALUES ('Alice Two', 'STUDENT', 'alice')"))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void stopsBeforeV2WhileUsernamesAreDuplicated() {
+        flyway("1").migrate();
+        insertUser("alice");
+        insertUser("alice");
+        insertUser("bob");
+        insertUser("carol");
+        insertUser("carol");
+        insertUser("carol");
+
+        Flyway flyway = flyway(null);
+        assertThatThrownBy(flyway::migrate)
+                .isInstanceOf(FlywayException.class)
+                .hasStackTraceContaining("2 username(s) are used by more than one user")
+                .hasStackTraceContaining("'alice' (2 users)")
+                .hasStackTraceContaining("'carol' (3 users)");
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("1");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(6);
+    }
+
+    @Test
+    void continuesOnceTheDuplicatesAreResolved() {
+        flyway("1").migrate();
+        insertUser("alice");
+        insertUser("alice");
+        assertThatThrownBy(flyway(null)::migrate).isInstanceOf(FlywayException.class);
+
+        jdbcTemplate.update("UPDATE users SET username = 'alice2' WHERE id = (SELECT MAX(id) FROM users)");
+        Flyway flyway = flyway(null);
+        assertThat(flyway.migrate().success).isTrue();
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    private Flyway flyway(String target) {
+        FluentConfiguration configuration = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .callbacks(new DuplicateUsernameCheck());
+        if (target != null)
+            configuration.target(target);
+        return configuration.load();
+    }
+
+    private void insertUser(String username) {
+        jdbcTemplate.update("INSERT INTO users (name, role, username) VALUES (?, 'STUDENT', ?)", username, username);
+    }
+}
@@ -0,0 +1,173 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Mark;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The SQL Hibernate generates for the mark access paths (per student and
+ * subject, per subject, and report-card cohorts filtered on the subject's
+ * year and semester) is served by the V2 indexes: each query is captured as
+ * it runs, then EXPLAINed by H2 (MySQL mode) over the Flyway schema.
+ *
+ * H2, unlike MySQL, keeps the index it created for each V1 foreign key next
+ * to a V2 index on the same leading column, and may pick either for a
+ * single-column lookup. Those checks assert an index lookup on the column
+ * rather than a table scan; the composite and year/semester indexes have no
+ * such twin and are asserted by name.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:access-paths;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "NON_KEYWORDS=YEAR,VALUE;IGNORE_UNKNOWN_SETTINGS=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.schooltracker.repository.AccessPathIndexTest$CapturingInspector" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AccessPathIndexTest {
+
+    // Stands in for SchoolTrackerApplication, whose startup runner needs the service layer
+    @Configuration
+    @AutoConfigurationPackage(basePackages = "com.schooltracker")
+    static class Config {
+    }
+
+    /** Records every statement Hibernate prepares. */
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    private User student;
+    private Subject subject;
+
+    @BeforeEach
+    void setUp() {
+        User faculty = user("Faculty", "FACULTY");
+        student = user("Student", "STUDENT");
+
+        subject = new Subject();
+        subject.setName("Physics");
+        subject.setCode("PHY");
+        subject.setYear("2025");
+        subject.setSemester("1");
+        subject.setFaculty(faculty);
+        entityManager.persist(subject);
+
+        Assessment assessment = new Assessment();
+        assessment.setName("Unit Test 1");
+        assessment.setType("Theory");
+        assessment.setTotalMarks(100.0);
+        assessment.setDate(LocalDate.of(2025, 1, 6));
+        assessment.setSubject(subject);
+        assessment.setFaculty(faculty);
+        entityManager.persist(assessment);
+
+        Mark mark = new Mark();
+        mark.setObtainedMarks(72.0);
+        mark.setGrade("B");
+        mark.setStatus("Same");
+        mark.setStudent(student);
+        mark.setSubject(subject);
+        mark.setAssessment(assessment);
+        entityManager.persist(mark);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void marksOfAStudentInASubjectUseTheCompositeIndex() {
+        String sql = captured(() -> markRepository.findByStudentAndSubject(student, subject));
+
+        String plan = explain(sql, student.getId(), subject.getId());
+        assertThat(plan).containsIgnoringCase("idx_marks_student_subject_assessment")
+                .containsPattern(indexLookup("student_id", "subject_id"));
+    }
+
+    @Test
+    void marksOfASubjectUseAnIndexOnSubjectId() {
+        String sql = captured(() -> markRepository.findBySubject(subject));
+
+        assertThat(explain(sql, subject.getId())).containsPattern(indexLookup("subject_id"))
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void reportCardCohortsUseTheYearSemesterIndex() {
+        String sql = captured(() -> markRepository.countReportCardStudents("2025", "1", null));
+
+        String plan = explain(sql, "2025", "1", null, null);
+        assertThat(plan).containsIgnoringCase("idx_subjects_year_semester")
+                .containsPattern(indexLookup("year", "semester"))
+                // marks are then reached through the subject's id, not scanned
+                .containsPattern(Pattern.compile("/\\*[^*]*: [^*]*subject_id\"? = \"?s\\w*\"?\\.\"?id",
+                        Pattern.CASE_INSENSITIVE))
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    /** The first statement the call prepares: the query itself, before any association fetches. */
+    private String captured(Runnable query) {
+        CapturingInspector.SQL.clear();
+        query.run();
+        assertThat(CapturingInspector.SQL).isNotEmpty();
+        return CapturingInspector.SQL.get(0);
+    }
+
+    private String explain(String sql, Object... args) {
+        assertThat(sql.chars().filter(c -> c == '?').count()).as("parameters of %s", sql).isEqualTo(args.length);
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+    }
+
+    // H2 writes the access path of each table as /* schema.index: col = ?1 AND col = ?2 */
+    private static Pattern indexLookup(String... columns) {
+        StringBuilder condition = new StringBuilder();
+        for (String column : columns) {
+            if (condition.length() > 0)
+                condition.append(" AND ");
+            condition.append("\"?").append(column).append("\"? = \\?\\d+");
+        }
+        return Pattern.compile("/\\*[^*]*: [^*]*" + condition, Pattern.CASE_INSENSITIVE);
+    }
+
+    private User user(String name, String role) {
+        User user = new User();
+        user.setName(name);
+        user.setRole(role);
+        user.setUsername(name.toLowerCase());
+        return entityManager.persist(user);
+    }
+}
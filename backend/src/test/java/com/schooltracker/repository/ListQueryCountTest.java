@@ -0,0 +1,206 @@
+package com.schooltracker.repository;
+
+import com.schooltracker.config.ObservabilityConfig;
+import com.schooltracker.config.StatementCountingDataSource;
+import com.schooltracker.dto.AssessmentView;
+import com.schooltracker.dto.MarkView;
+import com.schooltracker.dto.SubjectView;
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Mark;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The queries behind the mark, subject and assessment list endpoints each
+ * run one SQL statement, however many faculty, subjects and students the
+ * rows reference. Counted with the StatementCountingDataSource the
+ * application wraps its pool in, over the Flyway schema in H2 (MySQL mode).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:list-queries;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "NON_KEYWORDS=YEAR,VALUE;IGNORE_UNKNOWN_SETTINGS=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ListQueryCountTest {
+
+    // Stands in for SchoolTrackerApplication, whose startup runner needs the service layer
+    @Configuration
+    @AutoConfigurationPackage(basePackages = "com.schooltracker")
+    @Import(ObservabilityConfig.class)
+    static class Config {
+    }
+
+    private static final int FACULTY = 3;
+    private static final int SUBJECTS_PER_FACULTY = 2;
+    private static final int ASSESSMENTS_PER_SUBJECT = 3;
+    private static final int STUDENTS = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    private final List<User> faculty = new ArrayList<>();
+    private final List<User> students = new ArrayList<>();
+    private final List<Subject> subjects = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= FACULTY; i++)
+            faculty.add(user("Faculty " + i, "FACULTY"));
+        for (int i = 1; i <= STUDENTS; i++)
+            students.add(user("Student " + i, "STUDENT"));
+
+        for (User teacher : faculty) {
+            for (int i = 1; i <= SUBJECTS_PER_FACULTY; i++) {
+                Subject subject = new Subject();
+                subject.setName(teacher.getName() + " Subject " + i);
+                subject.setCode("S" + teacher.getId() + i);
+                subject.setYear("2025");
+                subject.setSemester("1");
+                subject.setFaculty(teacher);
+                subject.getStudents().addAll(students);
+                subjects.add(entityManager.persist(subject));
+
+                for (int j = 0; j < ASSESSMENTS_PER_SUBJECT; j++) {
+                    Assessment assessment = new Assessment();
+                    assessment.setName("Unit Test " + (j + 1));
+                    assessment.setType("Theory");
+                    assessment.setTotalMarks(100.0);
+                    assessment.setDate(LocalDate.of(2025, 1, 6).plusWeeks(j));
+                    assessment.setSubject(subject);
+                    assessment.setFaculty(teacher);
+                    entityManager.persist(assessment);
+
+                    for (User student : students) {
+                        Mark mark = new Mark();
+                        mark.setObtainedMarks(50.0 + j);
+                        mark.setGrade("C");
+                        mark.setStatus("Same");
+                        mark.setStudent(student);
+                        mark.setSubject(subject);
+                        mark.setAssessment(assessment);
+                        entityManager.persist(mark);
+                    }
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // A failed assertion must not leave the count open for the next test on this thread
+        StatementCountingDataSource.end();
+    }
+
+    @Test
+    void markListsRunOneStatement() {
+        Long studentId = students.get(0).getId();
+        Long facultyId = faculty.get(0).getId();
+
+        List<MarkView> byStudent = counted(
+                () -> markRepository.findViewsByStudentId(studentId, null, null, Pageable.unpaged()));
+        assertThat(byStudent).hasSize(FACULTY * SUBJECTS_PER_FACULTY * ASSESSMENTS_PER_SUBJECT);
+
+        List<MarkView> byFaculty = counted(
+                () -> markRepository.findViewsByFacultyId(facultyId, null, null, Pageable.unpaged()));
+        assertThat(byFaculty).hasSize(SUBJECTS_PER_FACULTY * ASSESSMENTS_PER_SUBJECT * STUDENTS);
+
+        // A later page, resuming after (assessment date, id)
+        MarkView last = byFaculty.get(4);
+        List<MarkView> nextPage = counted(() -> markRepository.findViewsByFacultyId(facultyId, last.id(),
+                last.assessment().date(), PageRequest.of(0, 5)));
+        assertThat(nextPage).containsExactlyElementsOf(byFaculty.subList(5, 10));
+    }
+
+    @Test
+    void subjectListsRunOneStatement() {
+        List<SubjectView> all = counted(() -> subjectRepository.findAllViews(null, null, Pageable.unpaged()));
+        assertThat(all).hasSize(FACULTY * SUBJECTS_PER_FACULTY);
+        assertThat(all).extracting(view -> view.faculty().name()).doesNotContainNull();
+
+        Long facultyId = faculty.get(1).getId();
+        assertThat(counted(() -> subjectRepository.findViewsByFacultyId(facultyId, null, null,
+                Pageable.unpaged()))).hasSize(SUBJECTS_PER_FACULTY);
+
+        Long studentId = students.get(2).getId();
+        List<SubjectView> enrolled = counted(() -> subjectRepository.findViewsByStudentId(studentId, null, null,
+                Pageable.unpaged()));
+        assertThat(enrolled).hasSize(FACULTY * SUBJECTS_PER_FACULTY);
+
+        SubjectView last = all.get(1);
+        assertThat(counted(() -> subjectRepository.findAllViews(last.id(), last.name(), PageRequest.of(0, 2))))
+                .containsExactlyElementsOf(all.subList(2, 4));
+    }
+
+    @Test
+    void assessmentListsRunOneStatement() {
+        List<AssessmentView> all = counted(() -> assessmentRepository.findAllViews(null, null, Pageable.unpaged()));
+        assertThat(all).hasSize(FACULTY * SUBJECTS_PER_FACULTY * ASSESSMENTS_PER_SUBJECT);
+
+        Long facultyId = faculty.get(2).getId();
+        assertThat(counted(() -> assessmentRepository.findViewsByFacultyId(facultyId, null, null,
+                Pageable.unpaged()))).hasSize(SUBJECTS_PER_FACULTY * ASSESSMENTS_PER_SUBJECT);
+
+        Long subjectId = subjects.get(3).getId();
+        assertThat(counted(() -> assessmentRepository.findViewsBySubjectId(subjectId, null, null,
+                Pageable.unpaged()))).hasSize(ASSESSMENTS_PER_SUBJECT);
+
+        AssessmentView last = all.get(2);
+        assertThat(counted(() -> assessmentRepository.findAllViews(last.id(), last.date(), PageRequest.of(0, 3))))
+                .containsExactlyElementsOf(all.subList(3, 6));
+    }
+
+    @Test
+    void entityListsWouldLoadEachFacultySeparately() {
+        // What the subject list ran before the read models: the counter does see the extra selects
+        StatementCountingDataSource.begin();
+        assertThat(subjectRepository.findAll()).hasSize(FACULTY * SUBJECTS_PER_FACULTY);
+        assertThat(StatementCountingDataSource.end()).isGreaterThan(1);
+    }
+
+    private <T> List<T> counted(Supplier<List<T>> query) {
+        StatementCountingDataSource.begin();
+        List<T> rows = query.get();
+        assertThat(StatementCountingDataSource.end()).as("statements").isEqualTo(1);
+        return rows;
+    }
+
+    private User user(String name, String role) {
+        User user = new User();
+        user.setName(name);
+        user.setRole(role);
+        user.setUsername(name.toLowerCase().replace(' ', '.'));
+        return entityManager.persist(user);
+    }
+}
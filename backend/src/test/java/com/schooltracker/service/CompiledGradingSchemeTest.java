@@ -0,0 +1,136 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.GradingScheme.Band;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Band compilation and lookup: a score takes the band with the highest min
+ * its moderated percentage reaches, min inclusive.
+ */
+class CompiledGradingSchemeTest {
+
+    private static final CompiledGradingScheme DEFAULT = CompiledGradingScheme.DEFAULT;
+
+    @Test
+    void defaultBandsIncludeTheirMinimum() {
+        assertThat(DEFAULT.grade(100.0, 100.0)).isEqualTo("A");
+        assertThat(DEFAULT.grade(75.0, 100.0)).isEqualTo("A");
+        assertThat(DEFAULT.grade(74.99, 100.0)).isEqualTo("B");
+        assertThat(DEFAULT.grade(60.0, 100.0)).isEqualTo("B");
+        assertThat(DEFAULT.grade(59.99, 100.0)).isEqualTo("C");
+        assertThat(DEFAULT.grade(50.0, 100.0)).isEqualTo("C");
+        assertThat(DEFAULT.grade(40.0, 100.0)).isEqualTo("D");
+        assertThat(DEFAULT.grade(39.99, 100.0)).isEqualTo("Fail");
+        assertThat(DEFAULT.grade(0.0, 100.0)).isEqualTo("Fail");
+
+        // Percentages, not raw scores
+        assertThat(DEFAULT.grade(15.0, 20.0)).isEqualTo("A");
+        assertThat(DEFAULT.grade(7.9, 20.0)).isEqualTo("Fail");
+        assertThat(DEFAULT.points(12.0, 20.0)).isEqualTo(3.0);
+    }
+
+    @Test
+    void scoresWithoutATotalAreNotGraded() {
+        assertThat(DEFAULT.grade(null, 100.0)).isEqualTo(CompiledGradingScheme.NOT_GRADED);
+        assertThat(DEFAULT.grade(50.0, null)).isEqualTo(CompiledGradingScheme.NOT_GRADED);
+        assertThat(DEFAULT.grade(0.0, 0.0)).isEqualTo(CompiledGradingScheme.NOT_GRADED);
+        assertThat(DEFAULT.points(50.0, 0.0)).isNull();
+    }
+
+    @Test
+    void bandsMayBeGivenInAnyOrder() {
+        CompiledGradingScheme scheme = compile(List.of(
+                new Band("Pass", 50, 1.0, null),
+                new Band("Distinction", 85, 3.0, null),
+                new Band("Fail", 0, 0.0, null),
+                new Band("Merit", 65, 2.0, null)), 1.0, 0.0);
+
+        assertThat(scheme.grade(85.0, 100.0)).isEqualTo("Distinction");
+        assertThat(scheme.grade(84.9, 100.0)).isEqualTo("Merit");
+        assertThat(scheme.grade(65.0, 100.0)).isEqualTo("Merit");
+        assertThat(scheme.grade(50.0, 100.0)).isEqualTo("Pass");
+        assertThat(scheme.grade(49.9, 100.0)).isEqualTo("Fail");
+        // Without fail flags the lowest band is the failing one
+        assertThat(scheme.failingGrades()).containsExactly("Fail");
+    }
+
+    @Test
+    void scoresBelowEveryMinTakeTheLowestBand() {
+        CompiledGradingScheme scheme = compile(List.of(
+                new Band("Pass", 40, 1.0, null),
+                new Band("Low", 20, 0.0, null)), 1.0, 0.0);
+
+        assertThat(scheme.grade(19.0, 100.0)).isEqualTo("Low");
+        assertThat(scheme.grade(0.0, 100.0)).isEqualTo("Low");
+    }
+
+    @Test
+    void curveIsAppliedBeforeTheLookupAndCappedAt100() {
+        // 45% * 1.1 + 5 = 54.5%
+        CompiledGradingScheme curved = CompiledGradingScheme.compile(null, "Curved", "GLOBAL",
+                List.of(new Band("A", 75, 4.0, null), new Band("C", 50, 2.0, null), new Band("F", 0, 0.0, null)),
+                1.1, 5.0);
+
+        assertThat(curved.grade(45.0, 100.0)).isEqualTo("C");
+        assertThat(curved.grade(100.0, 100.0)).isEqualTo("A");
+        assertThat(curved.grade(0.0, 100.0)).isEqualTo("F");
+
+        // A negative offset can push a score below the lowest min, which still takes that band
+        CompiledGradingScheme harsh = compile(List.of(new Band("A", 75, 4.0, null), new Band("F", 10, 0.0, null)),
+                1.0, -20.0);
+        assertThat(harsh.grade(94.0, 100.0)).isEqualTo("F");
+        assertThat(harsh.grade(95.0, 100.0)).isEqualTo("A");
+        assertThat(harsh.grade(5.0, 100.0)).isEqualTo("F");
+    }
+
+    @Test
+    void failFlagsReplaceTheLowestBandDefault() {
+        CompiledGradingScheme scheme = compile(List.of(
+                new Band("A", 75, 4.0, false),
+                new Band("B", 60, 3.0, false),
+                new Band("C", 50, 2.0, false),
+                new Band("D", 40, 1.0, true),
+                new Band("Fail", 0, 0.0, true)), 1.0, 0.0);
+
+        assertThat(scheme.failingGrades()).containsExactlyInAnyOrder("D", "Fail");
+        assertThat(scheme.isFailing("D")).isTrue();
+        assertThat(scheme.isFailing("C")).isFalse();
+        // Names the scheme does not use are never failing
+        assertThat(scheme.isFailing(CompiledGradingScheme.NOT_GRADED)).isFalse();
+        assertThat(scheme.isFailing("F")).isFalse();
+
+        assertThat(DEFAULT.failingGrades()).containsExactly("Fail");
+        assertThat(DEFAULT.isFailing("D")).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidSchemes() {
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(List.of(), 1.0, 0.0));
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(null, 1.0, 0.0));
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> compile(List.of(new Band("A", 0, 4.0, null)), 0.0, 0.0));
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> compile(List.of(new Band("A", 0, 4.0, null)), 1.0, Double.NaN));
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(List.of(
+                new Band("A", 50, 4.0, null), new Band(" ", 0, 0.0, null)), 1.0, 0.0));
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(List.of(
+                new Band("A", 50, 4.0, null), new Band(CompiledGradingScheme.NOT_GRADED, 0, 0.0, null)), 1.0, 0.0));
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(List.of(
+                new Band("A", 50, 4.0, null), new Band("A", 0, 0.0, null)), 1.0, 0.0));
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(List.of(
+                new Band("A", 101, 4.0, null), new Band("F", 0, 0.0, null)), 1.0, 0.0));
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(List.of(
+                new Band("A", 50, 4.0, null), new Band("F", -1, 0.0, null)), 1.0, 0.0));
+        assertThatIllegalArgumentException().isThrownBy(() -> compile(List.of(
+                new Band("A", 50, 4.0, null), new Band("B", 50, 3.0, null)), 1.0, 0.0));
+    }
+
+    private static CompiledGradingScheme compile(List<Band> bands, double curveFactor, double curveOffset) {
+        return CompiledGradingScheme.compile(1L, "Test", "GLOBAL", bands, curveFactor, curveOffset);
+    }
+}
@@ -0,0 +1,241 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.controller.EventController;
+import com.schooltracker.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Event streams through EventController: replay after Last-Event-ID, reset
+ * for ids that cannot be replayed, and overflowing subscribers closed. The
+ * sender pool is a queue the tests drain on their own thread, so what a
+ * stream has received is known at each step.
+ */
+@SpringJUnitWebConfig
+@TestPropertySource(properties = {
+        "tracker.events.replay-size=10",
+        "tracker.events.max-queue=3",
+        "tracker.events.timeout-ms=60000" })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class EventBroadcasterTest {
+
+    @Configuration
+    @EnableWebMvc
+    @Import({ EventController.class, EventBroadcaster.class })
+    static class Config {
+
+        @Bean
+        ManualExecutor sender() {
+            return new ManualExecutor();
+        }
+
+        @Bean
+        ExecutionMode executionMode(ManualExecutor sender) {
+            return new ExecutionMode() {
+                @Override
+                public ExecutorService newPool(String name, int platformThreads) {
+                    return sender;
+                }
+            };
+        }
+    }
+
+    /** Holds submitted tasks until {@link #runAll()}. */
+    static class ManualExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = poll()) != null)
+                task.run();
+        }
+
+        private synchronized Runnable poll() {
+            return tasks.poll();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    @MockBean
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private ManualExecutor sender;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        when(referenceDataCache.findUser(anyLong())).thenReturn(Optional.of(new User()));
+    }
+
+    @Test
+    void aKnownIdReplaysTheTopicsLaterEvents() throws Exception {
+        publish("student:1", 1);
+        publish("student:2", 2);
+        publish("student:1", 3);
+        publish("student:1", 4);
+        String boot = bootId();
+
+        MvcResult stream = subscribe(1, boot + "-3");
+        sender.runAll();
+
+        // Only student 1's events after the given id, then live events in order
+        assertThat(ids(stream)).containsExactly(boot + "-4");
+        publish("student:2", 5);
+        publish("student:1", 6);
+        eventBroadcaster.heartbeat();
+        sender.runAll();
+        assertThat(ids(stream)).containsExactly(boot + "-4", boot + "-6");
+        assertThat(names(stream)).containsExactly("mark", "mark");
+        assertThat(content(stream)).contains("data:{\"n\":6}").contains(":ping");
+
+        // Without an id a stream starts with live events only
+        MvcResult fresh = subscribe(1, null);
+        sender.runAll();
+        assertThat(ids(fresh)).isEmpty();
+    }
+
+    @Test
+    void idsThatCannotBeReplayedGetAReset() throws Exception {
+        for (int n = 1; n <= 12; n++)
+            publish("student:2", n);
+        String boot = bootId();
+
+        // Another boot, garbage, ahead of the sequence, and older than the ten-event ring
+        for (String lastEventId : List.of("0-5", "garbage", boot + "-x", boot + "-13", boot + "-1")) {
+            MvcResult stream = subscribe(1, lastEventId);
+            sender.runAll();
+            assertThat(names(stream)).as(lastEventId).containsExactly(EventBroadcaster.RESET);
+            // The reset carries the current id, for the client to resume from after refetching
+            assertThat(ids(stream)).as(lastEventId).containsExactly(boot + "-12");
+        }
+
+        // The oldest id still in the ring replays, here nothing for this topic
+        MvcResult stream = subscribe(1, boot + "-2");
+        sender.runAll();
+        assertThat(names(stream)).isEmpty();
+    }
+
+    @Test
+    void aSubscriberThatFallsBehindIsClosed() throws Exception {
+        MvcResult slow = subscribe(1, null);
+        MvcResult other = subscribe(2, null);
+        publish("student:1", 1);
+        sender.runAll();
+        assertThat(ids(slow)).hasSize(1);
+
+        // Four events queued without a drain overflow the queue of three
+        for (int n = 2; n <= 5; n++)
+            publish("student:1", n);
+        assertThat(slow.getAsyncResult(1000)).isNull();
+        assertThat(eventBroadcaster.getStats()).containsEntry("connections", 1);
+
+        // Events still queued for the closed stream are dropped; other streams carry on
+        publish("student:2", 6);
+        sender.runAll();
+        assertThat(ids(slow)).hasSize(1);
+        assertThat(ids(other)).containsExactly(bootId() + "-6");
+    }
+
+    private MvcResult subscribe(long studentId, String lastEventId) throws Exception {
+        var builder = get("/api/events/student/{id}", studentId);
+        if (lastEventId != null)
+            builder.header("Last-Event-ID", lastEventId);
+        return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private void publish(String topic, int n) {
+        eventBroadcaster.publish(topic, "mark", Map.of("n", n));
+    }
+
+    private String bootId() {
+        String lastEventId = (String) eventBroadcaster.getStats().get("lastEventId");
+        return lastEventId.substring(0, lastEventId.lastIndexOf('-'));
+    }
+
+    private static String content(MvcResult stream) throws Exception {
+        return stream.getResponse().getContentAsString();
+    }
+
+    private static List<String> ids(MvcResult stream) throws Exception {
+        return field(stream, "id:");
+    }
+
+    private static List<String> names(MvcResult stream) throws Exception {
+        return field(stream, "event:");
+    }
+
+    private static List<String> field(MvcResult stream, String prefix) throws Exception {
+        return Arrays.stream(content(stream).split("\n"))
+                .filter(line -> line.startsWith(prefix))
+                .map(line -> line.substring(prefix.length()))
+                .toList();
+    }
+}
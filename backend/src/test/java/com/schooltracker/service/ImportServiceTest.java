@@ -0,0 +1,246 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.model.ImportJob;
+import com.schooltracker.repository.ImportJobErrorJdbcRepository;
+import com.schooltracker.repository.ImportJobRepository;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Import jobs resuming after their last committed chunk, over the Flyway
+ * schema in H2 (MySQL mode). The row importers are mocks recording the
+ * record numbers they were handed; chunks are two rows. Jobs run on their
+ * own thread, so the tests commit their rows and clean up after themselves.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:imports;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "NON_KEYWORDS=YEAR,VALUE;IGNORE_UNKNOWN_SETTINGS=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "tracker.bulk-upload.batch-size=2",
+        "tracker.imports.dir=${java.io.tmpdir}/school-tracker-import-test" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportServiceTest {
+
+    // Stands in for SchoolTrackerApplication, whose startup runner needs the rest of the service layer
+    @Configuration
+    @AutoConfigurationPackage(basePackages = "com.schooltracker")
+    @Import({ ImportService.class, ImportJobErrorJdbcRepository.class, ExecutionMode.class })
+    static class Config {
+    }
+
+    private static final String MARKS_CSV = "username,obtainedMarks\n"
+            + "s1,41\ns2,42\ns3,43\ns4,44\ns5,45\n";
+
+    @MockBean
+    private MarkService markService;
+
+    @MockBean
+    private UserImportService userImportService;
+
+    @MockBean
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${tracker.imports.dir}")
+    private String importDir;
+
+    // Record numbers of each chunk handed to an importer
+    private final List<List<Long>> chunks = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        chunks.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM import_job_errors");
+        jdbcTemplate.update("DELETE FROM import_jobs");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void aFailedJobResumesAfterItsLastCommittedChunk() throws Exception {
+        // The second chunk fails once, after its rows were handed over
+        AtomicInteger calls = new AtomicInteger();
+        when(markService.saveMarksBulk(any(), eq(1L), eq(2L))).thenAnswer(invocation -> {
+            List<Long> numbers = recordNumbers(invocation.getArgument(0));
+            chunks.add(numbers);
+            if (calls.incrementAndGet() == 2)
+                throw new IllegalStateException("Deadlock found when trying to get lock");
+            BulkUploadResult result = new BulkUploadResult();
+            result.success(numbers.size() - 1);
+            result.failure("Student not found for username: s" + numbers.get(0));
+            return result;
+        });
+
+        ImportJob job = upload(ImportService.MARKS, MARKS_CSV);
+        job = awaitFinished(job.getId());
+
+        assertThat(job.getStatus()).isEqualTo(ImportService.FAILED);
+        assertThat(job.getError()).isEqualTo("Deadlock found when trying to get lock");
+        // Only the first chunk committed: its rows, its error and the checkpoint
+        assertThat(job.getRowsProcessed()).isEqualTo(2);
+        assertThat(job.getSuccessCount()).isEqualTo(1);
+        assertThat(job.getFailureCount()).isEqualTo(1);
+        assertThat(importService.getErrors(job.getId(), null, 100)).hasSize(1);
+
+        importService.resume(job.getId());
+        job = awaitFinished(job.getId());
+
+        assertThat(job.getStatus()).isEqualTo(ImportService.DONE);
+        assertThat(chunks).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(3L, 4L), List.of(5L));
+        assertThat(job.getRowsProcessed()).isEqualTo(5);
+        assertThat(job.getSuccessCount()).isEqualTo(2);
+        assertThat(job.getFailureCount()).isEqualTo(3);
+        assertThat(importService.getErrors(job.getId(), null, 100)).extracting(row -> row.get("message"))
+                .containsExactly("Student not found for username: s1", "Student not found for username: s3",
+                        "Student not found for username: s5");
+        assertThat(Files.exists(Paths.get(importDir, job.getId() + ".csv"))).isFalse();
+    }
+
+    @Test
+    void aJobRunningAtShutdownResumesAfterItsCheckpoint() throws Exception {
+        when(markService.saveMarksBulk(any(), eq(1L), eq(2L))).thenAnswer(invocation -> {
+            List<Long> numbers = recordNumbers(invocation.getArgument(0));
+            chunks.add(numbers);
+            BulkUploadResult result = new BulkUploadResult();
+            result.success(numbers.size());
+            return result;
+        });
+
+        // As left by a crash: running, with the first two rows committed
+        byte[] content = MARKS_CSV.getBytes(StandardCharsets.UTF_8);
+        ImportJob job = importService.create(ImportService.MARKS, 2L, 1L, "marks.csv", content.length,
+                sha256(content));
+        Files.write(Paths.get(importDir, job.getId() + ".csv"), content);
+        job.setReceivedBytes(content.length);
+        job.setStatus(ImportService.RUNNING);
+        job.setRowsProcessed(2);
+        job.setSuccessCount(2);
+        job.setUpdatedAt(LocalDateTime.now());
+        importJobRepository.save(job);
+
+        importService.resumeOnStartup();
+        job = awaitFinished(job.getId());
+
+        assertThat(job.getStatus()).isEqualTo(ImportService.DONE);
+        assertThat(chunks).containsExactly(List.of(3L, 4L), List.of(5L));
+        assertThat(job.getSuccessCount()).isEqualTo(5);
+    }
+
+    @Test
+    void userRowsAlreadyImportedAreSkipped() throws Exception {
+        // alice was created before the job's checkpoint could record it
+        jdbcTemplate.update("INSERT INTO users (name, role, username) VALUES ('Alice', 'STUDENT', 'alice')");
+        when(userImportService.importUsers(any())).thenAnswer(invocation -> {
+            List<Long> numbers = recordNumbers(invocation.getArgument(0));
+            chunks.add(numbers);
+            BulkUploadResult result = new BulkUploadResult();
+            result.success(numbers.size());
+            return result;
+        });
+
+        ImportJob job = upload(ImportService.USERS, "username,name,role\nalice,Alice,STUDENT\nbob,Bob,STUDENT\n"
+                + "carol,Carol,STUDENT\n");
+        job = awaitFinished(job.getId());
+
+        assertThat(job.getStatus()).isEqualTo(ImportService.DONE);
+        assertThat(chunks).containsExactly(List.of(2L), List.of(3L));
+        assertThat(job.getSuccessCount()).isEqualTo(2);
+        assertThat(job.getSkippedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void creatingTheSameJobAgainReturnsIt() throws Exception {
+        byte[] content = MARKS_CSV.getBytes(StandardCharsets.UTF_8);
+        ImportJob first = importService.create("marks", 2L, 1L, "marks.csv", content.length, sha256(content));
+        ImportJob again = importService.create(ImportService.MARKS, 2L, 1L, "renamed.csv", content.length,
+                sha256(content).toUpperCase());
+
+        assertThat(again.getId()).isEqualTo(first.getId());
+        assertThat(importJobRepository.count()).isEqualTo(1);
+    }
+
+    private ImportJob upload(String kind, String csv) throws IOException {
+        byte[] content = csv.getBytes(StandardCharsets.UTF_8);
+        ImportJob job = importService.create(kind, 2L, 1L, kind.toLowerCase() + ".csv", content.length,
+                sha256(content));
+        // Two requests, the second resending the overlap a dropped connection would leave unacknowledged
+        int half = content.length / 2;
+        importService.appendChunk(job.getId(), 0, new ByteArrayInputStream(content, 0, half + 3));
+        importService.appendChunk(job.getId(), half, new ByteArrayInputStream(content, half, content.length - half));
+        return importService.complete(job.getId());
+    }
+
+    private ImportJob awaitFinished(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            ImportJob job = importJobRepository.findById(id).orElseThrow();
+            if (ImportService.DONE.equals(job.getStatus()) || ImportService.FAILED.equals(job.getStatus()))
+                return job;
+            if (System.currentTimeMillis() > deadline)
+                fail("Import job " + id + " still " + job.getStatus());
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<Long> recordNumbers(Iterable<CSVRecord> records) {
+        List<Long> numbers = new ArrayList<>();
+        records.forEach(record -> numbers.add(record.getRecordNumber()));
+        return numbers;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
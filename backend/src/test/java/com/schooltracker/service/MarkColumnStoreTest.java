@@ -0,0 +1,171 @@
+package com.schooltracker.service;
+
+import com.schooltracker.model.GradingScheme.Band;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aggregates over the columns, written outside a transaction so each write
+ * applies at once. Subject 1 is graded by a scheme that also fails D;
+ * subject 2 by the built-in bands, where only Fail fails.
+ */
+class MarkColumnStoreTest {
+
+    private static final long STRICT = 1L;
+    private static final long LENIENT = 2L;
+
+    private final CompiledGradingScheme strict = CompiledGradingScheme.compile(10L, "Strict", "SUBJECT:1", List.of(
+            new Band("A", 75, 4.0, false),
+            new Band("B", 60, 3.0, false),
+            new Band("C", 50, 2.0, false),
+            new Band("D", 40, 1.0, true),
+            new Band("Fail", 0, 0.0, true)), 1.0, 0.0);
+
+    private MarkColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MarkColumnStore();
+        store.setSchemeResolver(subjectId -> subjectId == STRICT ? strict : CompiledGradingScheme.DEFAULT);
+    }
+
+    @Test
+    void passCountsUseEachSubjectsFailingGrades() {
+        store.onSaved(1L, 100L, STRICT, 10L, 45.0, 100.0, "D");
+        store.onSaved(2L, 101L, STRICT, 10L, 80.0, 100.0, "A");
+        store.onSaved(3L, 100L, LENIENT, 20L, 45.0, 100.0, "D");
+        store.onSaved(4L, 101L, LENIENT, 20L, 30.0, 100.0, "Fail");
+
+        MarkColumnStore.Aggregate aggregate = store.aggregate(List.of(STRICT, LENIENT));
+
+        assertThat(aggregate.subjects()).containsExactly(
+                new MarkColumnStore.SubjectAggregate(STRICT, 125.0, 200.0, 2, 1),
+                new MarkColumnStore.SubjectAggregate(LENIENT, 75.0, 200.0, 2, 1));
+        // Equal grade names are merged across the two schemes
+        assertThat(aggregate.gradeCounts()).containsExactlyInAnyOrderEntriesOf(Map.of("A", 1L, "D", 2L, "Fail", 1L));
+    }
+
+    @Test
+    void gradesFirstSeenOnAWriteAreCountedUnderTheirScheme() {
+        CompiledGradingScheme passFail = CompiledGradingScheme.compile(11L, "Pass/Fail", "SUBJECT:3", List.of(
+                new Band("Pass", 50, 1.0, null),
+                new Band("No Pass", 0, 0.0, null)), 1.0, 0.0);
+        store.setSchemeResolver(subjectId -> subjectId == 3L ? passFail : CompiledGradingScheme.DEFAULT);
+
+        store.onSaved(1L, 100L, 3L, 30L, 70.0, 100.0, "Pass");
+        store.onSaved(2L, 101L, 3L, 30L, 20.0, 100.0, "No Pass");
+        store.onSaved(3L, 102L, 3L, 30L, 55.0, 100.0, "Pass");
+
+        MarkColumnStore.Aggregate aggregate = store.aggregate(List.of(3L));
+
+        assertThat(aggregate.subjects()).singleElement().satisfies(subject -> {
+            assertThat(subject.markCount()).isEqualTo(3);
+            assertThat(subject.passCount()).isEqualTo(2);
+        });
+        assertThat(aggregate.gradeCounts()).containsExactlyInAnyOrderEntriesOf(Map.of("Pass", 2L, "No Pass", 1L));
+    }
+
+    @Test
+    void regradedMarksMoveBetweenGradesWithoutBeingCountedTwice() {
+        store.onSaved(1L, 100L, LENIENT, 20L, 45.0, 100.0, "D");
+        store.onSaved(2L, 101L, LENIENT, 20L, 55.0, 100.0, "C");
+        store.onSaved(3L, 102L, LENIENT, 20L, 35.0, 100.0, "Fail");
+        assertThat(store.aggregate(List.of(LENIENT)).subjects()).containsExactly(
+                new MarkColumnStore.SubjectAggregate(LENIENT, 135.0, 300.0, 3, 2));
+
+        // Regraded with a pass/fail scheme: every mark is rewritten under its id, with its score
+        CompiledGradingScheme passFail = CompiledGradingScheme.compile(11L, "Pass/Fail", "SUBJECT:2", List.of(
+                new Band("Pass", 50, 1.0, null),
+                new Band("No Pass", 0, 0.0, null)), 1.0, 0.0);
+        store.setSchemeResolver(subjectId -> passFail);
+        store.onSaved(1L, 100L, LENIENT, 20L, 45.0, 100.0, "No Pass");
+        store.onSaved(2L, 101L, LENIENT, 20L, 55.0, 100.0, "Pass");
+        store.onSaved(3L, 102L, LENIENT, 20L, 35.0, 100.0, "No Pass");
+        // A second regrade writing the same grade again
+        store.onSaved(2L, 101L, LENIENT, 20L, 55.0, 100.0, "Pass");
+
+        MarkColumnStore.Aggregate aggregate = store.aggregate(List.of(LENIENT));
+        assertThat(aggregate.subjects()).containsExactly(
+                new MarkColumnStore.SubjectAggregate(LENIENT, 135.0, 300.0, 3, 1));
+        assertThat(aggregate.gradeCounts()).containsExactlyInAnyOrderEntriesOf(Map.of("Pass", 1L, "No Pass", 2L));
+        assertThat(store.getStats()).containsEntry("marks", 3);
+    }
+
+    @Test
+    void reEnteredScoresReplaceTheTotals() {
+        store.onSaved(1L, 100L, LENIENT, 20L, 45.0, 50.0, "A");
+        store.onSaved(1L, 100L, LENIENT, 20L, 15.0, 50.0, "Fail");
+
+        assertThat(store.aggregate(List.of(LENIENT)).subjects()).containsExactly(
+                new MarkColumnStore.SubjectAggregate(LENIENT, 15.0, 50.0, 1, 0));
+    }
+
+    @Test
+    void evictedStudentsLeaveTheAggregates() {
+        for (long mark = 1; mark <= 8; mark++)
+            store.onSaved(mark, 100L + mark % 2, LENIENT, 20L + mark, 50.0, 100.0, "C");
+        store.onSaved(9L, 102L, STRICT, 10L, 40.0, 100.0, "D");
+
+        store.evictStudents(List.of(101L));
+
+        MarkColumnStore.Aggregate aggregate = store.aggregate(List.of(STRICT, LENIENT));
+        assertThat(aggregate.subjects()).containsExactly(
+                new MarkColumnStore.SubjectAggregate(STRICT, 40.0, 100.0, 1, 0),
+                new MarkColumnStore.SubjectAggregate(LENIENT, 200.0, 400.0, 4, 4));
+        assertThat(store.getStats()).containsEntry("marks", 5);
+
+        // A later write for an evicted mark id counts again
+        store.onSaved(1L, 101L, LENIENT, 21L, 50.0, 100.0, "C");
+        assertThat(store.aggregate(List.of(LENIENT)).subjects().get(0).markCount()).isEqualTo(5);
+    }
+
+    @Test
+    void subjectsWithoutMarksAreLeftOut() {
+        store.onSaved(1L, 100L, LENIENT, 20L, 50.0, 100.0, "C");
+
+        assertThat(store.aggregate(List.of(STRICT, LENIENT, 999L)).subjects())
+                .extracting(MarkColumnStore.SubjectAggregate::subjectId).containsExactly(LENIENT);
+        assertThat(store.aggregate(List.of()).subjects()).isEmpty();
+    }
+
+    @Test
+    void largeStoresAreScannedInParallelChunksWithTheSameTotals() {
+        // Past one 65536-row chunk, across both subjects
+        int marks = 150_000;
+        long expectedPasses = 0;
+        for (int mark = 1; mark <= marks; mark++) {
+            long subject = mark % 2 == 0 ? STRICT : LENIENT;
+            String grade = mark % 5 == 0 ? "D" : "B";
+            store.onSaved((long) mark, 1000L + mark % 300, subject, 10L + subject, 1.0, 2.0, grade);
+            if (!(subject == STRICT && grade.equals("D")))
+                expectedPasses++;
+        }
+
+        MarkColumnStore.Aggregate aggregate = store.aggregate(List.of(STRICT, LENIENT));
+
+        assertThat(aggregate.subjects()).extracting(MarkColumnStore.SubjectAggregate::markCount)
+                .containsExactly(75_000L, 75_000L);
+        assertThat(aggregate.subjects()).extracting(MarkColumnStore.SubjectAggregate::totalObtained)
+                .containsExactly(75_000.0, 75_000.0);
+        assertThat(aggregate.subjects()).extracting(MarkColumnStore.SubjectAggregate::totalMax)
+                .containsExactly(150_000.0, 150_000.0);
+        assertThat(aggregate.subjects().stream().mapToLong(MarkColumnStore.SubjectAggregate::passCount).sum())
+                .isEqualTo(expectedPasses);
+        assertThat(aggregate.gradeCounts()).containsExactlyInAnyOrderEntriesOf(Map.of("B", 120_000L, "D", 30_000L));
+    }
+
+    @Test
+    void schemeChangesApplyToTheNextAggregate() {
+        store.onSaved(1L, 100L, LENIENT, 20L, 45.0, 100.0, "D");
+        assertThat(store.aggregate(List.of(LENIENT)).subjects().get(0).passCount()).isEqualTo(1);
+
+        // The resolver is consulted per aggregate, so a new scheme needs no rebuild
+        store.setSchemeResolver(subjectId -> strict);
+        assertThat(store.aggregate(List.of(LENIENT)).subjects().get(0).passCount()).isZero();
+    }
+}
@@ -0,0 +1,263 @@
+package com.schooltracker.service;
+
+import com.schooltracker.dto.MarkKeyRow;
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Mark;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import com.schooltracker.repository.MarkJdbcRepository;
+import com.schooltracker.repository.MarkRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mark upserts over the Flyway schema in H2 (MySQL mode): rows keyed by
+ * (student, assessment), ids of inserted rows read back, unchanged scores
+ * skipped. The indexes and notification outbox the writes feed are mocks.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mark-upserts;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "NON_KEYWORDS=YEAR,VALUE;IGNORE_UNKNOWN_SETTINGS=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MarkServiceTest {
+
+    // Stands in for SchoolTrackerApplication, whose startup runner needs the rest of the service layer
+    @Configuration
+    @AutoConfigurationPackage(basePackages = "com.schooltracker")
+    @Import({ MarkService.class, MarkJdbcRepository.class, BulkUploadMetrics.class })
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObservationRegistry observationRegistry() {
+            return ObservationRegistry.NOOP;
+        }
+    }
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @MockBean
+    private MarkTrendIndex trendIndex;
+
+    @MockBean
+    private RankingIndex rankingIndex;
+
+    @MockBean
+    private MarkColumnStore markColumnStore;
+
+    @MockBean
+    private MarkEventPublisher markEventPublisher;
+
+    @MockBean
+    private ReferenceDataCache referenceDataCache;
+
+    @MockBean
+    private GradingPolicyService gradingPolicyService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MarkService markService;
+
+    @Autowired
+    private MarkRepository markRepository;
+
+    private User alice;
+    private User bob;
+    private Subject subject;
+    private Assessment assessment;
+
+    @BeforeEach
+    void setUp() {
+        User faculty = user("Faculty", "FACULTY");
+        alice = user("Alice", "STUDENT");
+        bob = user("Bob", "STUDENT");
+
+        subject = new Subject();
+        subject.setName("Physics");
+        subject.setCode("PHY");
+        subject.setYear("2025");
+        subject.setSemester("1");
+        subject.setFaculty(faculty);
+        entityManager.persist(subject);
+
+        assessment = new Assessment();
+        assessment.setName("Unit Test 1");
+        assessment.setType("Theory");
+        assessment.setTotalMarks(50.0);
+        assessment.setDate(LocalDate.of(2025, 1, 6));
+        assessment.setSubject(subject);
+        assessment.setFaculty(faculty);
+        entityManager.persist(assessment);
+        entityManager.flush();
+
+        when(referenceDataCache.findAssessment(assessment.getId())).thenReturn(Optional.of(assessment));
+        when(referenceDataCache.findSubject(subject.getId())).thenReturn(Optional.of(subject));
+        when(referenceDataCache.findUser(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(entityManager.find(User.class, invocation.getArgument(0))));
+        when(gradingPolicyService.forSubject(anyLong())).thenReturn(CompiledGradingScheme.DEFAULT);
+    }
+
+    @Test
+    void bulkUploadReadsTheIdsOfInsertedRowsBack() throws IOException {
+        BulkUploadResult result = upload("alice,40\nbob,20\n");
+
+        assertThat(result.getSuccessCount()).isEqualTo(2);
+        assertThat(result.getFailureCount()).isZero();
+        Map<Long, MarkKeyRow> stored = stored();
+        assertThat(stored.get(alice.getId()).obtainedMarks()).isEqualTo(40.0);
+        assertThat(stored.get(bob.getId()).obtainedMarks()).isEqualTo(20.0);
+
+        // The downstream indexes are fed the ids the database assigned
+        verify(markColumnStore).onSaved(stored.get(alice.getId()).markId(), alice.getId(), subject.getId(),
+                assessment.getId(), 40.0, 50.0, "A");
+        verify(markColumnStore).onSaved(stored.get(bob.getId()).markId(), bob.getId(), subject.getId(),
+                assessment.getId(), 20.0, 50.0, "D");
+        verify(trendIndex).onSaved(stored.get(alice.getId()).markId(), alice.getId(), subject.getId(),
+                assessment.getId(), assessment.getDate(), 80.0);
+    }
+
+    @Test
+    void bulkUploadSkipsUnchangedScores() throws IOException {
+        upload("alice,40\nbob,20\n");
+        Map<Long, MarkKeyRow> before = stored();
+        clearInvocations(markColumnStore, notificationService, markEventPublisher);
+
+        BulkUploadResult result = upload("alice,40\nbob,25\n");
+
+        assertThat(result.getSuccessCount()).isEqualTo(1);
+        assertThat(result.getUnchangedCount()).isEqualTo(1);
+        Map<Long, MarkKeyRow> after = stored();
+        assertThat(after.get(bob.getId()).markId()).isEqualTo(before.get(bob.getId()).markId());
+        assertThat(after.get(bob.getId()).obtainedMarks()).isEqualTo(25.0);
+
+        // Only the changed row is written through, in one batch
+        verify(markColumnStore, times(1)).onSaved(anyLong(), anyLong(), anyLong(), anyLong(), anyDouble(),
+                anyDouble(), anyString());
+        verify(markColumnStore).onSaved(before.get(bob.getId()).markId(), bob.getId(), subject.getId(),
+                assessment.getId(), 25.0, 50.0, "C");
+        verify(notificationService, times(1)).enqueue(any());
+        verify(markEventPublisher, times(1)).onBulkSaved(any(), any());
+    }
+
+    @Test
+    void bulkUploadKeepsTheLastRowOfADuplicatedStudent() throws IOException {
+        List<CSVRecord> records = csv("alice,10\nbob,20\nALICE,45\n");
+
+        BulkUploadResult result = markService.saveMarksBulk(records, assessment.getId(), subject.getId());
+
+        // Two marks were written; the superseded row is reported, not counted as a success
+        assertThat(result.getSuccessCount()).isEqualTo(2);
+        assertThat(result.getFailureCount()).isZero();
+        assertThat(result.getDuplicates()).containsExactly("Row " + records.get(0).getRecordNumber()
+                + " replaced by row " + records.get(2).getRecordNumber() + " for username: ALICE");
+        assertThat(result.toResponse()).containsEntry("duplicateCount", 1);
+        assertThat(stored().get(alice.getId()).obtainedMarks()).isEqualTo(45.0);
+    }
+
+    @Test
+    void bulkUploadReportsUnknownStudentsAndUnparsableScores() throws IOException {
+        BulkUploadResult result = upload("alice,abc\nnobody,30\nbob,30\n");
+
+        assertThat(result.getSuccessCount()).isEqualTo(1);
+        assertThat(result.getFailureCount()).isEqualTo(2);
+        assertThat(result.getErrors()).anyMatch(error -> error.startsWith("Error processing row"))
+                .contains("Student not found for username: nobody");
+        assertThat(stored()).containsOnlyKeys(bob.getId());
+    }
+
+    @Test
+    void savingAnUnchangedScoreReturnsTheStoredMark() {
+        Mark first = markService.saveMark(mark(alice, 30.0));
+        assertThat(first.getId()).isNotNull();
+        assertThat(first.getGrade()).isEqualTo("B");
+        clearInvocations(notificationService, markColumnStore);
+
+        Mark again = markService.saveMark(mark(alice, 30.0));
+
+        assertThat(again.getId()).isEqualTo(first.getId());
+        verify(notificationService, never()).enqueue(any());
+        verify(markColumnStore, never()).onSaved(any(), any(), any(), any(), any(), any(), any());
+
+        // A changed score replaces the same row
+        Mark changed = markService.saveMark(mark(alice, 45.0));
+        assertThat(changed.getId()).isEqualTo(first.getId());
+        assertThat(changed.getGrade()).isEqualTo("A");
+        assertThat(stored().get(alice.getId()).obtainedMarks()).isEqualTo(45.0);
+    }
+
+    private BulkUploadResult upload(String rows) throws IOException {
+        return markService.saveMarksBulk(csv(rows), assessment.getId(), subject.getId());
+    }
+
+    private static List<CSVRecord> csv(String rows) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build();
+        return format.parse(new StringReader("username,obtainedMarks\n" + rows)).getRecords();
+    }
+
+    private Map<Long, MarkKeyRow> stored() {
+        Map<Long, MarkKeyRow> byStudent = new HashMap<>();
+        for (MarkKeyRow row : markRepository.findKeyRows(assessment.getId(), List.of(alice.getId(), bob.getId())))
+            byStudent.put(row.studentId(), row);
+        return byStudent;
+    }
+
+    private Mark mark(User student, double obtained) {
+        Mark mark = new Mark();
+        mark.setObtainedMarks(obtained);
+        mark.setStudent(student);
+        mark.setSubject(subject);
+        mark.setAssessment(assessment);
+        return mark;
+    }
+
+    private User user(String name, String role) {
+        User user = new User();
+        user.setName(name);
+        user.setRole(role);
+        user.setUsername(name.toLowerCase());
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,301 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ConcurrencyLimiter;
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.model.Notification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * NotificationDispatcher against recording EmailService and SMSService
+ * stubs. The outbox is a mock: claimDue hands out the rows a test prepares,
+ * and the dispatcher's outcome is read back from those rows.
+ */
+@SpringJUnitConfig
+@TestPropertySource(properties = {
+        "tracker.notifications.workers=4",
+        "tracker.notifications.email-batch-size=20",
+        "tracker.notifications.email-rate-per-second=1000",
+        "tracker.notifications.sms-rate-per-second=20",
+        "tracker.notifications.max-attempts=3",
+        "tracker.notifications.retry-backoff-ms=1000",
+        "spring.mail.username=tracker@example.com",
+        "twilio.account.sid=ACxxxx",
+        "twilio.auth.token=test",
+        "twilio.phone.number=+10000000000" })
+class NotificationDispatcherTest {
+
+    @Configuration
+    @Import({ NotificationDispatcher.class, NotificationDigester.class, ExecutionMode.class,
+            ConcurrencyLimiter.class })
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObservationRegistry observationRegistry() {
+            return ObservationRegistry.NOOP;
+        }
+
+        // Only there for EmailService's injected field; the stub never sends through it
+        @Bean
+        JavaMailSender mailSender() {
+            return new JavaMailSenderImpl();
+        }
+
+        @Bean
+        RecordingEmailService emailService() {
+            return new RecordingEmailService();
+        }
+
+        @Bean
+        RecordingSmsService smsService() {
+            return new RecordingSmsService();
+        }
+    }
+
+    /** Records the size of each batch; recipients starting with "broken" cannot be built. */
+    static class RecordingEmailService extends EmailService {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public SimpleMailMessage buildEmail(String to, String subject, String body) {
+            if (to.startsWith("broken"))
+                throw new IllegalStateException("Cannot build an email to " + to);
+            return super.buildEmail(to, subject, body);
+        }
+
+        @Override
+        public void sendEmails(List<SimpleMailMessage> messages) {
+            batchSizes.add(messages.size());
+        }
+    }
+
+    /** Records each recipient; sends to numbers starting with "+0" fail. */
+    static class RecordingSmsService extends SMSService {
+        final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void sendSMS(String mobileNumber, String text) {
+            if (mobileNumber.startsWith("+0"))
+                throw new RuntimeException("Gateway rejected " + mobileNumber);
+            sent.add(mobileNumber);
+        }
+    }
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+
+    @Autowired
+    private RecordingEmailService emailService;
+
+    @Autowired
+    private RecordingSmsService smsService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        emailService.batchSizes.clear();
+        smsService.sent.clear();
+    }
+
+    @Test
+    void sendsEmailsInBatchesOfTheConfiguredSize() {
+        List<Notification> due = claimed(45, i -> email("student" + i + "@example.com"));
+        when(notificationService.claimDue(anyInt())).thenReturn(due);
+
+        dispatcher.drain();
+
+        assertThat(emailService.batchSizes).containsExactlyInAnyOrder(20, 20, 5);
+        assertThat(due).allSatisfy(n -> {
+            assertThat(n.getStatus()).isEqualTo(NotificationService.SENT);
+            assertThat(n.getAttempts()).isEqualTo(1);
+            assertThat(n.getSentAt()).isNotNull();
+        });
+        verify(notificationService).complete(due);
+        verify(notificationService, never()).release(any());
+    }
+
+    @Test
+    void holdsSmsToTheTokenBucketRate() {
+        // 20 per second from a bucket of at most 20: the last of 40 waits a second or more
+        List<Notification> due = claimed(40, i -> sms("+91" + (9000000000L + i)));
+        when(notificationService.claimDue(anyInt())).thenReturn(due);
+
+        long start = System.nanoTime();
+        dispatcher.drain();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(smsService.sent).hasSize(40);
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(950);
+        assertThat(due).allSatisfy(n -> assertThat(n.getStatus()).isEqualTo(NotificationService.SENT));
+    }
+
+    @Test
+    void pollsOffTheSchedulerThread() {
+        // 40 SMS at 20 per second keep the drain busy for a second or more
+        List<Notification> due = claimed(40, i -> sms("+91" + (9200000000L + i)));
+        when(notificationService.claimDue(anyInt())).thenReturn(due).thenReturn(List.of());
+
+        long start = System.nanoTime();
+        dispatcher.poll();
+        dispatcher.poll();
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(500);
+
+        // The second poll found the first drain running and did not start another
+        verify(notificationService, timeout(5000)).complete(due);
+        verify(notificationService, times(1)).claimDue(anyInt());
+    }
+
+    @Test
+    void retriesWithExponentialBackoffThenFails() {
+        Notification n = sms("+0000000000");
+        when(notificationService.claimDue(anyInt())).thenReturn(List.of(n));
+
+        // 1x then 2x the base backoff
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            n.setStatus(NotificationService.SENDING);
+            LocalDateTime before = LocalDateTime.now();
+            dispatcher.drain();
+
+            assertThat(n.getStatus()).isEqualTo(NotificationService.PENDING);
+            assertThat(n.getAttempts()).isEqualTo(attempt);
+            assertThat(n.getLastError()).isEqualTo("Gateway rejected +0000000000");
+            assertThat(n.getNextAttemptAt())
+                    .isCloseTo(before.plusSeconds(1L << (attempt - 1)), within(500, ChronoUnit.MILLIS));
+        }
+
+        // The third of max-attempts=3 gives up
+        n.setStatus(NotificationService.SENDING);
+        LocalDateTime nextAttemptAt = n.getNextAttemptAt();
+        dispatcher.drain();
+
+        assertThat(n.getStatus()).isEqualTo(NotificationService.FAILED);
+        assertThat(n.getAttempts()).isEqualTo(3);
+        assertThat(n.getNextAttemptAt()).isEqualTo(nextAttemptAt);
+        assertThat(n.getSentAt()).isNull();
+        assertThat(smsService.sent).isEmpty();
+    }
+
+    @Test
+    void failsOnlyTheDeliveryThatThrows() {
+        Notification sent = email("student@example.com");
+        Notification broken = email("broken@example.com");
+        List<Notification> due = List.of(sent, broken);
+        due.forEach(n -> n.setStatus(NotificationService.SENDING));
+        when(notificationService.claimDue(anyInt())).thenReturn(due);
+
+        dispatcher.drain();
+
+        assertThat(emailService.batchSizes).containsExactly(1);
+        assertThat(sent.getStatus()).isEqualTo(NotificationService.SENT);
+        assertThat(sent.getAttempts()).isEqualTo(1);
+        assertThat(broken.getStatus()).isEqualTo(NotificationService.PENDING);
+        assertThat(broken.getAttempts()).isEqualTo(1);
+        assertThat(broken.getLastError()).isEqualTo("Cannot build an email to broken@example.com");
+        verify(notificationService).complete(due);
+        verify(notificationService, never()).release(any());
+
+        // The next claim retries only the broken row, and counts the attempt
+        broken.setStatus(NotificationService.SENDING);
+        when(notificationService.claimDue(anyInt())).thenReturn(List.of(broken));
+        dispatcher.drain();
+
+        assertThat(emailService.batchSizes).containsExactly(1);
+        assertThat(broken.getAttempts()).isEqualTo(2);
+        assertThat(sent.getStatus()).isEqualTo(NotificationService.SENT);
+    }
+
+    @Test
+    @DirtiesContext
+    void releasesOnlyTheRowsThePoolRejected() throws InterruptedException {
+        List<Notification> due = claimed(3, i -> sms("+91" + (9100000000L + i)));
+        when(notificationService.claimDue(anyInt())).thenReturn(due);
+        dispatcher.shutdown();
+
+        dispatcher.drain();
+
+        assertThat(smsService.sent).isEmpty();
+        assertThat(due).allSatisfy(n -> assertThat(n.getAttempts()).isZero());
+        verify(notificationService).release(argThat(rows -> rows.size() == 3 && rows.containsAll(due)));
+        verify(notificationService, never()).complete(any());
+    }
+
+    @Test
+    void requeuesSendingRowsOnStartup() {
+        context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context,
+                Duration.ZERO));
+
+        verify(notificationService).releaseInFlight();
+    }
+
+    private static List<Notification> claimed(int count, IntFunction<Notification> notification) {
+        List<Notification> due = IntStream.range(0, count).mapToObj(notification).toList();
+        due.forEach(n -> n.setStatus(NotificationService.SENDING));
+        return due;
+    }
+
+    private static Notification email(String to) {
+        Notification n = notification(NotificationService.EMAIL, to);
+        n.setSubject("Performance Update");
+        return n;
+    }
+
+    private static Notification sms(String to) {
+        return notification(NotificationService.SMS, to);
+    }
+
+    private static Notification notification(String channel, String recipient) {
+        Notification n = new Notification();
+        n.setChannel(channel);
+        n.setRecipient(recipient);
+        n.setBody("Marks updated");
+        n.setStatus(NotificationService.PENDING);
+        return n;
+    }
+}
@@ -0,0 +1,171 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.H2StreamingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Assessment and subject cohorts built from the marks table and kept up to
+ * date by mark writes and student deletions, over the Flyway schema in H2
+ * (MySQL mode). Writes outside a transaction apply at once, so the tests
+ * commit their rows and clean up after themselves.
+ *
+ * Assessment 1 (out of 50): students 10 and 11 score 80%, 12 scores 60%,
+ * 13 scores 40%. Assessment 2 (out of 100): 10 scores 60, 11 scores 80,
+ * 12 scores 60. Cumulative: 11 80%, 10 66.7%, 12 60%, 13 40%.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rankings;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "NON_KEYWORDS=YEAR,VALUE;IGNORE_UNKNOWN_SETTINGS=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RankingIndexTest {
+
+    // Stands in for SchoolTrackerApplication, whose startup runner needs the service layer
+    @Configuration
+    @AutoConfigurationPackage(basePackages = "com.schooltracker")
+    @Import({ H2StreamingConfig.class, RankingIndex.class })
+    static class Config {
+    }
+
+    private static final long SUBJECT = 1L;
+    private static final long FIRST = 1L;
+    private static final long SECOND = 2L;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, name, role, username) VALUES (1, 'Faculty', 'FACULTY', 'faculty')");
+        for (long student = 10; student <= 13; student++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, role, username) VALUES (?, ?, 'STUDENT', ?)", student,
+                    "Student " + student, "student" + student);
+        }
+        jdbcTemplate.update("INSERT INTO subjects (id, name, code, year, semester, faculty_id) "
+                + "VALUES (1, 'Physics', 'PHY', '2025', '1', 1)");
+        assessment(FIRST, 50, "2025-01-06");
+        assessment(SECOND, 100, "2025-02-03");
+
+        mark(10, FIRST, 40);
+        mark(11, FIRST, 40);
+        mark(12, FIRST, 30);
+        mark(13, FIRST, 20);
+        mark(10, SECOND, 60);
+        mark(11, SECOND, 80);
+        mark(12, SECOND, 60);
+
+        rankingIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("marks", "assessments", "subjects", "users"))
+            jdbcTemplate.update("DELETE FROM " + table);
+    }
+
+    @Test
+    void rebuiltCohortsRankTiesTogether() {
+        ScoreCohort first = rankingIndex.assessment(FIRST);
+        assertThat(first.size()).isEqualTo(4);
+        assertThat(first.rank(10)).isEqualTo(1);
+        assertThat(first.rank(11)).isEqualTo(1);
+        assertThat(first.rank(12)).isEqualTo(3);
+        assertThat(first.percentile(10)).isCloseTo(75.0, within(1e-9));
+        assertThat(first.percentile(13)).isCloseTo(12.5, within(1e-9));
+
+        ScoreCohort subject = rankingIndex.subject(SUBJECT);
+        assertThat(subject.rank(11)).isEqualTo(1);
+        assertThat(subject.rank(10)).isEqualTo(2);
+        assertThat(subject.rank(12)).isEqualTo(3);
+        assertThat(subject.rank(13)).isEqualTo(4);
+        assertThat(subject.score(10)).isCloseTo(100.0 / 150 * 100, within(1e-9));
+    }
+
+    @Test
+    void savedMarksReRankTheirStudent() {
+        // Student 12 is re-marked into the tie at the top of the first assessment
+        jdbcTemplate.update("UPDATE marks SET obtained_marks = 40 WHERE student_id = 12 AND assessment_id = 1");
+        rankingIndex.onSaved(12L, SUBJECT);
+
+        ScoreCohort first = rankingIndex.assessment(FIRST);
+        assertThat(first.rank(10)).isEqualTo(1);
+        assertThat(first.rank(11)).isEqualTo(1);
+        assertThat(first.rank(12)).isEqualTo(1);
+        assertThat(first.rank(13)).isEqualTo(4);
+        assertThat(first.percentile(12)).isCloseTo(62.5, within(1e-9));
+
+        // 100 / 150 now ties student 10 cumulatively
+        ScoreCohort subject = rankingIndex.subject(SUBJECT);
+        assertThat(subject.rank(12)).isEqualTo(2);
+        assertThat(subject.rank(10)).isEqualTo(2);
+        assertThat(subject.rank(13)).isEqualTo(4);
+
+        // A first mark in the second assessment joins that cohort and ties student 11 cumulatively
+        mark(13, SECOND, 100);
+        rankingIndex.onSavedAll(SUBJECT, List.of(13L));
+
+        ScoreCohort second = rankingIndex.assessment(SECOND);
+        assertThat(second.size()).isEqualTo(4);
+        assertThat(second.rank(13)).isEqualTo(1);
+        assertThat(second.rank(10)).isEqualTo(3);
+        assertThat(subject.score(13)).isCloseTo(80.0, within(1e-9));
+        assertThat(subject.rank(13)).isEqualTo(1);
+        assertThat(subject.rank(11)).isEqualTo(1);
+        assertThat(subject.percentile(11)).isCloseTo(75.0, within(1e-9));
+    }
+
+    @Test
+    void deletedStudentsLeaveEveryCohort() {
+        jdbcTemplate.update("DELETE FROM marks WHERE student_id = 11");
+        jdbcTemplate.update("DELETE FROM users WHERE id = 11");
+        rankingIndex.evictStudents(List.of(11L));
+
+        ScoreCohort first = rankingIndex.assessment(FIRST);
+        assertThat(first.size()).isEqualTo(3);
+        assertThat(first.rank(11)).isZero();
+        assertThat(first.percentile(11)).isNull();
+        // Student 10 no longer shares the top score
+        assertThat(first.rank(10)).isEqualTo(1);
+        assertThat(first.percentile(10)).isCloseTo(250.0 / 3, within(1e-9));
+
+        ScoreCohort subject = rankingIndex.subject(SUBJECT);
+        assertThat(subject.size()).isEqualTo(3);
+        assertThat(subject.rank(10)).isEqualTo(1);
+        assertThat(rankingIndex.assessment(SECOND).rank(10)).isEqualTo(1);
+        assertThat(rankingIndex.assessment(SECOND).rank(12)).isEqualTo(1);
+    }
+
+    private void assessment(long id, double totalMarks, String date) {
+        jdbcTemplate.update("INSERT INTO assessments (id, name, type, total_marks, date, subject_id, faculty_id) "
+                + "VALUES (?, ?, 'Theory', ?, ?, 1, 1)", id, "Assessment " + id, totalMarks,
+                Date.valueOf(date));
+    }
+
+    private void mark(long studentId, long assessmentId, double obtained) {
+        jdbcTemplate.update("INSERT INTO marks (obtained_marks, grade, status, student_id, subject_id, assessment_id) "
+                + "VALUES (?, 'B', 'Same', ?, 1, ?)", obtained, studentId, assessmentId);
+    }
+}
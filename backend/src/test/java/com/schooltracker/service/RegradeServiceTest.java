@@ -0,0 +1,176 @@
+package com.schooltracker.service;
+
+import com.schooltracker.config.ExecutionMode;
+import com.schooltracker.config.H2StreamingConfig;
+import com.schooltracker.dto.MarkColumnRow;
+import com.schooltracker.model.GradingScheme;
+import com.schooltracker.model.Subject;
+import com.schooltracker.repository.MarkJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Scheme changes regrading stored marks, over the Flyway schema in H2
+ * (MySQL mode). Regrade jobs run on their own thread, so the tests commit
+ * their rows instead of running in a rolled-back transaction.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:regrade;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "NON_KEYWORDS=YEAR,VALUE;IGNORE_UNKNOWN_SETTINGS=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RegradeServiceTest {
+
+    // Stands in for SchoolTrackerApplication, whose startup runner needs the rest of the service layer
+    @Configuration
+    @AutoConfigurationPackage(basePackages = "com.schooltracker")
+    @Import({ H2StreamingConfig.class, GradingPolicyService.class, RegradeService.class, MarkColumnStore.class,
+            MarkJdbcRepository.class, ExecutionMode.class })
+    static class Config {
+    }
+
+    private static final long SUBJECT = 1L;
+    private static final long OTHER_SUBJECT = 2L;
+
+    @MockBean
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private GradingPolicyService gradingPolicyService;
+
+    @Autowired
+    private MarkColumnStore markColumnStore;
+
+    @Autowired
+    private MarkJdbcRepository markJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        when(referenceDataCache.findSubject(anyLong())).thenReturn(Optional.of(new Subject()));
+
+        jdbcTemplate.update("INSERT INTO users (id, name, role, username) VALUES (1, 'Faculty', 'FACULTY', 'faculty')");
+        for (long student = 10; student <= 12; student++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, role, username) VALUES (?, ?, 'STUDENT', ?)", student,
+                    "Student " + student, "student" + student);
+        }
+        for (long subject : new long[] { SUBJECT, OTHER_SUBJECT }) {
+            jdbcTemplate.update("INSERT INTO subjects (id, name, code, year, semester, faculty_id) "
+                    + "VALUES (?, ?, ?, '2025', '1', 1)", subject, "Subject " + subject, "S" + subject);
+            jdbcTemplate.update("INSERT INTO assessments (id, name, type, total_marks, date, subject_id, faculty_id) "
+                    + "VALUES (?, 'Unit Test 1', 'Theory', 100, DATE '2025-01-06', ?, 1)", subject, subject);
+        }
+        mark(1, 10, SUBJECT, 45, "D");
+        mark(2, 11, SUBJECT, 55, "C");
+        mark(3, 12, SUBJECT, 80, "A");
+        mark(4, 10, OTHER_SUBJECT, 45, "D");
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("grading_schemes", "marks", "assessments", "subjects", "users"))
+            jdbcTemplate.update("DELETE FROM " + table);
+    }
+
+    @Test
+    void savingASchemeRegradesTheMarksOfItsSubject() throws InterruptedException {
+        markColumnStore.rebuild();
+
+        GradingScheme scheme = new GradingScheme();
+        scheme.setName("Pass/Fail with distinction");
+        scheme.setSubjectId(SUBJECT);
+        scheme.setBands(List.of(
+                new GradingScheme.Band("A", 80, 4.0, false),
+                new GradingScheme.Band("Pass", 50, 1.0, false),
+                new GradingScheme.Band("Fail", 0, 0.0, true)));
+        Map<String, Object> saved = gradingPolicyService.save(scheme);
+
+        RegradeJob job = (RegradeJob) saved.get("regradeJob");
+        assertThat(job.getSubjectIds()).containsExactly(SUBJECT);
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo(RegradeJob.DONE);
+        assertThat(job.getMarksScanned()).isEqualTo(3);
+        // 80 stays an A; only the two changed grades are written
+        assertThat(job.getMarksRegraded()).isEqualTo(2);
+
+        assertThat(grades()).containsExactlyInAnyOrderEntriesOf(Map.of(1L, "Fail", 2L, "Pass", 3L, "A", 4L, "D"));
+
+        MarkColumnStore.Aggregate aggregate = markColumnStore.aggregate(List.of(SUBJECT));
+        assertThat(aggregate.subjects()).singleElement().satisfies(subject -> {
+            assertThat(subject.markCount()).isEqualTo(3);
+            assertThat(subject.passCount()).isEqualTo(2);
+        });
+        assertThat(aggregate.gradeCounts()).containsExactlyInAnyOrderEntriesOf(Map.of("A", 1L, "Pass", 1L, "Fail", 1L));
+    }
+
+    @Test
+    void regradeSkipsAMarkReenteredSinceItWasRead() {
+        MarkColumnRow readBefore = new MarkColumnRow(1L, 10L, SUBJECT, SUBJECT, 45.0, 100.0, "D");
+        MarkColumnRow unchanged = new MarkColumnRow(2L, 11L, SUBJECT, SUBJECT, 55.0, 100.0, "C");
+
+        // A faculty member re-enters the first mark, with its fresh grade, after the regrade read it
+        jdbcTemplate.update("UPDATE marks SET obtained_marks = 70, grade = 'B' WHERE id = 1");
+
+        List<Long> updated = transactionTemplate.execute(
+                status -> markJdbcRepository.updateGrades(List.of(readBefore, unchanged), List.of("Fail", "Pass")));
+
+        assertThat(updated).containsExactly(2L);
+        assertThat(grades()).containsEntry(1L, "B").containsEntry(2L, "Pass");
+        assertThat(jdbcTemplate.queryForObject("SELECT obtained_marks FROM marks WHERE id = 1", Double.class))
+                .isEqualTo(70.0);
+    }
+
+    private void mark(long id, long studentId, long subjectId, double obtained, String grade) {
+        jdbcTemplate.update("INSERT INTO marks (id, obtained_marks, grade, status, student_id, subject_id, "
+                + "assessment_id) VALUES (?, ?, ?, 'Same', ?, ?, ?)", id, obtained, grade, studentId, subjectId,
+                subjectId);
+    }
+
+    private Map<Long, String> grades() {
+        return jdbcTemplate.query("SELECT id, grade FROM marks", rs -> {
+            Map<Long, String> grades = new HashMap<>();
+            while (rs.next())
+                grades.put(rs.getLong("id"), rs.getString("grade"));
+            return grades;
+        });
+    }
+
+    private static void awaitFinished(RegradeJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.getFinishedAt() == null) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Regrade job still " + job.getStatus());
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.schooltracker.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Competition ranks and percentile ranks over a cohort with ties, kept
+ * consistent as scores change and students leave.
+ */
+class ScoreCohortTest {
+
+    private ScoreCohort cohort;
+
+    @BeforeEach
+    void setUp() {
+        cohort = new ScoreCohort();
+        cohort.put(1, 80);
+        cohort.put(2, 80);
+        cohort.put(3, 60);
+        cohort.put(4, 40);
+    }
+
+    @Test
+    void tiesShareTheirRankAndTheNextRankIsSkipped() {
+        assertThat(cohort.rank(1)).isEqualTo(1);
+        assertThat(cohort.rank(2)).isEqualTo(1);
+        assertThat(cohort.rank(3)).isEqualTo(3);
+        assertThat(cohort.rank(4)).isEqualTo(4);
+
+        assertThat(cohort.top(3)).extracting(ScoreCohort.Entry::studentId, ScoreCohort.Entry::rank)
+                .containsExactly(tuple(2L, 1), tuple(1L, 1), tuple(3L, 3));
+        assertThat(cohort.bottom(1)).extracting(ScoreCohort.Entry::studentId).containsExactly(4L);
+    }
+
+    @Test
+    void percentilesCountTiesAsHalf() {
+        // Below 80: two students; at 80: two, counted as one
+        assertThat(cohort.percentile(1)).isCloseTo(75.0, within(1e-9));
+        assertThat(cohort.percentile(2)).isCloseTo(75.0, within(1e-9));
+        assertThat(cohort.percentile(3)).isCloseTo(37.5, within(1e-9));
+        assertThat(cohort.percentile(4)).isCloseTo(12.5, within(1e-9));
+    }
+
+    @Test
+    void aChangedScoreMovesTheStudent() {
+        cohort.put(4, 80);
+
+        assertThat(cohort.size()).isEqualTo(4);
+        assertThat(cohort.rank(4)).isEqualTo(1);
+        assertThat(cohort.rank(3)).isEqualTo(4);
+        assertThat(cohort.percentile(1)).isCloseTo(62.5, within(1e-9));
+
+        // Breaking the tie
+        cohort.put(1, 90);
+        assertThat(cohort.rank(1)).isEqualTo(1);
+        assertThat(cohort.rank(2)).isEqualTo(2);
+        assertThat(cohort.rank(4)).isEqualTo(2);
+        assertThat(cohort.score(1)).isEqualTo(90.0);
+
+        // Saving the same score again changes nothing
+        cohort.put(1, 90);
+        assertThat(cohort.size()).isEqualTo(4);
+        assertThat(cohort.top(1)).singleElement().extracting(ScoreCohort.Entry::studentId).isEqualTo(1L);
+    }
+
+    @Test
+    void removedStudentsLeaveTheRanking() {
+        cohort.remove(1);
+
+        assertThat(cohort.size()).isEqualTo(3);
+        assertThat(cohort.rank(1)).isZero();
+        assertThat(cohort.percentile(1)).isNull();
+        assertThat(cohort.rank(2)).isEqualTo(1);
+        assertThat(cohort.percentile(2)).isCloseTo(250.0 / 3, within(1e-9));
+        assertThat(cohort.rank(3)).isEqualTo(2);
+
+        // Removing an absent student is a no-op
+        cohort.remove(1);
+        assertThat(cohort.size()).isEqualTo(3);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        ScoreCohort large = new ScoreCohort();
+        for (long student = 1; student <= 100; student++)
+            large.put(student, student % 10);
+
+        assertThat(large.size()).isEqualTo(100);
+        // Ten students score 9
+        assertThat(large.rank(9)).isEqualTo(1);
+        assertThat(large.rank(10)).isEqualTo(91);
+        assertThat(large.percentile(10)).isCloseTo(5.0, within(1e-9));
+    }
+}
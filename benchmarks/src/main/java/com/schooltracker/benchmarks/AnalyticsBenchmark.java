@@ -0,0 +1,168 @@
+package com.schooltracker.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.schooltracker.dto.GradeCountRow;
+import com.schooltracker.dto.MarkView;
+import com.schooltracker.dto.SubjectPerformanceRow;
+import com.schooltracker.service.CompiledGradingScheme;
+import com.schooltracker.service.MarkColumnStore;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * The faculty reports tab two ways, over 100k marks in an embedded H2
+ * database (MySQL mode) built from the backend's Flyway migrations:
+ * {@code /api/analytics/faculty/{id}} (column-store aggregates plus the
+ * grouped top-students query) against {@code /api/marks/faculty/{id}}, the
+ * full mark list the dashboard used to aggregate in the browser. Both return
+ * the JSON bytes the endpoint would send; their sizes are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+
+    private static final long FACULTY_ID = 1_000_001L;
+    private static final int SUBJECTS = 10;
+    private static final int ASSESSMENTS_PER_SUBJECT = 10;
+    private static final int STUDENTS = 1000;
+    private static final int TOP_STUDENTS = 5;
+
+    // SQL of MarkRepository.MARK_VIEW filtered by faculty, as issued by /api/marks/faculty/{id}
+    private static final String MARK_VIEW_SQL = "SELECT m.id, m.obtained_marks, m.grade, m.status, st.id, st.name, "
+            + "s.id, s.name, s.code, a.id, a.name, a.type, a.total_marks, a.date FROM marks m "
+            + "JOIN users st ON st.id = m.student_id JOIN subjects s ON s.id = m.subject_id "
+            + "JOIN assessments a ON a.id = m.assessment_id WHERE s.faculty_id = ? ORDER BY a.date, m.id";
+
+    // SQL of MarkRepository.findTopStudentsByFaculty
+    private static final String TOP_STUDENTS_SQL = "SELECT st.id, st.name, SUM(m.obtained_marks) AS obtained, "
+            + "SUM(a.total_marks) AS max_marks, SUM(m.obtained_marks) * 100.0 / SUM(a.total_marks) AS percentage "
+            + "FROM marks m JOIN users st ON st.id = m.student_id JOIN assessments a ON a.id = m.assessment_id "
+            + "JOIN subjects s ON s.id = m.subject_id WHERE s.faculty_id = ? "
+            + "GROUP BY st.id, st.name ORDER BY percentage DESC, st.id LIMIT ?";
+
+    // Same date handling as the Spring Boot auto-configured mapper
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private final MarkColumnStore markColumnStore = new MarkColumnStore();
+    // Stands in for ReferenceDataCache.findSubject
+    private final Map<Long, String[]> subjects = new HashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:analytics;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1",
+                "sa", "", true);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, role, username) "
+                + "VALUES (?, 'Faculty 1', 'FACULTY', 'faculty1')", FACULTY_ID);
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, role, username) VALUES (?, ?, 'STUDENT', ?)",
+                LongStream.rangeClosed(1, STUDENTS)
+                        .mapToObj(id -> new Object[] { id, "Student " + id, "student" + id })
+                        .toList());
+
+        List<Object[]> assessments = new ArrayList<>();
+        for (long subjectId = 1; subjectId <= SUBJECTS; subjectId++) {
+            jdbcTemplate.update("INSERT INTO subjects (id, name, code, year, semester, faculty_id) "
+                    + "VALUES (?, ?, ?, '2025', '1', ?)", subjectId, "Subject " + subjectId, "SUB" + subjectId,
+                    FACULTY_ID);
+            subjects.put(subjectId, new String[] { "Subject " + subjectId, "SUB" + subjectId });
+            for (int i = 0; i < ASSESSMENTS_PER_SUBJECT; i++) {
+                long assessmentId = (subjectId - 1) * ASSESSMENTS_PER_SUBJECT + i + 1;
+                assessments.add(new Object[] { assessmentId, "Unit Test " + assessmentId, "Theory", 100.0,
+                        LocalDate.of(2025, 1, 1).plusWeeks(i), subjectId, FACULTY_ID });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO assessments (id, name, type, total_marks, date, subject_id, faculty_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", assessments);
+
+        // Every student sits every assessment: 100k marks
+        SplittableRandom random = new SplittableRandom(Fixtures.SEED);
+        long markId = 0;
+        for (Object[] assessment : assessments) {
+            long assessmentId = (Long) assessment[0];
+            long subjectId = (Long) assessment[5];
+            List<Object[]> marks = new ArrayList<>(STUDENTS);
+            for (long studentId = 1; studentId <= STUDENTS; studentId++) {
+                double obtained = random.nextInt(101);
+                String grade = CompiledGradingScheme.DEFAULT.grade(obtained, 100.0);
+                marks.add(new Object[] { ++markId, obtained, grade, "Same", studentId, subjectId, assessmentId });
+                // No transaction is active, so the store applies the write at once
+                markColumnStore.onSaved(markId, studentId, subjectId, assessmentId, obtained, 100.0, grade);
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO marks (id, obtained_marks, grade, status, student_id, subject_id, "
+                    + "assessment_id) VALUES (?, ?, ?, ?, ?, ?, ?)", marks);
+        }
+
+        System.out.printf("%nPayload bytes: analytics summary %,d, faculty mark list %,d (%,d marks)%n",
+                analyticsSummary().length, facultyMarks().length, markId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    /** What AnalyticsController.getFacultySummary builds and serializes. */
+    @Benchmark
+    public byte[] analyticsSummary() throws JsonProcessingException {
+        List<Long> subjectIds = jdbcTemplate.queryForList("SELECT id FROM subjects WHERE faculty_id = ?", Long.class,
+                FACULTY_ID);
+        MarkColumnStore.Aggregate aggregate = markColumnStore.aggregate(subjectIds);
+
+        List<SubjectPerformanceRow> rows = new ArrayList<>(aggregate.subjects().size());
+        long markCount = 0;
+        long passCount = 0;
+        for (MarkColumnStore.SubjectAggregate totals : aggregate.subjects()) {
+            String[] subject = subjects.get(totals.subjectId());
+            rows.add(new SubjectPerformanceRow(totals.subjectId(), subject[0], subject[1], totals.totalObtained(),
+                    totals.totalMax(), totals.markCount(), totals.passCount()));
+            markCount += totals.markCount();
+            passCount += totals.passCount();
+        }
+        List<GradeCountRow> grades = new ArrayList<>(aggregate.gradeCounts().size());
+        aggregate.gradeCounts().forEach((grade, count) -> grades.add(new GradeCountRow(grade, count)));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("markCount", markCount);
+        summary.put("passCount", passCount);
+        summary.put("passRate", markCount == 0 ? null : (passCount * 100.0) / markCount);
+        summary.put("subjects", rows);
+        summary.put("gradeDistribution", grades);
+        summary.put("topStudents", jdbcTemplate.queryForList(TOP_STUDENTS_SQL, FACULTY_ID, TOP_STUDENTS));
+        return objectMapper.writeValueAsBytes(summary);
+    }
+
+    /** What MarkController.getMarksByFaculty returns without a limit. */
+    @Benchmark
+    public byte[] facultyMarks() throws JsonProcessingException {
+        List<MarkView> views = jdbcTemplate.query(MARK_VIEW_SQL, (rs, rowNum) -> new MarkView(rs.getLong(1),
+                rs.getDouble(2), rs.getString(3), rs.getString(4), rs.getLong(5), rs.getString(6), rs.getLong(7),
+                rs.getString(8), rs.getString(9), rs.getLong(10), rs.getString(11), rs.getString(12),
+                rs.getDouble(13), rs.getObject(14, LocalDate.class)), FACULTY_ID);
+        return objectMapper.writeValueAsBytes(views);
+    }
+}
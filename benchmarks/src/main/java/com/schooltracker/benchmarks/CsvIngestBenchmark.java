@@ -0,0 +1,95 @@
+package com.schooltracker.benchmarks;
+
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Mark;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import com.schooltracker.service.MarkService;
+import com.schooltracker.service.MarkTrendIndex;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory part of a marks bulk upload: CSV parsing with the format
+ * MarkController uses, then the per-row grading, trend and Mark construction
+ * MarkService performs before a chunk is written.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvIngestBenchmark {
+
+    @Param({ "100", "10000" })
+    public int rows;
+
+    private final MarkService markService = new MarkService();
+    private final Map<String, User> studentsByUsername = new HashMap<>();
+    private Subject subject;
+    private Assessment assessment;
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        MarkTrendIndex trendIndex = new MarkTrendIndex();
+        Fixtures.inject(markService, "trendIndex", trendIndex);
+        Fixtures.inject(markService, "observationRegistry", ObservationRegistry.NOOP);
+
+        subject = Fixtures.subject(1);
+        assessment = Fixtures.assessment(2, subject, LocalDate.of(2025, 2, 1));
+
+        SplittableRandom random = new SplittableRandom(Fixtures.SEED);
+        StringBuilder builder = new StringBuilder("username,obtainedMarks\n");
+        for (int i = 0; i < rows; i++) {
+            User student = Fixtures.student(i + 1);
+            studentsByUsername.put(student.getUsername(), student);
+            // Half of the students already have an earlier mark in the subject
+            if (i % 2 == 0) {
+                trendIndex.onSaved((long) i + 1, student.getId(), subject.getId(), 1L, LocalDate.of(2025, 1, 1),
+                        random.nextInt(101));
+            }
+            builder.append(student.getUsername()).append(',').append(random.nextInt(101)).append('\n');
+        }
+        csv = builder.toString();
+    }
+
+    @Benchmark
+    public List<Mark> parseAndBuildMarks() throws IOException {
+        List<Mark> marks = new ArrayList<>(rows);
+        try (CSVParser parser = new CSVParser(new StringReader(csv),
+                CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
+            for (CSVRecord csvRecord : parser) {
+                String username = csvRecord.get("username");
+                Double obtained = Double.parseDouble(csvRecord.get("obtainedMarks"));
+                User student = studentsByUsername.get(username.toLowerCase(Locale.ROOT));
+
+                Mark mark = new Mark();
+                mark.setObtainedMarks(obtained);
+                mark.setStudent(student);
+                mark.setSubject(subject);
+                mark.setAssessment(assessment);
+                mark.setGrade(markService.calculateGrade(obtained, assessment.getTotalMarks()));
+                mark.setStatus(markService.calculateStatus(student, subject, obtained, assessment.getTotalMarks(),
+                        null));
+                marks.add(mark);
+            }
+        }
+        return marks;
+    }
+}
@@ -0,0 +1,94 @@
+package com.schooltracker.benchmarks;
+
+import com.schooltracker.model.Assessment;
+import com.schooltracker.model.Mark;
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic test data and field wiring for services used outside Spring.
+ */
+final class Fixtures {
+
+    static final long SEED = 42L;
+
+    private Fixtures() {
+    }
+
+    static User student(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("Student " + id);
+        user.setRole("STUDENT");
+        user.setDepartment("Computer");
+        user.setUsername("student" + id);
+        user.setEmail("student" + id + "@example.com");
+        user.setParentsEmail("parent" + id + "@example.com");
+        user.setParentsMobile("+9100000" + id);
+        return user;
+    }
+
+    static Subject subject(long id) {
+        User faculty = new User();
+        faculty.setId(1_000_000L + id);
+        faculty.setName("Faculty " + id);
+        faculty.setRole("FACULTY");
+
+        Subject subject = new Subject();
+        subject.setId(id);
+        subject.setName("Subject " + id);
+        subject.setCode("SUB" + id);
+        subject.setYear("2025");
+        subject.setSemester("1");
+        subject.setFaculty(faculty);
+        return subject;
+    }
+
+    static Assessment assessment(long id, Subject subject, LocalDate date) {
+        Assessment assessment = new Assessment();
+        assessment.setId(id);
+        assessment.setName("Unit Test " + id);
+        assessment.setType("Theory");
+        assessment.setTotalMarks(100.0);
+        assessment.setDate(date);
+        assessment.setSubject(subject);
+        assessment.setFaculty(subject.getFaculty());
+        return assessment;
+    }
+
+    static List<Mark> marks(int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Subject subject = subject(1);
+        Assessment assessment = assessment(1, subject, LocalDate.of(2025, 1, 15));
+        List<Mark> marks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Mark mark = new Mark();
+            mark.setId((long) i + 1);
+            mark.setObtainedMarks((double) random.nextInt(101));
+            mark.setGrade("A");
+            mark.setStatus("Same");
+            mark.setStudent(student(i + 1));
+            mark.setSubject(subject);
+            mark.setAssessment(assessment);
+            marks.add(mark);
+        }
+        return marks;
+    }
+
+    /** Sets an @Autowired field the way Spring would. */
+    static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into " + target.getClass(), e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.schooltracker.benchmarks;
+
+import com.schooltracker.service.MarkService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MarkService.calculateGrade over a spread of scores covering every band.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GradingBenchmark {
+
+    private static final int SCORES = 1024;
+
+    private final MarkService markService = new MarkService();
+    private final Double[] obtained = new Double[SCORES];
+    private final Double total = 100.0;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(Fixtures.SEED);
+        for (int i = 0; i < SCORES; i++) {
+            obtained[i] = (double) random.nextInt(101);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCORES)
+    public void calculateGrade(Blackhole blackhole) {
+        for (Double score : obtained) {
+            blackhole.consume(markService.calculateGrade(score, total));
+        }
+    }
+}
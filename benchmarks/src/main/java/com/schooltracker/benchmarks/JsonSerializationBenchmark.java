@@ -0,0 +1,56 @@
+package com.schooltracker.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.schooltracker.dto.MarkView;
+import com.schooltracker.model.Mark;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of mark lists: the Mark entity graph against the flat
+ * MarkView read model the list endpoints return.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({ "100", "1000" })
+    public int size;
+
+    // Same date handling as the Spring Boot auto-configured mapper
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private List<Mark> marks;
+    private List<MarkView> views;
+
+    @Setup
+    public void setUp() {
+        marks = Fixtures.marks(size);
+        views = marks.stream()
+                .map(m -> new MarkView(m.getId(), m.getObtainedMarks(), m.getGrade(), m.getStatus(),
+                        m.getStudent().getId(), m.getStudent().getName(),
+                        m.getSubject().getId(), m.getSubject().getName(), m.getSubject().getCode(),
+                        m.getAssessment().getId(), m.getAssessment().getName(), m.getAssessment().getType(),
+                        m.getAssessment().getTotalMarks(), m.getAssessment().getDate()))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeMarks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(marks);
+    }
+
+    @Benchmark
+    public byte[] serializeMarkViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(views);
+    }
+}
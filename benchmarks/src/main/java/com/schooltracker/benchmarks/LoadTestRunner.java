@@ -0,0 +1,150 @@
+package com.schooltracker.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop HTTP load against a running backend, to compare the platform
+ * and virtual thread execution modes (spring.threads.virtual.enabled). Each
+ * of {@code concurrency} clients sends GETs round-robin over the paths and
+ * waits for the answer before the next. After the warmup, throughput and
+ * latency percentiles are printed and written to target/loadtest-LABEL.json.
+ *
+ * <pre>
+ * VIRTUAL_THREADS=false java -jar ../backend/target/school-tracker-0.0.1-SNAPSHOT-exec.jar
+ * java -cp target/benchmarks.jar com.schooltracker.benchmarks.LoadTestRunner \
+ *     url=http://localhost:8085 paths=/api/marks/student/1,/api/analytics/faculty/2/grade-distribution \
+ *     concurrency=400 warmup=15 duration=60 label=platform
+ * # restart the backend with VIRTUAL_THREADS=true (Java 21) and rerun with label=virtual
+ * </pre>
+ *
+ * Add {@code token=...} to send "Authorization: Bearer" when
+ * tracker.auth.required is on.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of("url", "http://localhost:8085",
+                "paths", "/api/subjects", "concurrency", "200", "warmup", "10", "duration", "30", "label", "run"));
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0)
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        String baseUrl = options.get("url");
+        List<URI> uris = Arrays.stream(options.get("paths").split(","))
+                .map(path -> URI.create(baseUrl + path.trim()))
+                .collect(Collectors.toList());
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        long warmupNanos = Duration.ofSeconds(Long.parseLong(options.get("warmup"))).toNanos();
+        long durationNanos = Duration.ofSeconds(Long.parseLong(options.get("duration"))).toNanos();
+        String token = options.get("token");
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        AtomicLong errors = new AtomicLong();
+        List<long[]> perClient = new ArrayList<>(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int c = 0; c < concurrency; c++) {
+            int offset = c;
+            Thread thread = new Thread(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                int next = offset;
+                try {
+                    while (true) {
+                        long sent = System.nanoTime();
+                        if (sent >= end)
+                            break;
+                        HttpRequest.Builder request = HttpRequest.newBuilder(uris.get(next++ % uris.size()))
+                                .timeout(Duration.ofSeconds(30)).GET();
+                        if (token != null)
+                            request.header("Authorization", "Bearer " + token);
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request.build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 400;
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        long received = System.nanoTime();
+                        if (sent < measureFrom)
+                            continue;
+                        if (!ok) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length)
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        latencies[count++] = received - sent;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    long[] measured = Arrays.copyOf(latencies, count);
+                    synchronized (perClient) {
+                        perClient.add(measured);
+                    }
+                    done.countDown();
+                }
+            }, "load-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = durationNanos / 1e9;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("label", options.get("label"));
+        result.put("concurrency", concurrency);
+        result.put("seconds", seconds);
+        result.put("requests", all.length);
+        result.put("errors", errors.get());
+        result.put("throughputPerSecond", round(all.length / seconds));
+        result.put("p50Millis", percentileMillis(all, 0.50));
+        result.put("p95Millis", percentileMillis(all, 0.95));
+        result.put("p99Millis", percentileMillis(all, 0.99));
+        result.put("maxMillis", all.length == 0 ? 0 : round(all[all.length - 1] / 1e6));
+
+        String json = result.entrySet().stream()
+                .map(e -> "\"" + e.getKey() + "\": " + (e.getValue() instanceof String ? "\"" + e.getValue() + "\""
+                        : e.getValue()))
+                .collect(Collectors.joining(",\n  ", "{\n  ", "\n}\n"));
+        System.out.print(json);
+        Path file = Path.of("target", "loadtest-" + options.get("label") + ".json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, json);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return round(sorted[Math.max(0, index)] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
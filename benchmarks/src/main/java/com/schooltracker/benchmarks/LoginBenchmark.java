@@ -0,0 +1,74 @@
+package com.schooltracker.benchmarks;
+
+import com.schooltracker.model.User;
+import com.schooltracker.service.AuthTokenService;
+import com.schooltracker.service.LoginThrottle;
+import com.schooltracker.service.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins per second at a given BCrypt cost, with every core logging in at
+ * once: the throttle check, the password check on the hashing pool and the
+ * token issue (the user lookup is a single indexed query and not included),
+ * next to the per-request cost of verifying a token.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({ "8", "10", "12" })
+    public int cost;
+
+    private final PasswordHasher passwordHasher = new PasswordHasher();
+    private final AuthTokenService authTokenService = new AuthTokenService();
+    private final LoginThrottle loginThrottle = new LoginThrottle();
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        Fixtures.inject(passwordHasher, "cost", cost);
+        Fixtures.inject(passwordHasher, "queueSize", 4096);
+        passwordHasher.init();
+        Fixtures.inject(authTokenService, "secret", "benchmark-secret-of-at-least-32-bytes");
+        Fixtures.inject(authTokenService, "ttlMinutes", 60L);
+        authTokenService.init();
+        Fixtures.inject(loginThrottle, "maxFailures", 5);
+        Fixtures.inject(loginThrottle, "windowMinutes", 15L);
+        Fixtures.inject(loginThrottle, "size", 10000L);
+        loginThrottle.init();
+
+        user = Fixtures.student(1);
+        user.setPassword(passwordHasher.hash(PASSWORD));
+        token = authTokenService.issue(user).token();
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Benchmark
+    public String login() {
+        if (loginThrottle.isBlocked(user.getUsername()))
+            throw new IllegalStateException("throttled");
+        if (!passwordHasher.matchesAsync(PASSWORD, user.getPassword()).join())
+            throw new IllegalStateException("password rejected");
+        return authTokenService.issue(user).token();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object verifyToken() {
+        return authTokenService.verify(token).orElseThrow();
+    }
+}
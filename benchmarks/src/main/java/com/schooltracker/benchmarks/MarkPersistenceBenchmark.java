@@ -0,0 +1,117 @@
+package com.schooltracker.benchmarks;
+
+import com.schooltracker.model.Mark;
+import com.schooltracker.repository.MarkJdbcRepository;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Persistence paths against an embedded H2 database (MySQL mode) built from
+ * the backend's Flyway migrations: the JDBC batch upsert of an upload chunk
+ * (re-uploading a sheet, so every row takes the duplicate-key path) and the
+ * per-(subject, students) history lookup used to reload trend slots.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarkPersistenceBenchmark {
+
+    private static final int STUDENTS = 1000;
+
+    // SQL of MarkRepository.findHistoryRows for one student, as issued by trend slot reloads
+    private static final String HISTORY_SQL = "SELECT m.id, m.student_id, m.subject_id, a.id, a.date, "
+            + "m.obtained_marks, a.total_marks FROM marks m JOIN assessments a ON a.id = m.assessment_id "
+            + "WHERE m.subject_id = ? AND m.student_id = ?";
+
+    @Param({ "100", "500" })
+    public int batch;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private final MarkJdbcRepository markJdbcRepository = new MarkJdbcRepository();
+    private List<Mark> chunk;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:benchmarks;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1",
+                "sa", "", true);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Fixtures.inject(markJdbcRepository, "jdbcTemplate", jdbcTemplate);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, role, username) VALUES (1000001, 'Faculty 1', 'FACULTY', 'faculty1')");
+        jdbcTemplate.update("INSERT INTO subjects (id, name, code, year, semester, faculty_id) "
+                + "VALUES (1, 'Subject 1', 'SUB1', '2025', '1', 1000001)");
+        jdbcTemplate.update("INSERT INTO assessments (id, name, type, total_marks, date, subject_id, faculty_id) "
+                + "VALUES (1, 'Unit Test 1', 'Theory', 100, DATE '2025-01-15', 1, 1000001)");
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, role, username) VALUES (?, ?, 'STUDENT', ?)",
+                LongStream.rangeClosed(1, STUDENTS)
+                        .mapToObj(id -> new Object[] { id, "Student " + id, "student" + id })
+                        .toList());
+
+        // One row per student: (student, assessment) is unique
+        chunk = Fixtures.marks(batch);
+        SplittableRandom random = new SplittableRandom(Fixtures.SEED);
+        long[] studentIds = random.longs(1, STUDENTS + 1).distinct().limit(batch).toArray();
+        for (int i = 0; i < chunk.size(); i++) {
+            Mark mark = chunk.get(i);
+            mark.getStudent().setId(studentIds[i]);
+            mark.getSubject().setId(1L);
+            mark.getAssessment().setId(1L);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncateMarks() {
+        jdbcTemplate.update("DELETE FROM marks");
+        markJdbcRepository.upsertBatch(copy(chunk));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Mark> upsertBatch() {
+        List<Mark> marks = copy(chunk);
+        markJdbcRepository.upsertBatch(marks);
+        return marks;
+    }
+
+    @Benchmark
+    public int historyLookup() {
+        long studentId = (next++ % STUDENTS) + 1;
+        return jdbcTemplate.query(HISTORY_SQL, (rs, rowNum) -> rs.getLong(1), 1L, studentId).size();
+    }
+
+    private List<Mark> copy(List<Mark> marks) {
+        List<Mark> copies = new ArrayList<>(marks.size());
+        for (Mark mark : marks) {
+            Mark copy = new Mark();
+            copy.setObtainedMarks(mark.getObtainedMarks());
+            copy.setGrade(mark.getGrade());
+            copy.setStatus(mark.getStatus());
+            copy.setStudent(mark.getStudent());
+            copy.setSubject(mark.getSubject());
+            copy.setAssessment(mark.getAssessment());
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
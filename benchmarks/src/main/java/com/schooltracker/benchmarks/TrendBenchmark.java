@@ -0,0 +1,62 @@
+package com.schooltracker.benchmarks;
+
+import com.schooltracker.model.Subject;
+import com.schooltracker.model.User;
+import com.schooltracker.service.MarkService;
+import com.schooltracker.service.MarkTrendIndex;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MarkService.calculateStatus against a trend index holding {@code history}
+ * earlier marks per (student, subject). The index keeps a fixed window of
+ * points per key, so the cost should stay flat as the history grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrendBenchmark {
+
+    private static final int STUDENTS = 1000;
+
+    @Param({ "1", "10", "100", "1000" })
+    public int history;
+
+    private final MarkService markService = new MarkService();
+    private final User[] students = new User[STUDENTS];
+    private Subject subject;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        MarkTrendIndex trendIndex = new MarkTrendIndex();
+        Fixtures.inject(markService, "trendIndex", trendIndex);
+        Fixtures.inject(markService, "observationRegistry", ObservationRegistry.NOOP);
+
+        subject = Fixtures.subject(1);
+        SplittableRandom random = new SplittableRandom(Fixtures.SEED);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        long markId = 1;
+        for (int s = 0; s < STUDENTS; s++) {
+            students[s] = Fixtures.student(s + 1);
+            for (int h = 0; h < history; h++) {
+                // No transaction is active, so the index applies the point immediately
+                trendIndex.onSaved(markId++, students[s].getId(), subject.getId(), (long) h + 1,
+                        start.plusDays(h), random.nextInt(101));
+            }
+        }
+    }
+
+    @Benchmark
+    public String calculateStatus() {
+        User student = students[next++ % STUDENTS];
+        return markService.calculateStatus(student, subject, 72.0, 100.0, null);
+    }
+}
@@ -91,6 +91,9 @@ const FacultyDashboard = () => {
         });
     };
 
+    // Averages and pass rates are null for subjects without marks
+    const formatPercent = (value) => (value == null ? '-' : `${value.toFixed(1)}%`);
+
     const calculatePreviewGrade = (obtained, total) => {
         if (!obtained || !total) return '-';
         const percentage = (obtained / total) * 100;
@@ -259,7 +262,7 @@ const FacultyDashboard = () => {
         { id: 'reports', icon: <TrendingUp size={20} />, label: 'Performance Reports' }
     ];
 
-    const [performanceData, setPerformanceData] = useState([]);
+    const [performanceData, setPerformanceData] = useState(null);
     const [reportLoading, setReportLoading] = useState(false);
 
     useEffect(() => {
@@ -268,10 +271,39 @@ const FacultyDashboard = () => {
         }
     }, [activeTab, user]);
 
+    // Live updates: each committed mark (or bulk upload) pushes the new aggregate of its subject
+    useEffect(() => {
+        if (!user) return;
+        const events = new EventSource(`${baseUrl}/api/events/faculty/${user.id}`);
+        const applySubject = (e) => {
+            const { subject } = JSON.parse(e.data);
+            if (!subject) return;
+            setPerformanceData(prev => {
+                if (!prev) return prev;
+                const subjects = [...prev.subjects.filter(s => s.subjectId !== subject.subjectId), subject]
+                    .sort((a, b) => (a.name || '').localeCompare(b.name || ''));
+                const markCount = subjects.reduce((sum, s) => sum + s.markCount, 0);
+                const passCount = subjects.reduce((sum, s) => sum + s.passCount, 0);
+                return {
+                    ...prev,
+                    subjects,
+                    markCount,
+                    passCount,
+                    passRate: markCount === 0 ? null : (passCount * 100) / markCount
+                };
+            });
+        };
+        events.addEventListener('mark', applySubject);
+        events.addEventListener('bulk', applySubject);
+        events.addEventListener('reset', () => fetchFacultyPerformanceData(user.id));
+        return () => events.close();
+    }, [user]);
+
     const fetchFacultyPerformanceData = async (facultyId) => {
         setReportLoading(true);
         try {
-            const response = await fetch(`${baseUrl}/api/marks/faculty/${facultyId}`);
+            // Aggregates are computed server-side; only per-subject rows and the top students come back
+            const response = await fetch(`${baseUrl}/api/analytics/faculty/${facultyId}`);
             if (response.ok) {
                 const data = await response.json();
                 setPerformanceData(data);
@@ -285,47 +317,10 @@ const FacultyDashboard = () => {
 
     const renderReports = () => {
         if (reportLoading) return <div className="loading-state">Loading performance data...</div>;
-        if (performanceData.length === 0) return <div className="empty-state">No performance data available yet.</div>;
-
-        // Grouping data by subject
-        const subjectStats = performanceData.reduce((acc, report) => {
-            const subjectId = report.subject.id;
-            if (!acc[subjectId]) {
-                acc[subjectId] = {
-                    name: report.subject.name,
-                    code: report.subject.code,
-                    totalObtained: 0,
-                    totalMax: 0,
-                    count: 0,
-                    passCount: 0
-                };
-            }
-            acc[subjectId].totalObtained += report.obtainedMarks;
-            acc[subjectId].totalMax += report.assessment.totalMarks;
-            acc[subjectId].count += 1;
-            if (report.grade !== 'Fail') acc[subjectId].passCount += 1;
-            return acc;
-        }, {});
-
-        // Top Performers calculation
-        const studentAverages = performanceData.reduce((acc, report) => {
-            const studentId = report.student.id;
-            if (!acc[studentId]) {
-                acc[studentId] = {
-                    name: report.student.name,
-                    obtained: 0,
-                    max: 0
-                };
-            }
-            acc[studentId].obtained += report.obtainedMarks;
-            acc[studentId].max += report.assessment.totalMarks;
-            return acc;
-        }, {});
+        if (!performanceData || performanceData.markCount === 0) return <div className="empty-state">No performance data available yet.</div>;
 
-        const topPerformers = Object.values(studentAverages)
-            .map(s => ({ ...s, percentage: (s.obtained / s.max) * 100 }))
-            .sort((a, b) => b.percentage - a.percentage)
-            .slice(0, 5);
+        const subjectStats = performanceData.subjects;
+        const topPerformers = performanceData.topStudents;
 
         return (
             <div className="reports-container fade-in">
@@ -336,7 +331,7 @@ const FacultyDashboard = () => {
                             <h2>Subject Performance Analysis</h2>
                         </div>
                         <div className="stats-grid">
-                            {Object.values(subjectStats).map(stat => (
+                            {subjectStats.map(stat => (
                                 <div key={stat.code} className="analysis-card">
                                     <div className="analysis-header">
                                         <h3>{stat.name}</h3>
@@ -348,20 +343,20 @@ const FacultyDashboard = () => {
                                             <div className="progress-bar-container">
                                                 <div
                                                     className="progress-bar-fill"
-                                                    style={{ width: `${(stat.totalObtained / stat.totalMax) * 100}%` }}
+                                                    style={{ width: `${stat.averagePercentage ?? 0}%` }}
                                                 ></div>
                                             </div>
-                                            <span>{((stat.totalObtained / stat.totalMax) * 100).toFixed(1)}%</span>
+                                            <span>{formatPercent(stat.averagePercentage)}</span>
                                         </div>
                                         <div className="analysis-item">
                                             <label>Pass Rate</label>
                                             <div className="pass-rate-indicator">
                                                 <div
                                                     className="pass-rate-fill"
-                                                    style={{ width: `${(stat.passCount / stat.count) * 100}%` }}
+                                                    style={{ width: `${stat.passRate ?? 0}%` }}
                                                 ></div>
                                             </div>
-                                            <span>{((stat.passCount / stat.count) * 100).toFixed(1)}%</span>
+                                            <span>{formatPercent(stat.passRate)}</span>
                                         </div>
                                     </div>
                                 </div>
@@ -376,11 +371,11 @@ const FacultyDashboard = () => {
                         </div>
                         <div className="top-students-list">
                             {topPerformers.map((student, index) => (
-                                <div key={student.name} className="top-student-item">
+                                <div key={student.studentId} className="top-student-item">
                                     <div className="student-rank">{index + 1}</div>
                                     <div className="student-info-mini">
                                         <span className="student-name">{student.name}</span>
-                                        <span className="student-score">{student.percentage.toFixed(1)}% Avg</span>
+                                        <span className="student-score">{formatPercent(student.percentage)} Avg</span>
                                     </div>
                                     <TrendingUp size={16} className="trend-icon" />
                                 </div>
@@ -396,12 +391,12 @@ const FacultyDashboard = () => {
                         <div className="summary-stats">
                             <div className="summary-item">
                                 <span className="stat-label">Total Assessments Graded</span>
-                                <span className="stat-value">{performanceData.length}</span>
+                                <span className="stat-value">{performanceData.markCount}</span>
                             </div>
                             <div className="summary-item">
                                 <span className="stat-label">Overall Passing Rate</span>
                                 <span className="stat-value">
-                                    {((performanceData.filter(r => r.grade !== 'Fail').length / performanceData.length) * 100).toFixed(1)}%
+                                    {formatPercent(performanceData.passRate)}
                                 </span>
                             </div>
                         </div>
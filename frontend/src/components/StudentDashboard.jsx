@@ -57,6 +57,26 @@ const StudentDashboard = () => {
         }
     }, []);
 
+    // Live updates: the server pushes each new or changed mark instead of us refetching the list
+    useEffect(() => {
+        if (!user) return;
+        const events = new EventSource(`${baseUrl}/api/events/student/${user.id}`);
+        events.addEventListener('mark', (e) => {
+            const { mark } = JSON.parse(e.data);
+            setMarks(prev => [...prev.filter(m => m.id !== mark.id), mark]);
+            // The trend is the server's windowed one; the index is updated before the event goes out
+            fetchTimeline(user.id);
+        });
+        // Missed too many events (or the server restarted): fall back to a full fetch
+        events.addEventListener('reset', () => fetchMarks(user.id));
+        return () => events.close();
+    }, [user]);
+
+    // Latest grade follows the marks list, whichever way it changed
+    useEffect(() => {
+        calculateStats(marks);
+    }, [marks]);
+
     useEffect(() => {
         if (activeTab === 'classroom' && user) {
             fetchEnrolledSubjects(user.id);
@@ -69,7 +89,7 @@ const StudentDashboard = () => {
             if (response.ok) {
                 const data = await response.json();
                 setMarks(data);
-                calculateStats(data);
+                fetchTimeline(studentId);
             }
         } catch (error) {
             console.error('Error fetching marks:', error);
@@ -78,6 +98,23 @@ const StudentDashboard = () => {
         }
     };
 
+    // Multi-step trend of the subject with the most recent mark, from the server's rolling aggregates
+    const fetchTimeline = async (studentId) => {
+        try {
+            const response = await fetch(`${baseUrl}/api/students/${studentId}/timeline?limit=1`);
+            if (response.ok) {
+                const data = await response.json();
+                const latest = data.recent[0];
+                const subject = latest && data.subjects.find(s => s.subjectId === latest.subjectId);
+                if (subject) {
+                    setStats(prev => ({ ...prev, overallTrend: subject.stats.trend }));
+                }
+            }
+        } catch (error) {
+            console.error('Error fetching timeline:', error);
+        }
+    };
+
     const fetchEnrolledSubjects = async (studentId) => {
         try {
             const response = await fetch(`${baseUrl}/api/subjects/student/${studentId}`);
@@ -151,10 +188,7 @@ const StudentDashboard = () => {
         if (marksList.length === 0) return;
         const sortedMarks = [...marksList].sort((a, b) => b.id - a.id);
         const latest = sortedMarks[0];
-        setStats({
-            avgGrade: latest.grade,
-            overallTrend: latest.status
-        });
+        setStats(prev => ({ ...prev, avgGrade: latest.grade }));
     };
 
     const renderOverview = () => (